@@ -7,17 +7,27 @@ import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.event.EventPriority;
 import com.werchat.channels.ChannelManager;
+import com.werchat.chatlog.ChatLogService;
 import com.werchat.commands.ChannelCommand;
 import com.werchat.commands.IgnoreCommand;
 import com.werchat.commands.IgnoreListCommand;
 import com.werchat.commands.MessageCommand;
 import com.werchat.commands.ReplyCommand;
 import com.werchat.config.WerchatConfig;
+import com.werchat.history.HistoryStore;
+import com.werchat.history.ScrollbackManager;
 import com.werchat.api.WerchatAPI;
 import com.werchat.api.WerchatAPIImpl;
 import com.werchat.integration.papi.PAPIIntegration;
 import com.werchat.listeners.ChatListener;
 import com.werchat.listeners.PlayerListener;
+import com.werchat.moderation.ClassifierStage;
+import com.werchat.moderation.JoinLog;
+import com.werchat.moderation.PatternFilter;
+import com.werchat.moderation.RaidDetector;
+import com.werchat.moderation.RateLimiter;
+import com.werchat.moderation.SlowModeTracker;
+import com.werchat.moderation.SpamGuard;
 import com.werchat.storage.PlayerDataManager;
 
 import javax.annotation.Nonnull;
@@ -31,6 +41,16 @@ public class WerchatPlugin extends JavaPlugin {
 
     private static WerchatPlugin instance;
     private WerchatConfig config;
+    private ChatLogService chatLog;
+    private HistoryStore historyStore;
+    private ScrollbackManager scrollback;
+    private RateLimiter rateLimiter;
+    private SlowModeTracker slowMode;
+    private SpamGuard spamGuard;
+    private RaidDetector raidDetector;
+    private JoinLog joinLog;
+    private PatternFilter patternFilter;
+    private ClassifierStage classifierStage;
     private ChannelManager channelManager;
     private PlayerDataManager playerDataManager;
     private ChatListener chatListener;
@@ -50,9 +70,20 @@ public class WerchatPlugin extends JavaPlugin {
         this.config = new WerchatConfig(this);
         config.load();
 
+        this.chatLog = new ChatLogService(this);
+        this.historyStore = new HistoryStore(this);
+
         // Initialize managers
         this.channelManager = new ChannelManager(this);
         this.playerDataManager = new PlayerDataManager(this);
+        this.scrollback = new ScrollbackManager(this);
+        this.rateLimiter = new RateLimiter(this);
+        this.slowMode = new SlowModeTracker(this);
+        this.spamGuard = new SpamGuard(this);
+        this.raidDetector = new RaidDetector(this);
+        this.joinLog = new JoinLog();
+        this.patternFilter = new PatternFilter(this);
+        this.classifierStage = new ClassifierStage(this);
         this.chatListener = new ChatListener(this);
         this.playerListener = new PlayerListener(this);
         this.api = new WerchatAPIImpl(this);
@@ -60,6 +91,9 @@ public class WerchatPlugin extends JavaPlugin {
         // Load data
         channelManager.loadChannels();
         playerDataManager.loadNicknames();
+        chatLog.start();
+        historyStore.start();
+        historyStore.startIndexing(channelManager.getAllChannels());
 
         return java.util.concurrent.CompletableFuture.completedFuture(null);
     }
@@ -82,12 +116,20 @@ public class WerchatPlugin extends JavaPlugin {
         if (config.isWordFilterEnabled()) {
             getLogger().at(Level.INFO).log("Word filter: ENABLED (%s mode)", config.getFilterMode());
         }
-        if (config.isCooldownEnabled()) {
-            getLogger().at(Level.INFO).log("Chat cooldown: ENABLED (%ds)", config.getCooldownSeconds());
+        if (config.isRateLimitEnabled()) {
+            getLogger().at(Level.INFO).log("Chat rate limit: ENABLED (%d tiers)", config.getRateLimitTiers().size());
         }
         if (config.isMentionsEnabled()) {
             getLogger().at(Level.INFO).log("Mentions: ENABLED");
         }
+        if (chatLog.isFileLogEnabled()) {
+            getLogger().at(Level.INFO).log("Chat log: ENABLED (%s/chat.log, %s overflow)",
+                config.getChatLogDirectory(), chatLog.getOverflowPolicy());
+        }
+        if (historyStore.isEnabled()) {
+            getLogger().at(Level.INFO).log("Channel history: ENABLED (%d day retention, search %s)",
+                config.getHistoryRetentionDays(), historyStore.isSearchEnabled() ? "on" : "off");
+        }
     }
 
     private void registerListeners() {
@@ -107,6 +149,11 @@ public class WerchatPlugin extends JavaPlugin {
 
     @Override
     protected void shutdown() {
+        // Lift raid mutes first so the final save doesn't keep them
+        if (raidDetector != null) {
+            raidDetector.shutdown();
+        }
+
         // Stop debounced savers before final flush
         if (channelManager != null) {
             channelManager.shutdownDebouncedSaver();
@@ -125,6 +172,15 @@ public class WerchatPlugin extends JavaPlugin {
         if (config != null) {
             config.save();
         }
+        if (chatListener != null) {
+            chatListener.shutdown();
+        }
+        if (chatLog != null) {
+            chatLog.shutdown();
+        }
+        if (historyStore != null) {
+            historyStore.shutdown();
+        }
 
         getLogger().at(Level.INFO).log("Werchat disabled.");
     }
@@ -135,5 +191,15 @@ public class WerchatPlugin extends JavaPlugin {
     public ChannelManager getChannelManager() { return channelManager; }
     public PlayerDataManager getPlayerDataManager() { return playerDataManager; }
     public ChatListener getChatListener() { return chatListener; }
+    public ChatLogService getChatLog() { return chatLog; }
+    public HistoryStore getHistoryStore() { return historyStore; }
+    public ScrollbackManager getScrollback() { return scrollback; }
+    public RateLimiter getRateLimiter() { return rateLimiter; }
+    public SlowModeTracker getSlowMode() { return slowMode; }
+    public SpamGuard getSpamGuard() { return spamGuard; }
+    public RaidDetector getRaidDetector() { return raidDetector; }
+    public JoinLog getJoinLog() { return joinLog; }
+    public PatternFilter getPatternFilter() { return patternFilter; }
+    public ClassifierStage getClassifierStage() { return classifierStage; }
     public WerchatAPI getAPI() { return api; }
 }
@@ -1,6 +1,7 @@
 package com.werchat.api;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -10,7 +11,7 @@ import java.util.UUID;
  */
 public interface WerchatAPI {
 
-    String API_VERSION = "2.2.0";
+    String API_VERSION = "2.4.0";
 
     Collection<WerchatChannelView> getChannels();
 
@@ -26,6 +27,23 @@ public interface WerchatAPI {
 
     String getFocusedChannel(UUID playerId);
 
+    /**
+     * Stored channel chat at or after sinceEpochMillis, oldest first, at most limit entries.
+     * Empty when history is disabled or the channel is unknown.
+     */
+    List<WerchatHistoryEntry> getChannelHistory(String channelInput, long sinceEpochMillis, int limit);
+
+    /**
+     * The most recent stored channel chat, oldest first, at most limit entries.
+     */
+    List<WerchatHistoryEntry> getRecentChannelHistory(String channelInput, int limit);
+
+    /**
+     * Stored channel chat containing every word of the query, newest first, at most limit entries.
+     * senderId may be null to match any sender. Empty when history search is disabled.
+     */
+    List<WerchatHistoryEntry> searchChannelHistory(String query, UUID senderId, long sinceEpochMillis, int limit);
+
     Set<String> getCapabilities();
 
     default String getApiVersion() {
@@ -43,6 +61,14 @@ public interface WerchatAPI {
 
     boolean unregisterHook(UUID hookId);
 
+    /**
+     * Register a classifier that reviews channel chat after Werchat's own filters.
+     * See {@link WerchatModerationClassifier} for the time budget and caching rules.
+     */
+    UUID registerModerationClassifier(WerchatModerationClassifier classifier);
+
+    boolean unregisterModerationClassifier(UUID classifierId);
+
     WerchatActionResult setFocusedChannel(UUID playerId,
                                           String channelInput,
                                           WerchatOperationOptions options,
@@ -128,7 +154,7 @@ public interface WerchatAPI {
     }
 
     /**
-     * Submit chat through Werchat's normal processing path (quick-chat, mute, cooldown, filter, etc).
+     * Submit chat through Werchat's normal processing path (quick-chat, mute, rate limit, filter, etc).
      */
     WerchatActionResult submitPlayerChat(UUID senderId, String message);
 
@@ -5,10 +5,14 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.werchat.WerchatPlugin;
 import com.werchat.channels.Channel;
 import com.werchat.channels.ChannelManager;
+import com.werchat.history.HistoryRecord;
+import com.werchat.history.HistorySearchResult;
+import com.werchat.history.HistoryStore;
 import com.werchat.listeners.ChatListener;
 import com.werchat.storage.PlayerDataManager;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
@@ -29,7 +33,10 @@ public class WerchatAPIImpl implements WerchatAPI {
         WerchatApiCapabilities.HOOKS,
         WerchatApiCapabilities.SUBMIT_PLAYER_CHAT,
         WerchatApiCapabilities.CHANNEL_LOOKUP_MODES,
-        WerchatApiCapabilities.API_VERSIONING
+        WerchatApiCapabilities.API_VERSIONING,
+        WerchatApiCapabilities.CHANNEL_HISTORY,
+        WerchatApiCapabilities.CHANNEL_HISTORY_SEARCH,
+        WerchatApiCapabilities.MODERATION_CLASSIFIERS
     );
 
     private final WerchatPlugin plugin;
@@ -64,6 +71,41 @@ public class WerchatAPIImpl implements WerchatAPI {
         return playerDataManager.getFocusedChannel(playerId);
     }
 
+    @Override
+    public List<WerchatHistoryEntry> getChannelHistory(String channelInput, long sinceEpochMillis, int limit) {
+        Channel channel = resolveChannel(channelInput, WerchatChannelLookupMode.FUZZY);
+        if (channel == null) {
+            return List.of();
+        }
+        return toHistoryEntries(channel, plugin.getHistoryStore().since(channel, sinceEpochMillis, limit));
+    }
+
+    @Override
+    public List<WerchatHistoryEntry> getRecentChannelHistory(String channelInput, int limit) {
+        Channel channel = resolveChannel(channelInput, WerchatChannelLookupMode.FUZZY);
+        if (channel == null) {
+            return List.of();
+        }
+        return toHistoryEntries(channel, plugin.getHistoryStore().latest(channel, limit));
+    }
+
+    @Override
+    public List<WerchatHistoryEntry> searchChannelHistory(String query, UUID senderId, long sinceEpochMillis, int limit) {
+        if (query == null) {
+            return List.of();
+        }
+        HistorySearchResult result = plugin.getHistoryStore()
+            .search(HistoryStore.searchTerms(query), senderId, null, sinceEpochMillis, limit);
+        return result.hits().stream()
+            .map(hit -> {
+                Channel channel = channelManager.getChannelById(hit.channelId());
+                HistoryRecord record = hit.record();
+                return new WerchatHistoryEntry(channel != null ? channel.getName() : hit.channelId().toString(), record.timestamp(),
+                    record.senderId(), record.senderName(), record.message());
+            })
+            .toList();
+    }
+
     @Override
     public Set<String> getCapabilities() {
         return CAPABILITIES;
@@ -89,6 +131,24 @@ public class WerchatAPIImpl implements WerchatAPI {
         return hooks.remove(hookId) != null;
     }
 
+    @Override
+    public UUID registerModerationClassifier(WerchatModerationClassifier classifier) {
+        if (classifier == null) {
+            throw new IllegalArgumentException("classifier cannot be null");
+        }
+
+        return plugin.getClassifierStage().register(classifier);
+    }
+
+    @Override
+    public boolean unregisterModerationClassifier(UUID classifierId) {
+        if (classifierId == null) {
+            return false;
+        }
+
+        return plugin.getClassifierStage().unregister(classifierId);
+    }
+
     @Override
     public WerchatActionResult setFocusedChannel(UUID playerId, String channelInput) {
         return setFocusedChannel(
@@ -150,6 +210,7 @@ public class WerchatAPIImpl implements WerchatAPI {
         }
 
         playerDataManager.setFocusedChannel(playerId, channel.getName());
+        plugin.getScrollback().replay(playerId, channel);
         channelManager.sendChannelMotd(playerId, channel);
         return finishAction(context, WerchatActionResult.success("Focused channel updated", channel.getName()));
     }
@@ -224,6 +285,7 @@ public class WerchatAPIImpl implements WerchatAPI {
         }
 
         channel.addMember(playerId);
+        plugin.getScrollback().replay(playerId, channel);
         channelManager.sendChannelMotd(playerId, channel);
         return finishAction(context, WerchatActionResult.success("Joined channel", channel.getName()));
     }
@@ -382,6 +444,12 @@ public class WerchatAPIImpl implements WerchatAPI {
             }
         }
 
+        long retryAfterMillis = plugin.getRateLimiter().retryAfterMillis(senderId);
+        if (retryAfterMillis > 0) {
+            return finishAction(context, WerchatActionResult.failure(WerchatActionStatus.RATE_LIMITED,
+                "Rate limited, retry in " + retryAfterMillis + "ms", selectedChannel.getName()));
+        }
+
         chatListener.handleChatInput(sender, message);
         return finishAction(context, WerchatActionResult.success("Message submitted", selectedChannel.getName()));
     }
@@ -464,6 +532,13 @@ public class WerchatAPIImpl implements WerchatAPI {
         return lookupMode == null ? WerchatChannelLookupMode.FUZZY : lookupMode;
     }
 
+    private List<WerchatHistoryEntry> toHistoryEntries(Channel channel, List<HistoryRecord> records) {
+        return records.stream()
+            .map(record -> new WerchatHistoryEntry(channel.getName(), record.timestamp(), record.senderId(),
+                record.senderName(), record.message()))
+            .toList();
+    }
+
     private WerchatChannelView toView(Channel channel) {
         Set<String> worlds = Set.copyOf(channel.getWorlds());
         return new WerchatChannelView(
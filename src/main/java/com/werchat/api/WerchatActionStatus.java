@@ -12,5 +12,6 @@ public enum WerchatActionStatus {
     INVALID_PASSWORD,
     CHANNEL_NOT_FOCUSABLE,
     PERMISSION_DENIED,
-    CANCELLED_BY_HOOK
+    CANCELLED_BY_HOOK,
+    RATE_LIMITED
 }
@@ -11,6 +11,9 @@ public final class WerchatApiCapabilities {
     public static final String SUBMIT_PLAYER_CHAT = "submit-player-chat";
     public static final String CHANNEL_LOOKUP_MODES = "channel-lookup-modes";
     public static final String API_VERSIONING = "api-versioning";
+    public static final String CHANNEL_HISTORY = "channel-history";
+    public static final String CHANNEL_HISTORY_SEARCH = "channel-history-search";
+    public static final String MODERATION_CLASSIFIERS = "moderation-classifiers";
 
     private WerchatApiCapabilities() {
     }
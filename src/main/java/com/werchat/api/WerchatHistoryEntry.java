@@ -0,0 +1,14 @@
+package com.werchat.api;
+
+import java.util.UUID;
+
+/**
+ * Snapshot of one stored channel chat line for external integrations.
+ */
+public record WerchatHistoryEntry(
+    String channel,
+    long timestamp,
+    UUID senderId,
+    String senderName,
+    String message
+) {}
@@ -0,0 +1,25 @@
+package com.werchat.api;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * External moderation check for channel chat, such as a rules engine or a locally hosted model.
+ * <p>
+ * Registered classifiers run concurrently for each message that passes Werchat's own filters.
+ * Each check has a time budget (config {@code moderationClassifiers.timeoutMillis}); a check that
+ * misses it, or fails, is treated as allowed or blocked according to the configured fail policy.
+ * Allow and block verdicts are cached by normalized message text, so a classifier is not asked
+ * about repeats. Replacements are not cached, since they are specific to the exact text.
+ * classify may be called from any thread and should not block; do slow work asynchronously.
+ */
+public interface WerchatModerationClassifier {
+
+    /**
+     * Short name used in /ch stats and logs.
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    CompletableFuture<WerchatModerationVerdict> classify(WerchatModerationRequest request);
+}
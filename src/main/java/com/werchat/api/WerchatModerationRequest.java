@@ -0,0 +1,15 @@
+package com.werchat.api;
+
+import java.util.UUID;
+
+/**
+ * A channel message awaiting a moderation verdict. normalizedMessage is the lowercase, folded
+ * form the word filter matches against (accents, look-alike letters and leetspeak mapped to plain letters).
+ */
+public record WerchatModerationRequest(
+    UUID senderId,
+    String senderName,
+    String channel,
+    String message,
+    String normalizedMessage
+) {}
@@ -0,0 +1,55 @@
+package com.werchat.api;
+
+/**
+ * Outcome of a moderation classifier: allow the message, block it, or send a replacement text.
+ */
+public final class WerchatModerationVerdict {
+
+    public enum Action {
+        ALLOW,
+        BLOCK,
+        REPLACE
+    }
+
+    private static final WerchatModerationVerdict ALLOW = new WerchatModerationVerdict(Action.ALLOW, null, null);
+
+    private final Action action;
+    private final String replacement;
+    private final String reason;
+
+    private WerchatModerationVerdict(Action action, String replacement, String reason) {
+        this.action = action;
+        this.replacement = replacement;
+        this.reason = reason;
+    }
+
+    public static WerchatModerationVerdict allow() {
+        return ALLOW;
+    }
+
+    /**
+     * Blocks the message. reason, if not null, is shown to the sender instead of the configured block message.
+     */
+    public static WerchatModerationVerdict block(String reason) {
+        return new WerchatModerationVerdict(Action.BLOCK, null, reason);
+    }
+
+    public static WerchatModerationVerdict replace(String replacement, String reason) {
+        if (replacement == null || replacement.isBlank()) {
+            throw new IllegalArgumentException("replacement cannot be blank");
+        }
+        return new WerchatModerationVerdict(Action.REPLACE, replacement, reason);
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public String getReplacement() {
+        return replacement;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
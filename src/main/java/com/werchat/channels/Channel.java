@@ -1,7 +1,10 @@
 package com.werchat.channels;
 
 import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
@@ -13,12 +16,14 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class Channel {
 
+    private UUID id; // stable across renames; keys stored history
     private String name;
     private String nick;
     private Color color;
     private Color messageColor; // null = use tag color for message text
     private String format;
     private int distance;
+    private int slowModeSeconds; // 0 = off
     private String password;
     private boolean isDefault;
     private boolean focusable;
@@ -44,11 +49,18 @@ public class Channel {
     private final Set<String> worlds; // world name restrictions (empty = all worlds)
 
     private transient Runnable changeListener;
+    // Hex forms are read for every rendered line, so they are formatted once per color change
+    private transient String colorHex;
+    private transient String messageColorHex;
+    // Small per-run index assigned by ChannelManager, so per-channel player state can live in arrays
+    private transient int runtimeSlot = -1;
 
     public Channel(String name) {
+        this.id = UUID.randomUUID();
         this.name = name;
         this.nick = name.toLowerCase().substring(0, Math.min(1, name.length()));
         this.color = Color.WHITE;
+        this.colorHex = toHex(color);
         this.format = "{nick} {sender}: {msg}";
         this.distance = 0;
         this.isDefault = false;
@@ -121,6 +133,71 @@ public class Channel {
         return changed;
     }
 
+    /**
+     * Bans every given player as one change. Returns the players who were newly banned or removed.
+     */
+    public List<UUID> banAll(Collection<UUID> playerIds) {
+        List<UUID> changed = new ArrayList<>();
+        for (UUID playerId : playerIds) {
+            boolean removed = members.remove(playerId);
+            if (banned.add(playerId) || removed) {
+                changed.add(playerId);
+            }
+        }
+        if (!changed.isEmpty()) {
+            notifyChanged();
+        }
+        return changed;
+    }
+
+    /**
+     * Mutes every given player as one change. Returns the players who were newly muted.
+     */
+    public List<UUID> muteAll(Collection<UUID> playerIds) {
+        List<UUID> changed = new ArrayList<>();
+        for (UUID playerId : playerIds) {
+            if (muted.add(playerId)) {
+                changed.add(playerId);
+            }
+        }
+        if (!changed.isEmpty()) {
+            notifyChanged();
+        }
+        return changed;
+    }
+
+    /**
+     * Unmutes every given player as one change. Returns the players who were muted.
+     */
+    public List<UUID> unmuteAll(Collection<UUID> playerIds) {
+        List<UUID> changed = new ArrayList<>();
+        for (UUID playerId : playerIds) {
+            if (muted.remove(playerId)) {
+                changed.add(playerId);
+            }
+        }
+        if (!changed.isEmpty()) {
+            notifyChanged();
+        }
+        return changed;
+    }
+
+    /**
+     * Removes every given player from the channel as one change. Returns the players who were members.
+     */
+    public List<UUID> removeMembers(Collection<UUID> playerIds) {
+        List<UUID> changed = new ArrayList<>();
+        for (UUID playerId : playerIds) {
+            if (members.remove(playerId)) {
+                changed.add(playerId);
+            }
+        }
+        if (!changed.isEmpty()) {
+            notifyChanged();
+        }
+        return changed;
+    }
+
     public boolean isBanned(UUID playerId) {
         return banned.contains(playerId);
     }
@@ -177,6 +254,14 @@ public class Channel {
     }
 
     // Getters/Setters
+    public UUID getId() {
+        return id;
+    }
+
+    void setId(UUID id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
@@ -214,11 +299,12 @@ public class Channel {
         }
 
         this.color = color;
+        this.colorHex = color != null ? toHex(color) : null;
         notifyChanged();
     }
 
     public String getColorHex() {
-        return String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue());
+        return colorHex;
     }
 
     public Color getMessageColor() {
@@ -231,6 +317,7 @@ public class Channel {
         }
 
         this.messageColor = messageColor;
+        this.messageColorHex = messageColor != null ? toHex(messageColor) : null;
         notifyChanged();
     }
 
@@ -239,13 +326,15 @@ public class Channel {
     }
 
     public String getMessageColorHex() {
-        return messageColor != null
-            ? String.format("#%02x%02x%02x", messageColor.getRed(), messageColor.getGreen(), messageColor.getBlue())
-            : null;
+        return messageColorHex;
     }
 
     public String getEffectiveMessageColorHex() {
-        return messageColor != null ? getMessageColorHex() : getColorHex();
+        return messageColorHex != null ? messageColorHex : colorHex;
+    }
+
+    private static String toHex(Color color) {
+        return String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue());
     }
 
     public boolean isAutoJoin() {
@@ -349,6 +438,32 @@ public class Channel {
         notifyChanged();
     }
 
+    public int getSlowModeSeconds() {
+        return slowModeSeconds;
+    }
+
+    public void setSlowModeSeconds(int slowModeSeconds) {
+        int normalized = Math.max(0, slowModeSeconds);
+        if (this.slowModeSeconds == normalized) {
+            return;
+        }
+
+        this.slowModeSeconds = normalized;
+        notifyChanged();
+    }
+
+    public boolean hasSlowMode() {
+        return slowModeSeconds > 0;
+    }
+
+    public int getRuntimeSlot() {
+        return runtimeSlot;
+    }
+
+    void setRuntimeSlot(int runtimeSlot) {
+        this.runtimeSlot = runtimeSlot;
+    }
+
     public boolean isGlobal() {
         return distance <= 0;
     }
@@ -16,6 +16,9 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.security.MessageDigest;
 import java.util.logging.Level;
 
@@ -32,6 +35,10 @@ public class ChannelManager {
     private final Gson gson;
     private final ScheduledExecutorService saveExecutor;
     private final Set<UUID> motdShownThisLogin;
+    private final List<Consumer<Channel>> channelChangeListeners = new CopyOnWriteArrayList<>();
+    // Runtime slots are keyed by channel id so a channel keeps its slot across reloads and renames; never reused
+    private final Map<UUID, Integer> runtimeSlots = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRuntimeSlot = new AtomicInteger();
     private final Object saveStateLock = new Object();
     private ScheduledFuture<?> pendingSaveTask;
     private boolean suppressDirtyNotifications;
@@ -40,12 +47,14 @@ public class ChannelManager {
     private Channel defaultChannel;
 
     private static final class ChannelSaveSnapshot {
+        private final UUID id;
         private final String name;
         private final String nick;
         private final String colorHex;
         private final String messageColorHex;
         private final String format;
         private final int distance;
+        private final int slowModeSeconds;
         private final Set<String> worlds;
         private final String password;
         private final String quickChatSymbol;
@@ -63,12 +72,14 @@ public class ChannelManager {
         private final Set<UUID> muted;
 
         private ChannelSaveSnapshot(Channel channel) {
+            this.id = channel.getId();
             this.name = channel.getName();
             this.nick = channel.getNick();
             this.colorHex = channel.getColorHex();
             this.messageColorHex = channel.hasMessageColor() ? channel.getMessageColorHex() : "";
             this.format = channel.getFormat();
             this.distance = channel.getDistance();
+            this.slowModeSeconds = channel.getSlowModeSeconds();
             this.worlds = channel.getWorlds();
             this.password = channel.getPassword();
             this.quickChatSymbol = channel.hasQuickChatSymbol() ? channel.getQuickChatSymbol() : "";
@@ -156,11 +167,12 @@ public class ChannelManager {
         if (loadFailed && !previousChannels.isEmpty()) {
             channels.clear();
             for (Channel previous : previousChannels.values()) {
-                previous.setChangeListener(this::markDirty);
+                attachChangeListener(previous);
                 channels.put(previous.getName().toLowerCase(), previous);
             }
             defaultChannel = previousDefault;
             suppressDirtyNotifications = false;
+            fireChannelChanged(null);
             plugin.getLogger().at(Level.WARNING).log("Keeping previous in-memory channel data after load failure");
             return false;
         }
@@ -196,6 +208,7 @@ public class ChannelManager {
         }
 
         suppressDirtyNotifications = false;
+        fireChannelChanged(null);
 
         // Save when load succeeded, or when creating first-run defaults.
         if (!loadFailed || !hadChannelsFile) {
@@ -276,6 +289,28 @@ public class ChannelManager {
         registerChannel(support);
     }
 
+    /**
+     * Register a callback for channel changes. It receives the changed channel,
+     * or null when channels were added, removed, renamed or reloaded.
+     */
+    public void addChannelChangeListener(Consumer<Channel> listener) {
+        channelChangeListeners.add(listener);
+    }
+
+    private void fireChannelChanged(Channel channel) {
+        for (Consumer<Channel> listener : channelChangeListeners) {
+            listener.accept(channel);
+        }
+    }
+
+    private void attachChangeListener(Channel channel) {
+        channel.setRuntimeSlot(runtimeSlots.computeIfAbsent(channel.getId(), ignored -> nextRuntimeSlot.getAndIncrement()));
+        channel.setChangeListener(() -> {
+            fireChannelChanged(channel);
+            markDirty();
+        });
+    }
+
     public void markDirty() {
         if (suppressDirtyNotifications) {
             return;
@@ -487,6 +522,7 @@ public class ChannelManager {
         JsonObject obj = new JsonObject();
 
         // Identity
+        obj.addProperty("id", snapshot.id.toString());
         obj.addProperty("name", snapshot.name);
         obj.addProperty("nick", snapshot.nick);
 
@@ -497,6 +533,7 @@ public class ChannelManager {
 
         // Behavior
         obj.addProperty("distance", snapshot.distance);
+        obj.addProperty("slowModeSeconds", snapshot.slowModeSeconds);
         JsonArray worldsArr = new JsonArray();
         List<String> sortedWorlds = new ArrayList<>(snapshot.worlds);
         sortedWorlds.sort(String.CASE_INSENSITIVE_ORDER);
@@ -543,6 +580,13 @@ public class ChannelManager {
         try {
             String name = obj.get("name").getAsString();
             Channel ch = new Channel(name);
+            if (obj.has("id") && !obj.get("id").isJsonNull()) {
+                try {
+                    ch.setId(UUID.fromString(obj.get("id").getAsString()));
+                } catch (IllegalArgumentException e) {
+                    // Keep the generated id; it is written back on the next save
+                }
+            }
             ch.setNick(obj.get("nick").getAsString());
 
             String hex = obj.get("color").getAsString().replace("#", "");
@@ -553,6 +597,9 @@ public class ChannelManager {
 
             ch.setFormat(obj.get("format").getAsString());
             ch.setDistance(obj.get("distance").getAsInt());
+            if (obj.has("slowModeSeconds")) {
+                ch.setSlowModeSeconds(obj.get("slowModeSeconds").getAsInt());
+            }
             if (obj.has("password") && !obj.get("password").isJsonNull()) {
                 ch.setPassword(obj.get("password").getAsString());
             }
@@ -627,8 +674,9 @@ public class ChannelManager {
         }
         if (channels.containsKey(channel.getName().toLowerCase())) return false;
 
-        channel.setChangeListener(this::markDirty);
+        attachChangeListener(channel);
         channels.put(channel.getName().toLowerCase(), channel);
+        fireChannelChanged(null);
         markDirty();
         return true;
     }
@@ -647,6 +695,7 @@ public class ChannelManager {
                     .orElse(channels.values().stream().findFirst().orElse(null));
         }
         if (channel != null) {
+            fireChannelChanged(null);
             markDirty();
         }
         return channel != null;
@@ -665,6 +714,18 @@ public class ChannelManager {
         return null;
     }
 
+    public Channel getChannelById(UUID id) {
+        if (id == null) {
+            return null;
+        }
+        for (Channel channel : channels.values()) {
+            if (id.equals(channel.getId())) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
     /**
      * Find channel by name, nick, or partial match (prefix)
      */
@@ -877,12 +938,7 @@ public class ChannelManager {
         if (text == null || text.isEmpty() || player == null || papi == null) {
             return text == null ? "" : text;
         }
-        try {
-            String resolved = papi.setPlaceholders(player, text);
-            return resolved == null ? text : resolved;
-        } catch (Throwable ignored) {
-            return text;
-        }
+        return PAPIIntegration.resolveForSender(player, text).text();
     }
 
     public boolean renameChannel(String oldName, String newName) {
@@ -896,6 +952,7 @@ public class ChannelManager {
         channels.remove(oldName.toLowerCase());
         channel.setName(newName);
         channels.put(newName.toLowerCase(), channel);
+        fireChannelChanged(null);
         markDirty();
         return true;
     }
@@ -0,0 +1,19 @@
+package com.werchat.chatlog;
+
+import java.util.UUID;
+
+/**
+ * One logged chat line. recipientId/recipientName are set for private messages only.
+ */
+public record ChatLogEntry(long timestamp,
+                           String channel,
+                           UUID senderId,
+                           String senderName,
+                           UUID recipientId,
+                           String recipientName,
+                           String message) {
+
+    public boolean isPrivate() {
+        return recipientId != null;
+    }
+}
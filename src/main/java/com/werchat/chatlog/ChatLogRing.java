@@ -0,0 +1,82 @@
+package com.werchat.chatlog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer/multi-consumer ring (Vyukov style). Each slot carries a
+ * sequence number that tells producers and consumers whether it is free or filled for their turn.
+ */
+final class ChatLogRing {
+
+    private final int mask;
+    private final ChatLogEntry[] slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong(); // next enqueue position
+    private final AtomicLong tail = new AtomicLong(); // next dequeue position
+
+    ChatLogRing(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.slots = new ChatLogEntry[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Returns false when the ring is full.
+     */
+    boolean offer(ChatLogEntry entry) {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.getAcquire(index) - pos;
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    slots[index] = entry;
+                    sequences.setRelease(index, pos + 1);
+                    return true;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * Returns null when the ring is empty.
+     */
+    ChatLogEntry poll() {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.getAcquire(index) - (pos + 1);
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    ChatLogEntry entry = slots[index];
+                    slots[index] = null;
+                    sequences.setRelease(index, pos + mask + 1);
+                    return entry;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    int size() {
+        return (int) Math.max(0, head.get() - tail.get());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
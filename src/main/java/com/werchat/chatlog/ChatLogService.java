@@ -0,0 +1,271 @@
+package com.werchat.chatlog;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.werchat.WerchatPlugin;
+import com.werchat.config.WerchatConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+/**
+ * Chat log pipeline: chat threads push entries into a bounded lock-free ring and a single
+ * background writer drains them in batches to the rolling chat log file and any added sinks.
+ */
+public class ChatLogService {
+
+    /**
+     * What to do when the ring is full.
+     */
+    public enum OverflowPolicy {
+        DROP_NEWEST,
+        DROP_OLDEST,
+        BLOCK;
+
+        public static OverflowPolicy fromConfig(String value) {
+            if (value == null) {
+                return DROP_NEWEST;
+            }
+            return switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "drop-oldest" -> DROP_OLDEST;
+                case "block" -> BLOCK;
+                default -> DROP_NEWEST;
+            };
+        }
+    }
+
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long SHUTDOWN_JOIN_MILLIS = 5000;
+
+    private final WerchatPlugin plugin;
+    private final List<ChatLogSink> extraSinks = new CopyOnWriteArrayList<>();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private ChatLogRing ring;
+    private Thread writerThread;
+    private volatile boolean running;
+    private volatile boolean reconfigureRequested;
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+    private boolean fileLogEnabled;
+
+    // Writer thread state
+    private RollingFileSink fileSink;
+    private boolean console;
+    private boolean failureReported;
+
+    public ChatLogService(WerchatPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts the writer when the chat log file or any added sink is enabled.
+     */
+    public void start() {
+        WerchatConfig config = plugin.getConfig();
+        fileLogEnabled = config.isChatLogEnabled();
+        if (running || (!fileLogEnabled && extraSinks.isEmpty())) {
+            return;
+        }
+
+        ring = new ChatLogRing(config.getChatLogBufferSize());
+        overflowPolicy = OverflowPolicy.fromConfig(config.getChatLogOverflowPolicy());
+        reconfigureRequested = true;
+        running = true;
+        writerThread = new Thread(this::drainLoop, "Werchat-ChatLog");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Re-read sink settings and the overflow policy after a config reload.
+     * Enabling or disabling the log and the buffer size apply on restart.
+     */
+    public void reload() {
+        overflowPolicy = OverflowPolicy.fromConfig(plugin.getConfig().getChatLogOverflowPolicy());
+        reconfigureRequested = true;
+    }
+
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(SHUTDOWN_JOIN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Additional destination for logged entries, called on the writer thread. Add before {@link #start()}.
+     */
+    public void addSink(ChatLogSink sink) {
+        extraSinks.add(sink);
+    }
+
+    public void logChannel(String channelName, PlayerRef sender, String message) {
+        if (!fileLogEnabled) {
+            plugin.getLogger().at(Level.INFO).log("[%s] %s: %s", channelName, sender.getUsername(), message);
+        }
+        if (ring == null) {
+            return;
+        }
+        enqueue(new ChatLogEntry(System.currentTimeMillis(), channelName, sender.getUuid(), sender.getUsername(),
+            null, null, message));
+    }
+
+    public void logPrivate(PlayerRef sender, PlayerRef recipient, String message) {
+        if (!fileLogEnabled) {
+            plugin.getLogger().at(Level.INFO).log("[PM] %s -> %s: %s", sender.getUsername(), recipient.getUsername(), message);
+        }
+        if (ring == null) {
+            return;
+        }
+        enqueue(new ChatLogEntry(System.currentTimeMillis(), null, sender.getUuid(), sender.getUsername(),
+            recipient.getUuid(), recipient.getUsername(), message));
+    }
+
+    public boolean isRunning() { return running; }
+    public boolean isFileLogEnabled() { return fileLogEnabled; }
+    public OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+    public long getWritten() { return written.sum(); }
+    public long getDropped() { return dropped.sum(); }
+    public long getFailed() { return failed.sum(); }
+    public int getQueued() { return ring != null ? ring.size() : 0; }
+    public int getCapacity() { return ring != null ? ring.capacity() : 0; }
+
+    private void enqueue(ChatLogEntry entry) {
+        if (ring.offer(entry)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                // Make room by discarding the oldest entry; give up if other producers keep refilling it
+                for (int attempt = 0; attempt < 4; attempt++) {
+                    if (ring.poll() != null) {
+                        dropped.increment();
+                    }
+                    if (ring.offer(entry)) {
+                        return;
+                    }
+                }
+                dropped.increment();
+            }
+            case BLOCK -> {
+                LockSupport.unpark(writerThread);
+                long deadline = System.nanoTime() + MAX_BLOCK_NANOS;
+                while (System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    if (ring.offer(entry)) {
+                        return;
+                    }
+                }
+                dropped.increment();
+            }
+            default -> dropped.increment();
+        }
+    }
+
+    private void drainLoop() {
+        List<ChatLogEntry> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            if (reconfigureRequested) {
+                reconfigureRequested = false;
+                configureSinks();
+            }
+
+            batch.clear();
+            ChatLogEntry entry;
+            while (batch.size() < BATCH_SIZE && (entry = ring.poll()) != null) {
+                batch.add(entry);
+            }
+
+            if (batch.isEmpty()) {
+                if (!running) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            dispatch(batch);
+        }
+
+        if (fileSink != null) {
+            fileSink.close();
+        }
+        for (ChatLogSink sink : extraSinks) {
+            sink.close();
+        }
+    }
+
+    private void configureSinks() {
+        WerchatConfig config = plugin.getConfig();
+        if (fileSink != null) {
+            fileSink.close();
+        }
+        console = config.isChatLogConsole();
+        if (!fileLogEnabled) {
+            fileSink = null;
+            return;
+        }
+        fileSink = new RollingFileSink(
+            plugin.getDataDirectory().resolve(config.getChatLogDirectory()),
+            config.isChatLogRollDaily(),
+            config.getChatLogMaxFileSizeMb() * 1024L * 1024L,
+            config.isChatLogGzip()
+        );
+    }
+
+    private void dispatch(List<ChatLogEntry> batch) {
+        if (fileSink != null) {
+            try {
+                fileSink.write(batch);
+                written.add(batch.size());
+                failureReported = false;
+            } catch (Exception e) {
+                failed.add(batch.size());
+                // Drop the broken stream so the next batch reopens the file
+                fileSink.close();
+                if (!failureReported) {
+                    failureReported = true;
+                    plugin.getLogger().at(Level.WARNING).log("Failed to write chat log: %s", e.getMessage());
+                }
+            }
+        }
+
+        for (ChatLogSink sink : extraSinks) {
+            try {
+                sink.write(batch);
+            } catch (Exception e) {
+                plugin.getLogger().at(Level.WARNING).log("Chat log sink %s failed: %s",
+                    sink.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+
+        if (console && fileLogEnabled) {
+            for (ChatLogEntry entry : batch) {
+                if (entry.isPrivate()) {
+                    plugin.getLogger().at(Level.INFO).log("[PM] %s -> %s: %s",
+                        entry.senderName(), entry.recipientName(), entry.message());
+                } else {
+                    plugin.getLogger().at(Level.INFO).log("[%s] %s: %s",
+                        entry.channel(), entry.senderName(), entry.message());
+                }
+            }
+        }
+    }
+}
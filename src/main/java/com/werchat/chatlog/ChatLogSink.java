@@ -0,0 +1,14 @@
+package com.werchat.chatlog;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for chat log batches. Sinks are only called from the chat log writer thread.
+ */
+public interface ChatLogSink {
+
+    void write(List<ChatLogEntry> batch) throws IOException;
+
+    void close();
+}
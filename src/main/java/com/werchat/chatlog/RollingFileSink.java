@@ -0,0 +1,153 @@
+package com.werchat.chatlog;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends chat lines to chat.log and rolls it into chat-YYYY-MM-DD[-N].log (optionally gzipped)
+ * when the day changes or the file reaches its size limit.
+ */
+public class RollingFileSink implements ChatLogSink {
+
+    private static final String ACTIVE_FILE = "chat.log";
+    private static final DateTimeFormatter LINE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Path directory;
+    private final boolean rollDaily;
+    private final long maxBytes;
+    private final boolean gzip;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final StringBuilder line = new StringBuilder(256);
+
+    private OutputStream out;
+    private long currentSize;
+    private LocalDate currentDate;
+
+    /**
+     * @param maxBytes size at which the active file is rolled, or 0 for no size limit
+     */
+    public RollingFileSink(Path directory, boolean rollDaily, long maxBytes, boolean gzip) {
+        this.directory = directory;
+        this.rollDaily = rollDaily;
+        this.maxBytes = maxBytes;
+        this.gzip = gzip;
+    }
+
+    @Override
+    public void write(List<ChatLogEntry> batch) throws IOException {
+        for (int i = 0; i < batch.size(); i++) {
+            ChatLogEntry entry = batch.get(i);
+            LocalDate date = Instant.ofEpochMilli(entry.timestamp()).atZone(zone).toLocalDate();
+            byte[] bytes = format(entry).getBytes(StandardCharsets.UTF_8);
+
+            if (out == null) {
+                open(date);
+            }
+            if (rollDaily && !date.equals(currentDate)) {
+                roll();
+                open(date);
+            } else if (maxBytes > 0 && currentSize > 0 && currentSize + bytes.length > maxBytes) {
+                roll();
+                open(date);
+            }
+
+            out.write(bytes);
+            currentSize += bytes.length;
+        }
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // Nothing left to do with a broken stream
+        }
+        out = null;
+    }
+
+    private void open(LocalDate date) throws IOException {
+        Files.createDirectories(directory);
+        Path active = directory.resolve(ACTIVE_FILE);
+
+        // A leftover file from an earlier day is rolled before appending to it
+        if (Files.exists(active) && Files.size(active) > 0) {
+            LocalDate fileDate = Instant.ofEpochMilli(Files.getLastModifiedTime(active).toMillis()).atZone(zone).toLocalDate();
+            if (rollDaily && !fileDate.equals(date)) {
+                currentDate = fileDate;
+                archive(active);
+            }
+        }
+
+        out = new BufferedOutputStream(Files.newOutputStream(active,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        currentSize = Files.size(active);
+        currentDate = date;
+    }
+
+    private void roll() throws IOException {
+        close();
+        archive(directory.resolve(ACTIVE_FILE));
+    }
+
+    private void archive(Path active) throws IOException {
+        if (!Files.exists(active)) {
+            return;
+        }
+
+        String baseName = "chat-" + currentDate;
+        Path target = directory.resolve(baseName + ".log");
+        for (int n = 1; Files.exists(target) || Files.exists(directory.resolve(target.getFileName() + ".gz")); n++) {
+            target = directory.resolve(baseName + "-" + n + ".log");
+        }
+        Files.move(active, target);
+
+        if (gzip) {
+            Path compressed = directory.resolve(target.getFileName() + ".gz");
+            try (InputStream in = Files.newInputStream(target);
+                 OutputStream gz = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+                in.transferTo(gz);
+            }
+            Files.delete(target);
+        }
+    }
+
+    private String format(ChatLogEntry entry) {
+        line.setLength(0);
+        line.append('[').append(LINE_TIME.format(Instant.ofEpochMilli(entry.timestamp()).atZone(zone))).append("] ");
+        if (entry.isPrivate()) {
+            line.append("[PM] ").append(entry.senderName()).append(" -> ").append(entry.recipientName());
+        } else {
+            line.append('[').append(entry.channel()).append("] ").append(entry.senderName());
+        }
+        line.append(": ");
+        appendSingleLine(entry.message());
+        line.append('\n');
+        return line.toString();
+    }
+
+    private void appendSingleLine(String message) {
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            line.append(c == '\n' || c == '\r' ? ' ' : c);
+        }
+    }
+}
@@ -15,14 +15,39 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.werchat.WerchatPlugin;
 import com.werchat.channels.Channel;
 import com.werchat.channels.ChannelManager;
+import com.werchat.chatlog.ChatLogService;
+import com.werchat.format.DecorationCache;
+import com.werchat.format.GradientRenderer;
+import com.werchat.format.MessageOptimizer;
+import com.werchat.history.HistoryRecord;
+import com.werchat.history.HistorySearchResult;
+import com.werchat.history.HistoryStore;
 import com.werchat.integration.papi.PAPIIntegration;
+import com.werchat.listeners.ChatListener;
+import com.werchat.listeners.ChatPipeline;
+import com.werchat.listeners.FanOutExecutor;
+import com.werchat.listeners.LoadGovernor;
+import com.werchat.listeners.OutboundQueues;
+import com.werchat.listeners.WorldBatcher;
+import com.werchat.moderation.ClassifierStage;
+import com.werchat.moderation.JoinLog;
+import com.werchat.moderation.RaidDetector;
+import com.werchat.moderation.RateLimiter;
+import com.werchat.moderation.SlowModeTracker;
+import com.werchat.moderation.SpamGuard;
 import com.werchat.storage.PlayerDataManager;
 import com.werchat.ui.ChannelSettingsPage;
 
 import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -40,6 +65,11 @@ public class ChannelCommand extends CommandBase {
     private static final String SETTINGS_TAB_MAIN = "main";
     private static final String SETTINGS_TAB_CHANNELS = "channels";
     private static final String SETTINGS_TAB_HELP = "help";
+    private static final int HISTORY_LINES = 20;
+    private static final int SEARCH_RESULTS = 15;
+    private static final int MAX_SLOW_MODE_SECONDS = 3600;
+    private static final int MAX_RAID_WINDOW_MINUTES = 1440;
+    private static final DateTimeFormatter HISTORY_TIME = DateTimeFormatter.ofPattern("MM-dd HH:mm").withZone(ZoneId.systemDefault());
 
     /**
      * Check if sender has a werchat permission, including wildcard support.
@@ -79,7 +109,8 @@ public class ChannelCommand extends CommandBase {
         String[] adminPerms = {"werchat.create", "werchat.remove", "werchat.color", "werchat.nick",
             "werchat.password", "werchat.rename", "werchat.mod", "werchat.distance",
             "werchat.ban", "werchat.mute", "werchat.world", "werchat.description",
-            "werchat.motd", "werchat.reload"};
+            "werchat.motd", "werchat.reload", "werchat.stats", "werchat.history", "werchat.search",
+            "werchat.slowmode", "werchat.raid"};
         for (String perm : adminPerms) {
             if (perms.hasPermission(playerId, perm)) return true;
         }
@@ -144,6 +175,14 @@ public class ChannelCommand extends CommandBase {
                 reloadData(ctx);
                 return;
             }
+            case "stats" -> {
+                if (!hasWerchatPermission(ctx, "werchat.stats")) {
+                    ctx.sendMessage(Message.raw("You don't have permission to view Werchat stats").color("#FF5555"));
+                    return;
+                }
+                showStats(ctx);
+                return;
+            }
             case "list", "l" -> {
                 if (!hasWerchatPermission(ctx, "werchat.list")) {
                     ctx.sendMessage(Message.raw("You don't have permission to list channels").color("#FF5555"));
@@ -248,6 +287,24 @@ public class ChannelCommand extends CommandBase {
                 showChannelInfo(ctx, playerId, arg1);
                 return;
             }
+            case "history" -> {
+                if (arg1 == null) {
+                    ctx.sendMessage(Message.raw("Usage: /ch history <channel> [time]").color("#FF5555"));
+                    ctx.sendMessage(Message.raw("Time is how far back to look, e.g. 30m, 2h or 1d").color("#AAAAAA"));
+                    return;
+                }
+                showHistory(ctx, playerId, arg1, arg2);
+                return;
+            }
+            case "search", "find" -> {
+                if (arg1 == null) {
+                    ctx.sendMessage(Message.raw("Usage: /ch search <terms> [player] [since]").color("#FF5555"));
+                    ctx.sendMessage(Message.raw("Since is how far back to look, e.g. 30m, 2h or 7d").color("#AAAAAA"));
+                    return;
+                }
+                searchHistory(ctx, playerId, Arrays.copyOfRange(parts, 2, parts.length));
+                return;
+            }
             case "rename" -> {
                 if (arg1 == null || arg2 == null) {
                     ctx.sendMessage(Message.raw("Usage: /ch rename <channel> <newname>").color("#FF5555"));
@@ -289,6 +346,28 @@ public class ChannelCommand extends CommandBase {
                 setChannelDistance(ctx, playerId, arg1, arg2);
                 return;
             }
+            case "slowmode", "slow" -> {
+                if (arg1 == null || arg2 == null) {
+                    ctx.sendMessage(Message.raw("Usage: /ch slowmode <channel> <seconds|off>").color("#FF5555"));
+                    ctx.sendMessage(Message.raw("Members may send one message per interval; 0 or off disables it").color("#AAAAAA"));
+                    return;
+                }
+                setChannelSlowMode(ctx, playerId, arg1, arg2);
+                return;
+            }
+            case "raid" -> {
+                if (arg1 != null && arg1.equalsIgnoreCase("end") && arg2 != null) {
+                    endRaidLockdown(ctx, playerId, arg2);
+                    return;
+                }
+                if (arg1 == null || arg2 == null || arg3 == null) {
+                    ctx.sendMessage(Message.raw("Usage: /ch raid <mute|ban|kick> <channel> <minutes>").color("#FF5555"));
+                    ctx.sendMessage(Message.raw("Acts on everyone who joined the server in the last <minutes>; /ch raid end <channel> lifts a lockdown").color("#AAAAAA"));
+                    return;
+                }
+                raidAction(ctx, playerId, arg1, arg2, arg3);
+                return;
+            }
             case "ban" -> {
                 if (arg1 == null || arg2 == null) {
                     ctx.sendMessage(Message.raw("Usage: /ch ban <channel> <player>").color("#FF5555"));
@@ -392,6 +471,7 @@ public class ChannelCommand extends CommandBase {
 
         // Focus on this channel
         playerDataManager.setFocusedChannel(playerId, channel.getName());
+        plugin.getScrollback().replay(playerId, channel);
         channelManager.sendChannelMotd(playerId, channel);
         ctx.sendMessage(Message.join(
             Message.raw("Now chatting in ").color("#AAAAAA"),
@@ -453,6 +533,110 @@ public class ChannelCommand extends CommandBase {
         });
     }
 
+    private void showStats(CommandContext ctx) {
+        ctx.sendMessage(Message.raw("=== Werchat Stats ===").color("#FFAA00"));
+
+        DecorationCache decorations = plugin.getChatListener().getDecorationCache();
+        long hits = decorations.getHits();
+        long misses = decorations.getMisses();
+        long lookups = hits + misses;
+        String hitRate = lookups == 0 ? "-" : String.format(Locale.ROOT, "%.1f%%", hits * 100.0 / lookups);
+        ctx.sendMessage(Message.raw("Decoration cache: " + hits + " hits, " + misses + " misses (" + hitRate
+            + "), " + decorations.size() + " entries").color("#AAAAAA"));
+        ctx.sendMessage(Message.raw("Gradient color tables: " + GradientRenderer.cachedTableCount() + " cached").color("#AAAAAA"));
+
+        MessageOptimizer optimizer = plugin.getChatListener().getMessageOptimizer();
+        long nodesIn = optimizer.getNodesIn();
+        long nodesOut = optimizer.getNodesOut();
+        String reduction = nodesIn == 0 ? "-" : String.format(Locale.ROOT, "%.1f%%", (nodesIn - nodesOut) * 100.0 / nodesIn);
+        ctx.sendMessage(Message.raw("Message optimizer (" + (plugin.getConfig().isMessageOptimizerEnabled() ? "on" : "off") + "): "
+            + optimizer.getRenders() + " renders, " + nodesIn + " -> " + nodesOut + " nodes (" + reduction + " fewer)").color("#AAAAAA"));
+
+        LoadGovernor governor = plugin.getChatListener().getLoadGovernor();
+        ctx.sendMessage(Message.raw(String.format(Locale.ROOT, "Load level: %s (pressure %.2f, %d in flight, %d level changes)",
+            governor.getLevel().getKey(), governor.getPressure(), governor.getInFlight(), governor.getLevelChanges())).color("#AAAAAA"));
+
+        FanOutExecutor fanOut = plugin.getChatListener().getFanOut();
+        int fanOutThreshold = plugin.getConfig().getFanOutThreshold();
+        ctx.sendMessage(Message.raw("Fan-out (" + (fanOutThreshold > 0 ? fanOutThreshold + "+ members" : "off") + ", "
+            + fanOut.getLaneCount() + " lanes): " + fanOut.getLines() + " lines, " + fanOut.getLaneTasks() + " lane tasks, "
+            + fanOut.getQueued() + " queued, " + fanOut.getActiveThreads() + " threads active").color("#AAAAAA"));
+
+        if (plugin.getConfig().isWorldBatchingEnabled() || plugin.getConfig().isOutboundQueueEnabled()) {
+            WorldBatcher worldBatcher = plugin.getChatListener().getWorldBatcher();
+            long worldBatches = worldBatcher.getBatches();
+            String perBatch = worldBatches == 0 ? "-" : String.format(Locale.ROOT, "%.1f", worldBatcher.getBatchedTasks() / (double) worldBatches);
+            ctx.sendMessage(Message.raw("World batching: " + worldBatches + " batches, " + worldBatcher.getBatchedTasks()
+                + " tasks (" + perBatch + " per batch), " + worldBatcher.getFallbackTasks() + " for players between worlds").color("#AAAAAA"));
+        }
+
+        if (plugin.getConfig().isOutboundQueueEnabled()) {
+            OutboundQueues outbound = plugin.getChatListener().getOutboundQueues();
+            ctx.sendMessage(Message.raw("Outbound queues (" + plugin.getConfig().getOutboundCapacity() + " lines, "
+                + plugin.getConfig().getOutboundLinesPerTick() + " per tick, " + plugin.getConfig().getOutboundOverflowPolicy() + "): "
+                + outbound.getTrackedPlayers() + " players, " + outbound.getQueuedCount() + " queued, " + outbound.getSentCount()
+                + " sent, " + outbound.getPrioritySentCount() + " priority, " + outbound.getDroppedCount() + " dropped").color("#AAAAAA"));
+        }
+
+        List<ChatPipeline.StageStats> stages = plugin.getChatListener().getPipelineStats();
+        if (!stages.isEmpty()) {
+            ctx.sendMessage(Message.raw("Chat pipeline: " + stages.size() + " stages").color("#AAAAAA"));
+            for (ChatPipeline.StageStats stage : stages) {
+                ctx.sendMessage(Message.raw(String.format(Locale.ROOT, "  %s: %d messages, %.1fus avg, %.1fus max, %d stopped",
+                    stage.name(), stage.messages(), stage.averageMicros(), stage.maxMicros(), stage.stopped())).color("#AAAAAA"));
+            }
+        }
+
+        ChatLogService chatLog = plugin.getChatLog();
+        if (chatLog.isFileLogEnabled()) {
+            ctx.sendMessage(Message.raw("Chat log: " + chatLog.getWritten() + " written, " + chatLog.getDropped() + " dropped ("
+                + chatLog.getOverflowPolicy() + "), " + chatLog.getFailed() + " failed, "
+                + chatLog.getQueued() + "/" + chatLog.getCapacity() + " queued").color("#AAAAAA"));
+        } else {
+            ctx.sendMessage(Message.raw("Chat log: disabled (server log)").color("#AAAAAA"));
+        }
+
+        if (plugin.getConfig().isRateLimitEnabled()) {
+            RateLimiter rateLimiter = plugin.getRateLimiter();
+            ctx.sendMessage(Message.raw("Rate limiter: " + rateLimiter.getTrackedPlayers() + " players tracked, "
+                + rateLimiter.getLimitedCount() + " messages limited").color("#AAAAAA"));
+        }
+
+        SlowModeTracker slowMode = plugin.getSlowMode();
+        ctx.sendMessage(Message.raw("Slow mode: " + slowMode.getTrackedPlayers() + " players tracked, "
+            + slowMode.getLimitedCount() + " messages held back").color("#AAAAAA"));
+
+        if (plugin.getConfig().isAntiSpamEnabled()) {
+            SpamGuard spamGuard = plugin.getSpamGuard();
+            ctx.sendMessage(Message.raw("Anti-spam: " + spamGuard.getTrackedPlayers() + " players tracked, "
+                + spamGuard.getWarnedCount() + " warned, " + spamGuard.getBlockedCount() + " blocked, "
+                + spamGuard.getMutedCount() + " muted").color("#AAAAAA"));
+        }
+
+        if (plugin.getConfig().isRaidDetectionEnabled()) {
+            RaidDetector raidDetector = plugin.getRaidDetector();
+            ctx.sendMessage(Message.raw("Raid detection: " + raidDetector.getActiveLockdowns() + " active lockdowns, "
+                + raidDetector.getLockdownCount() + " total, " + raidDetector.getFilteredCount() + " messages filtered").color("#AAAAAA"));
+        }
+
+        ClassifierStage classifiers = plugin.getClassifierStage();
+        List<ClassifierStage.ClassifierStats> classifierStats = classifiers.getStats();
+        if (!classifierStats.isEmpty()) {
+            ctx.sendMessage(Message.raw("Moderation classifiers (" + (plugin.getConfig().isClassifiersEnabled() ? "on" : "off") + "): "
+                + classifiers.getCacheHits() + " cache hits, " + classifiers.getCacheMisses() + " misses").color("#AAAAAA"));
+            for (ClassifierStage.ClassifierStats stats : classifierStats) {
+                ctx.sendMessage(Message.raw(String.format(Locale.ROOT, "  %s: %d checks, %.1fms avg, %.1fms max, %d timeouts, %d errors",
+                    stats.name(), stats.checks(), stats.averageMillis(), stats.maxMillis(), stats.timeouts(), stats.errors())).color("#AAAAAA"));
+            }
+        }
+
+        HistoryStore history = plugin.getHistoryStore();
+        if (history.isSearchEnabled()) {
+            ctx.sendMessage(Message.raw("History search: " + history.getIndexedLines() + " lines, " + history.getIndexedTerms()
+                + " terms indexed" + (history.isSearchReady() ? "" : " (building)")).color("#AAAAAA"));
+        }
+    }
+
     private void reloadData(CommandContext ctx) {
         try {
             boolean externalChannelEdits = channelManager.hasExternalChannelDataEdits();
@@ -473,6 +657,8 @@ public class ChannelCommand extends CommandBase {
             }
 
             plugin.getConfig().load();
+            plugin.getChatLog().reload();
+            plugin.getScrollback().reload();
             boolean channelsLoaded = channelManager.loadChannels();
             playerDataManager.loadNicknames();
             reconcileFocusedChannelsAfterReload();
@@ -555,6 +741,7 @@ public class ChannelCommand extends CommandBase {
         }
         channel.addMember(playerId);
         playerDataManager.setFocusedChannel(playerId, channel.getName());
+        plugin.getScrollback().replay(playerId, channel);
         channelManager.sendChannelMotd(playerId, channel);
         ctx.sendMessage(Message.raw("Joined and focused: " + channel.getName()).color("#55FF55"));
     }
@@ -674,6 +861,9 @@ public class ChannelCommand extends CommandBase {
         if (text == null || text.isEmpty() || papi == null) {
             return text == null ? "" : text;
         }
+        if (PAPIIntegration.classify(text) == PAPIIntegration.TemplateKind.STATIC) {
+            return text;
+        }
         PlayerRef player = playerDataManager.getOnlinePlayer(playerId);
         if (player == null) {
             return text;
@@ -687,12 +877,7 @@ public class ChannelCommand extends CommandBase {
         if (text == null || text.isEmpty() || player == null || papi == null) {
             return text == null ? "" : text;
         }
-        try {
-            String resolved = papi.setPlaceholders(player, text);
-            return resolved == null ? text : resolved;
-        } catch (Throwable ignored) {
-            return text;
-        }
+        return PAPIIntegration.resolveForSender(player, text).text();
     }
 
     private void setChannelColor(CommandContext ctx, UUID playerId, String channelName, String hexColor, String textHexColor) {
@@ -911,6 +1096,12 @@ public class ChannelCommand extends CommandBase {
             Message.raw("  Range: ").color("#AAAAAA"),
             Message.raw(channel.isGlobal() ? "Global" : channel.getDistance() + " blocks").color("#FFFFFF")
         ));
+        if (channel.hasSlowMode()) {
+            ctx.sendMessage(Message.join(
+                Message.raw("  Slow Mode: ").color("#AAAAAA"),
+                Message.raw(channel.getSlowModeSeconds() + "s").color("#FFFFFF")
+            ));
+        }
         ctx.sendMessage(Message.join(
             Message.raw("  Worlds: ").color("#AAAAAA"),
             Message.raw(channel.getWorldsDisplay()).color("#FFFFFF")
@@ -1091,6 +1282,141 @@ public class ChannelCommand extends CommandBase {
         }
     }
 
+    private void setChannelSlowMode(CommandContext ctx, UUID playerId, String channelName, String secondsStr) {
+        Channel channel = channelManager.findChannel(channelName);
+        if (channel == null) {
+            ctx.sendMessage(Message.raw("Channel not found: " + channelName).color("#FF5555"));
+            return;
+        }
+        if (!hasWerchatPermission(ctx, "werchat.slowmode") && !channel.isModerator(playerId)) {
+            ctx.sendMessage(Message.raw("You must be a channel moderator to do that").color("#FF5555"));
+            return;
+        }
+        int seconds;
+        if (secondsStr.equalsIgnoreCase("off")) {
+            seconds = 0;
+        } else {
+            try {
+                seconds = Integer.parseInt(secondsStr);
+            } catch (NumberFormatException e) {
+                ctx.sendMessage(Message.raw("Invalid number: " + secondsStr).color("#FF5555"));
+                return;
+            }
+            if (seconds < 0 || seconds > MAX_SLOW_MODE_SECONDS) {
+                ctx.sendMessage(Message.raw("Slow mode must be between 0 and " + MAX_SLOW_MODE_SECONDS + " seconds").color("#FF5555"));
+                return;
+            }
+        }
+        channel.setSlowModeSeconds(seconds);
+        if (seconds == 0) {
+            ctx.sendMessage(Message.join(
+                Message.raw("Slow mode disabled in ").color("#55FF55"),
+                Message.raw(channel.getName()).color(channel.getColorHex())
+            ));
+        } else {
+            ctx.sendMessage(Message.join(
+                Message.raw(channel.getName()).color(channel.getColorHex()),
+                Message.raw(" slow mode set to ").color("#55FF55"),
+                Message.raw(seconds + "s").color("#FFFFFF")
+            ));
+        }
+    }
+
+    private void raidAction(CommandContext ctx, UUID playerId, String action, String channelName, String minutesStr) {
+        action = action.toLowerCase();
+        if (!action.equals("mute") && !action.equals("ban") && !action.equals("kick")) {
+            ctx.sendMessage(Message.raw("Unknown raid action: " + action + " (use mute, ban or kick)").color("#FF5555"));
+            return;
+        }
+        Channel channel = channelManager.findChannel(channelName);
+        if (channel == null) {
+            ctx.sendMessage(Message.raw("Channel not found: " + channelName).color("#FF5555"));
+            return;
+        }
+        if (!hasWerchatPermission(ctx, "werchat.raid") && !channel.isModerator(playerId)) {
+            ctx.sendMessage(Message.raw("You must be a channel moderator to do that").color("#FF5555"));
+            return;
+        }
+        int minutes;
+        try {
+            minutes = Integer.parseInt(minutesStr);
+        } catch (NumberFormatException e) {
+            ctx.sendMessage(Message.raw("Invalid number: " + minutesStr).color("#FF5555"));
+            return;
+        }
+        if (minutes < 1 || minutes > MAX_RAID_WINDOW_MINUTES) {
+            ctx.sendMessage(Message.raw("Minutes must be between 1 and " + MAX_RAID_WINDOW_MINUTES).color("#FF5555"));
+            return;
+        }
+
+        JoinLog joinLog = plugin.getJoinLog();
+        long since = System.currentTimeMillis() - minutes * 60_000L;
+        Set<UUID> targets = joinLog.joinedSince(since);
+        // Never sweep up staff or the channel's own moderators
+        PermissionsModule perms = PermissionsModule.get();
+        targets.removeIf(id -> id.equals(playerId) || channel.isModerator(id) || id.equals(channel.getOwner())
+            || perms.hasPermission(id, "werchat.raid") || perms.hasPermission(id, "werchat.*") || perms.hasPermission(id, "*"));
+        if (targets.isEmpty()) {
+            ctx.sendMessage(Message.raw("Nobody to act on joined in the last " + minutes + " min").color("#FFFF55"));
+            return;
+        }
+
+        List<UUID> changed = switch (action) {
+            case "mute" -> channel.muteAll(targets);
+            case "ban" -> channel.banAll(targets);
+            default -> channel.removeMembers(targets);
+        };
+
+        String notice = switch (action) {
+            case "mute" -> plugin.getConfig().getMuteMessage().replace("{channel}", channel.getName());
+            case "ban" -> plugin.getConfig().getBanMessage().replace("{channel}", channel.getName());
+            default -> "You have been removed from " + channel.getName();
+        };
+        ChatListener chatListener = plugin.getChatListener();
+        for (UUID targetId : changed) {
+            PlayerRef target = playerDataManager.getOnlinePlayer(targetId);
+            if (target != null) {
+                chatListener.sendPriority(target, Message.raw(applyPapi(target, notice)).color("#FF5555"));
+            }
+        }
+
+        String verb = switch (action) {
+            case "mute" -> " muted in ";
+            case "ban" -> " banned from ";
+            default -> " removed from ";
+        };
+        ctx.sendMessage(Message.join(
+            Message.raw(changed.size() + " of " + targets.size() + " recent joins").color("#FFFFFF"),
+            Message.raw(verb).color("#FF5555"),
+            Message.raw(channel.getName()).color(channel.getColorHex())
+        ));
+        if (!joinLog.covers(since)) {
+            ctx.sendMessage(Message.raw("The join log doesn't reach back " + minutes + " min; only the most recent joins were included").color("#AAAAAA"));
+        }
+        plugin.getLogger().at(Level.INFO).log("Raid %s in %s: %d players who joined in the last %d min (by %s)",
+            action, channel.getName(), changed.size(), minutes, playerId);
+    }
+
+    private void endRaidLockdown(CommandContext ctx, UUID playerId, String channelName) {
+        Channel channel = channelManager.findChannel(channelName);
+        if (channel == null) {
+            ctx.sendMessage(Message.raw("Channel not found: " + channelName).color("#FF5555"));
+            return;
+        }
+        if (!hasWerchatPermission(ctx, "werchat.raid") && !channel.isModerator(playerId)) {
+            ctx.sendMessage(Message.raw("You must be a channel moderator to do that").color("#FF5555"));
+            return;
+        }
+        if (!plugin.getRaidDetector().endLockdown(channel)) {
+            ctx.sendMessage(Message.raw(channel.getName() + " is not in raid lockdown").color("#FFFF55"));
+            return;
+        }
+        ctx.sendMessage(Message.join(
+            Message.raw("Raid lockdown lifted in ").color("#55FF55"),
+            Message.raw(channel.getName()).color(channel.getColorHex())
+        ));
+    }
+
     private void banPlayer(CommandContext ctx, UUID playerId, String channelName, String playerName) {
         Channel channel = channelManager.findChannel(channelName);
         if (channel == null) {
@@ -1153,6 +1479,155 @@ public class ChannelCommand extends CommandBase {
         ));
     }
 
+    private void showHistory(CommandContext ctx, UUID playerId, String channelName, String timeArg) {
+        Channel channel = channelManager.findChannel(channelName);
+        if (channel == null) {
+            ctx.sendMessage(Message.raw("Channel not found: " + channelName).color("#FF5555"));
+            return;
+        }
+        if (!hasWerchatPermission(ctx, "werchat.history") && !channel.isModerator(playerId)) {
+            ctx.sendMessage(Message.raw("You must be a channel moderator to do that").color("#FF5555"));
+            return;
+        }
+        HistoryStore history = plugin.getHistoryStore();
+        if (!history.isEnabled()) {
+            ctx.sendMessage(Message.raw("Chat history is disabled in the config").color("#FF5555"));
+            return;
+        }
+
+        List<HistoryRecord> records;
+        if (timeArg == null) {
+            records = history.latest(channel, HISTORY_LINES);
+        } else {
+            long lookbackMillis = parseDurationMillis(timeArg);
+            if (lookbackMillis <= 0) {
+                ctx.sendMessage(Message.raw("Invalid time: " + timeArg + " (use e.g. 30m, 2h or 1d)").color("#FF5555"));
+                return;
+            }
+            records = history.since(channel, System.currentTimeMillis() - lookbackMillis, HISTORY_LINES);
+        }
+
+        ctx.sendMessage(Message.raw("=== " + channel.getName() + " history ===").color(channel.getColorHex()));
+        if (records.isEmpty()) {
+            ctx.sendMessage(Message.raw("No stored messages").color("#AAAAAA"));
+            return;
+        }
+        for (HistoryRecord record : records) {
+            String time = HISTORY_TIME.format(Instant.ofEpochMilli(record.timestamp()));
+            ctx.sendMessage(Message.join(
+                Message.raw("[" + time + "] ").color("#555555"),
+                Message.raw(record.senderName() + ": ").color("#AAAAAA"),
+                Message.raw(record.message()).color(channel.hasMessageColor() ? channel.getMessageColorHex() : "#FFFFFF")
+            ));
+        }
+    }
+
+    private void searchHistory(CommandContext ctx, UUID playerId, String[] args) {
+        HistoryStore history = plugin.getHistoryStore();
+        if (!history.isSearchEnabled()) {
+            ctx.sendMessage(Message.raw("Chat history search is disabled in the config").color("#FF5555"));
+            return;
+        }
+
+        // Without werchat.search, moderators may search the channels they moderate
+        Set<UUID> channelIds = null;
+        if (!hasWerchatPermission(ctx, "werchat.search")) {
+            channelIds = new HashSet<>();
+            for (Channel channel : channelManager.getAllChannels()) {
+                if (channel.isModerator(playerId)) {
+                    channelIds.add(channel.getId());
+                }
+            }
+            if (channelIds.isEmpty()) {
+                ctx.sendMessage(Message.raw("You must be a channel moderator to do that").color("#FF5555"));
+                return;
+            }
+        }
+
+        // Trailing [player] [since] are recognised by shape: a duration, then a known sender name
+        int end = args.length;
+        long since = Long.MIN_VALUE;
+        if (end > 1 && args[end - 1].toLowerCase(Locale.ROOT).matches("\\d+[smhdw]")) {
+            long lookbackMillis = parseDurationMillis(args[end - 1]);
+            if (lookbackMillis <= 0) {
+                ctx.sendMessage(Message.raw("Invalid time: " + args[end - 1]).color("#FF5555"));
+                return;
+            }
+            since = System.currentTimeMillis() - lookbackMillis;
+            end--;
+        }
+        UUID senderId = null;
+        String senderName = null;
+        if (end > 1) {
+            String candidate = args[end - 1];
+            PlayerRef online = playerDataManager.findPlayerByName(candidate);
+            senderId = online != null ? online.getUuid() : history.findSender(candidate);
+            if (senderId != null) {
+                senderName = candidate;
+                end--;
+            }
+        }
+
+        String query = String.join(" ", Arrays.copyOfRange(args, 0, end));
+        List<String> terms = HistoryStore.searchTerms(query);
+        if (terms.isEmpty()) {
+            ctx.sendMessage(Message.raw("Search terms must be at least 2 letters or digits long").color("#FF5555"));
+            return;
+        }
+
+        HistorySearchResult result = history.search(terms, senderId, channelIds, since, SEARCH_RESULTS);
+        ctx.sendMessage(Message.raw("=== Search: " + String.join(" ", terms)
+            + (senderName != null ? " from " + senderName : "") + " ===").color("#FFAA00"));
+        for (HistorySearchResult.Hit hit : result.hits()) {
+            HistoryRecord record = hit.record();
+            Channel channel = channelManager.getChannelById(hit.channelId());
+            String channelName = channel != null ? channel.getName() : "deleted channel";
+            String channelColor = channel != null ? channel.getColorHex() : "#AAAAAA";
+            ctx.sendMessage(Message.join(
+                Message.raw("[" + HISTORY_TIME.format(Instant.ofEpochMilli(record.timestamp())) + "] ").color("#555555"),
+                Message.raw("[" + channelName + "] ").color(channelColor),
+                Message.raw(record.senderName() + ": ").color("#AAAAAA"),
+                Message.raw(record.message()).color("#FFFFFF")
+            ));
+        }
+        ctx.sendMessage(Message.raw(String.format(Locale.ROOT, "%d of %d matches (%.1f ms)",
+            result.hits().size(), result.total(), result.elapsedNanos() / 1_000_000.0)).color("#AAAAAA"));
+        if (!history.isSearchReady()) {
+            ctx.sendMessage(Message.raw("The search index is still loading older history; results may be incomplete").color("#FFAA00"));
+        }
+    }
+
+    /**
+     * Parses a relative duration such as 45s, 30m, 2h or 1d (bare numbers are minutes). Returns -1 when invalid.
+     */
+    private static long parseDurationMillis(String input) {
+        String value = input.trim().toLowerCase(Locale.ROOT);
+        if (value.isEmpty()) {
+            return -1;
+        }
+        long unit = switch (value.charAt(value.length() - 1)) {
+            case 's' -> 1000L;
+            case 'm' -> 60_000L;
+            case 'h' -> 3_600_000L;
+            case 'd' -> 86_400_000L;
+            case 'w' -> 604_800_000L;
+            default -> 0L;
+        };
+        String digits = unit == 0 ? value : value.substring(0, value.length() - 1);
+        if (unit == 0) {
+            unit = 60_000L;
+        }
+        try {
+            long amount = Long.parseLong(digits);
+            if (amount <= 0 || amount > Long.MAX_VALUE / unit) {
+                return -1;
+            }
+            return amount * unit;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     private void mutePlayer(CommandContext ctx, UUID playerId, String channelName, String playerName) {
         Channel channel = channelManager.findChannel(channelName);
         if (channel == null) {
@@ -1432,33 +1907,7 @@ public class ChannelCommand extends CommandBase {
     }
 
     private Message createGradientPreview(String text, String startColor, String endColor) {
-        if (text == null || text.isEmpty()) {
-            return Message.raw("");
-        }
-        if (text.length() == 1) {
-            return Message.raw(text).color(startColor);
-        }
-
-        int startR = Integer.parseInt(startColor.substring(1, 3), 16);
-        int startG = Integer.parseInt(startColor.substring(3, 5), 16);
-        int startB = Integer.parseInt(startColor.substring(5, 7), 16);
-        int endR = Integer.parseInt(endColor.substring(1, 3), 16);
-        int endG = Integer.parseInt(endColor.substring(3, 5), 16);
-        int endB = Integer.parseInt(endColor.substring(5, 7), 16);
-
-        java.util.List<Message> parts = new java.util.ArrayList<>();
-        int len = text.length();
-
-        for (int i = 0; i < len; i++) {
-            float ratio = (float) i / (len - 1);
-            int r = Math.round(startR + (endR - startR) * ratio);
-            int g = Math.round(startG + (endG - startG) * ratio);
-            int b = Math.round(startB + (endB - startB) * ratio);
-            String hexColor = String.format("#%02X%02X%02X", r, g, b);
-            parts.add(Message.raw(String.valueOf(text.charAt(i))).color(hexColor));
-        }
-
-        return Message.join(parts.toArray(new Message[0]));
+        return GradientRenderer.render(text, startColor, endColor, false, false, null);
     }
 
     private void setMessageColor(CommandContext ctx, UUID playerId, String arg1, String arg2, String arg3) {
@@ -12,6 +12,8 @@ public class WerchatConfig {
 
     private final WerchatPlugin plugin;
     private final Path configFile;
+    // Bumped on every load so components can rebuild state derived from the config
+    private volatile int revision;
 
     // General settings
     private String defaultChannelName = "Global";
@@ -33,12 +35,77 @@ public class WerchatConfig {
     private String filterReplacement = "***";
     private boolean filterNotifyPlayer = true;
     private String filterWarningMessage = "Your message contained inappropriate language.";
-
-    // Chat Cooldown (disabled by default)
-    private boolean cooldownEnabled = false;
-    private int cooldownSeconds = 3;
-    private String cooldownMessage = "Please wait {seconds}s before sending another message.";
-    private String cooldownBypassPermission = "werchat.cooldown.bypass";
+    private boolean filterNormalize = true; // also match words against folded text (spacing, accents, leetspeak)
+    private List<String> filterPatterns = List.of();
+
+    // Chat rate limit (disabled by default)
+    private boolean rateLimitEnabled = false;
+    private String rateLimitMessage = "Please wait {seconds}s before sending another message.";
+    private String rateLimitBypassPermission = "werchat.cooldown.bypass";
+    private List<RateLimitTier> rateLimitTiers = defaultRateLimitTiers();
+
+    // Anti-spam scoring (disabled by default)
+    private boolean antiSpamEnabled = false;
+    private String antiSpamBypassPermission = "werchat.antispam.bypass";
+    private int antiSpamHistorySize = 8;
+    private int antiSpamScoreHalfLifeSeconds = 30; // 0 = score each message on its own
+    private double antiSpamWarnScore = 3.0;
+    private double antiSpamBlockScore = 5.0;
+    private double antiSpamMuteScore = 9.0;
+    private String antiSpamWarnMessage = "Slow down, your messages look like spam.";
+    private String antiSpamBlockMessage = "Your message was blocked as spam.";
+    private double antiSpamRepeatScore = 2.5;
+    private double antiSpamNearRepeatScore = 1.5;
+    private double antiSpamNearRepeatSimilarity = 0.7;
+    private int antiSpamCapsMinLength = 8;
+    private double antiSpamCapsRatio = 0.7;
+    private double antiSpamCapsScore = 1.0;
+    private int antiSpamCharRunLength = 6;
+    private double antiSpamCharRunScore = 1.0;
+    private int antiSpamFloodMessages = 5;
+    private int antiSpamFloodSeconds = 8;
+    private double antiSpamFloodScore = 2.0;
+
+    // Raid detection (disabled by default)
+    private boolean raidDetectionEnabled = false;
+    private int raidWindowSeconds = 60;
+    private int raidWindowSize = 512;
+    private int raidMinMessageLength = 12;
+    private int raidMaxDistance = 6; // SimHash bits; up to 7 is always found by the 8-band index
+    private int raidClusterSenders = 5;
+    private int raidLockdownMinutes = 5;
+    private int raidLockdownSlowModeSeconds = 10;
+    private List<String> raidActions = List.of("slowmode", "filter"); // "slowmode", "filter", "mute"
+
+    // Moderation classifiers (only run when a plugin registers one through the API)
+    private boolean classifiersEnabled = true;
+    private int classifierTimeoutMillis = 200;
+    private String classifierFailPolicy = "open"; // "open" = allow on timeout/error, "closed" = block
+    private int classifierCacheSize = 4096;
+    private int classifierCacheTtlSeconds = 300;
+    private String classifierBlockMessage = "Your message was blocked by moderation.";
+
+    // Load governor
+    private boolean loadGovernorEnabled = true;
+    private int loadGovernorEvaluateMillis = 1000;
+    private int loadGovernorLatencyTargetMicros = 5000;
+    private int loadGovernorMaxQueueDepth = 64;
+    private int loadGovernorRecoverSeconds = 15;
+    private String loadGovernorMaxLevel = "coalesce"; // "normal", "no-relational", "solid-colors", "no-links", "coalesce"
+    private int loadGovernorCoalesceMillis = 250;
+
+    // Fan-out
+    private int fanOutThreshold = 512; // channel members; 0 = always deliver on the sending thread
+    private int fanOutParallelism = 0; // 0 = one lane per CPU core
+
+    // World batching
+    private boolean worldBatchingEnabled = true;
+
+    // Outbound queue
+    private boolean outboundQueueEnabled = true;
+    private int outboundCapacity = 100; // channel lines held per player before the oldest are dropped
+    private int outboundLinesPerTick = 20;
+    private String outboundOverflowPolicy = "collapse"; // "collapse" = notify how many were skipped, "drop-oldest" = drop silently
 
     // Mention Alerts
     private boolean mentionsEnabled = true;
@@ -50,6 +117,30 @@ public class WerchatConfig {
     // Chat Cancellation
     private boolean ignoreChatCancellations = false;
 
+    // Message rendering
+    private boolean messageOptimizerEnabled = true;
+
+    // Chat log
+    private boolean chatLogEnabled = true;
+    private boolean chatLogConsole = false;
+    private String chatLogDirectory = "logs";
+    private String chatLogRollMode = "daily"; // "daily" = new file each day (plus size limit), "size" = size limit only
+    private int chatLogMaxFileSizeMb = 10; // 0 = no size limit
+    private boolean chatLogGzip = false;
+    private int chatLogBufferSize = 8192;
+    private String chatLogOverflowPolicy = "drop-newest"; // "drop-newest", "drop-oldest" or "block"
+
+    // Channel history
+    private boolean historyEnabled = true;
+    private int historySegmentSizeMb = 8;
+    private int historyRetentionDays = 30; // 0 = keep forever
+    private boolean searchEnabled = true;
+
+    // Scrollback
+    private boolean scrollbackEnabled = true;
+    private int scrollbackLines = 15;
+    private int scrollbackMaxAgeMinutes = 60; // 0 = no age limit
+
     public WerchatConfig(WerchatPlugin plugin) {
         this.plugin = plugin;
         this.configFile = plugin.getDataDirectory().resolve("config.json");
@@ -97,6 +188,14 @@ public class WerchatConfig {
                     if (wf.has("replacement")) filterReplacement = wf.get("replacement").getAsString();
                     if (wf.has("notifyPlayer")) filterNotifyPlayer = wf.get("notifyPlayer").getAsBoolean();
                     if (wf.has("warningMessage")) filterWarningMessage = wf.get("warningMessage").getAsString();
+                    if (wf.has("normalize")) filterNormalize = wf.get("normalize").getAsBoolean();
+                    if (wf.has("patterns")) {
+                        List<String> patterns = new ArrayList<>();
+                        for (JsonElement el : wf.getAsJsonArray("patterns")) {
+                            patterns.add(el.getAsString());
+                        }
+                        filterPatterns = List.copyOf(patterns);
+                    }
                     if (wf.has("words")) {
                         filteredWords.clear();
                         for (JsonElement el : wf.getAsJsonArray("words")) {
@@ -105,13 +204,129 @@ public class WerchatConfig {
                     }
                 }
 
-                // Chat Cooldown
-                if (root.has("cooldown")) {
+                // Chat rate limit
+                if (root.has("rateLimit")) {
+                    JsonObject rl = root.getAsJsonObject("rateLimit");
+                    if (rl.has("enabled")) rateLimitEnabled = rl.get("enabled").getAsBoolean();
+                    if (rl.has("message")) rateLimitMessage = rl.get("message").getAsString();
+                    if (rl.has("bypassPermission")) rateLimitBypassPermission = rl.get("bypassPermission").getAsString();
+                    if (rl.has("tiers")) {
+                        List<RateLimitTier> tiers = new ArrayList<>();
+                        for (JsonElement el : rl.getAsJsonArray("tiers")) {
+                            JsonObject tier = el.getAsJsonObject();
+                            String permission = tier.has("permission") ? tier.get("permission").getAsString().trim() : "";
+                            double perMinute = tier.has("messagesPerMinute") ? tier.get("messagesPerMinute").getAsDouble() : 20;
+                            int burst = tier.has("burst") ? tier.get("burst").getAsInt() : 1;
+                            tiers.add(new RateLimitTier(permission, Math.max(0.1, perMinute), Math.max(1, burst)));
+                        }
+                        rateLimitTiers = List.copyOf(tiers);
+                    }
+                } else if (root.has("cooldown")) {
+                    // Older configs used a fixed cooldown: one message per N seconds, no burst
                     JsonObject cd = root.getAsJsonObject("cooldown");
-                    if (cd.has("enabled")) cooldownEnabled = cd.get("enabled").getAsBoolean();
-                    if (cd.has("seconds")) cooldownSeconds = cd.get("seconds").getAsInt();
-                    if (cd.has("message")) cooldownMessage = cd.get("message").getAsString();
-                    if (cd.has("bypassPermission")) cooldownBypassPermission = cd.get("bypassPermission").getAsString();
+                    if (cd.has("enabled")) rateLimitEnabled = cd.get("enabled").getAsBoolean();
+                    if (cd.has("message")) rateLimitMessage = cd.get("message").getAsString();
+                    if (cd.has("bypassPermission")) rateLimitBypassPermission = cd.get("bypassPermission").getAsString();
+                    if (cd.has("seconds")) {
+                        int seconds = Math.max(1, cd.get("seconds").getAsInt());
+                        rateLimitTiers = List.of(new RateLimitTier("", 60.0 / seconds, 1));
+                    }
+                }
+
+                // Anti-spam scoring
+                if (root.has("antiSpam")) {
+                    JsonObject as = root.getAsJsonObject("antiSpam");
+                    if (as.has("enabled")) antiSpamEnabled = as.get("enabled").getAsBoolean();
+                    if (as.has("bypassPermission")) antiSpamBypassPermission = as.get("bypassPermission").getAsString();
+                    if (as.has("historySize")) antiSpamHistorySize = Math.max(2, Math.min(32, as.get("historySize").getAsInt()));
+                    if (as.has("scoreHalfLifeSeconds")) antiSpamScoreHalfLifeSeconds = Math.max(0, as.get("scoreHalfLifeSeconds").getAsInt());
+                    if (as.has("warnScore")) antiSpamWarnScore = as.get("warnScore").getAsDouble();
+                    if (as.has("blockScore")) antiSpamBlockScore = as.get("blockScore").getAsDouble();
+                    if (as.has("muteScore")) antiSpamMuteScore = as.get("muteScore").getAsDouble();
+                    if (as.has("warnMessage")) antiSpamWarnMessage = as.get("warnMessage").getAsString();
+                    if (as.has("blockMessage")) antiSpamBlockMessage = as.get("blockMessage").getAsString();
+                    if (as.has("repeatScore")) antiSpamRepeatScore = as.get("repeatScore").getAsDouble();
+                    if (as.has("nearRepeatScore")) antiSpamNearRepeatScore = as.get("nearRepeatScore").getAsDouble();
+                    if (as.has("nearRepeatSimilarity")) antiSpamNearRepeatSimilarity = Math.max(0.1, Math.min(1.0, as.get("nearRepeatSimilarity").getAsDouble()));
+                    if (as.has("capsMinLength")) antiSpamCapsMinLength = Math.max(1, as.get("capsMinLength").getAsInt());
+                    if (as.has("capsRatio")) antiSpamCapsRatio = Math.max(0.1, Math.min(1.0, as.get("capsRatio").getAsDouble()));
+                    if (as.has("capsScore")) antiSpamCapsScore = as.get("capsScore").getAsDouble();
+                    if (as.has("charRunLength")) antiSpamCharRunLength = Math.max(2, as.get("charRunLength").getAsInt());
+                    if (as.has("charRunScore")) antiSpamCharRunScore = as.get("charRunScore").getAsDouble();
+                    if (as.has("floodMessages")) antiSpamFloodMessages = Math.max(2, as.get("floodMessages").getAsInt());
+                    // Only the last historySize messages plus the new one are counted
+                    if (antiSpamFloodMessages > antiSpamHistorySize + 1) {
+                        plugin.getLogger().at(Level.WARNING).log("antiSpam.floodMessages %d is more than historySize + 1; using %d",
+                            antiSpamFloodMessages, antiSpamHistorySize + 1);
+                        antiSpamFloodMessages = antiSpamHistorySize + 1;
+                    }
+                    if (as.has("floodSeconds")) antiSpamFloodSeconds = Math.max(1, as.get("floodSeconds").getAsInt());
+                    if (as.has("floodScore")) antiSpamFloodScore = as.get("floodScore").getAsDouble();
+                }
+
+                // Raid detection
+                if (root.has("raidDetection")) {
+                    JsonObject rd = root.getAsJsonObject("raidDetection");
+                    if (rd.has("enabled")) raidDetectionEnabled = rd.get("enabled").getAsBoolean();
+                    if (rd.has("windowSeconds")) raidWindowSeconds = Math.max(5, rd.get("windowSeconds").getAsInt());
+                    if (rd.has("windowSize")) raidWindowSize = Math.max(64, Math.min(4096, rd.get("windowSize").getAsInt()));
+                    if (rd.has("minMessageLength")) raidMinMessageLength = Math.max(3, rd.get("minMessageLength").getAsInt());
+                    if (rd.has("maxDistance")) raidMaxDistance = Math.max(0, Math.min(7, rd.get("maxDistance").getAsInt()));
+                    if (rd.has("clusterSenders")) raidClusterSenders = Math.max(2, rd.get("clusterSenders").getAsInt());
+                    if (rd.has("lockdownMinutes")) raidLockdownMinutes = Math.max(1, rd.get("lockdownMinutes").getAsInt());
+                    if (rd.has("lockdownSlowModeSeconds")) raidLockdownSlowModeSeconds = Math.max(0, Math.min(3600, rd.get("lockdownSlowModeSeconds").getAsInt()));
+                    if (rd.has("actions")) {
+                        List<String> actions = new ArrayList<>();
+                        for (JsonElement el : rd.getAsJsonArray("actions")) {
+                            actions.add(el.getAsString().trim().toLowerCase());
+                        }
+                        raidActions = List.copyOf(actions);
+                    }
+                }
+
+                // Moderation classifiers
+                if (root.has("moderationClassifiers")) {
+                    JsonObject mc = root.getAsJsonObject("moderationClassifiers");
+                    if (mc.has("enabled")) classifiersEnabled = mc.get("enabled").getAsBoolean();
+                    if (mc.has("timeoutMillis")) classifierTimeoutMillis = Math.max(1, Math.min(5000, mc.get("timeoutMillis").getAsInt()));
+                    if (mc.has("failPolicy")) classifierFailPolicy = mc.get("failPolicy").getAsString().trim().toLowerCase();
+                    if (mc.has("cacheSize")) classifierCacheSize = Math.max(0, mc.get("cacheSize").getAsInt());
+                    if (mc.has("cacheTtlSeconds")) classifierCacheTtlSeconds = Math.max(0, mc.get("cacheTtlSeconds").getAsInt());
+                    if (mc.has("blockMessage")) classifierBlockMessage = mc.get("blockMessage").getAsString();
+                }
+
+                // Load governor
+                if (root.has("loadGovernor")) {
+                    JsonObject lg = root.getAsJsonObject("loadGovernor");
+                    if (lg.has("enabled")) loadGovernorEnabled = lg.get("enabled").getAsBoolean();
+                    if (lg.has("evaluateMillis")) loadGovernorEvaluateMillis = Math.max(100, lg.get("evaluateMillis").getAsInt());
+                    if (lg.has("latencyTargetMicros")) loadGovernorLatencyTargetMicros = Math.max(100, lg.get("latencyTargetMicros").getAsInt());
+                    if (lg.has("maxQueueDepth")) loadGovernorMaxQueueDepth = Math.max(1, lg.get("maxQueueDepth").getAsInt());
+                    if (lg.has("recoverSeconds")) loadGovernorRecoverSeconds = Math.max(1, lg.get("recoverSeconds").getAsInt());
+                    if (lg.has("maxLevel")) loadGovernorMaxLevel = lg.get("maxLevel").getAsString().trim().toLowerCase();
+                    if (lg.has("coalesceMillis")) loadGovernorCoalesceMillis = Math.max(50, Math.min(2000, lg.get("coalesceMillis").getAsInt()));
+                }
+
+                // Fan-out
+                if (root.has("fanOut")) {
+                    JsonObject fo = root.getAsJsonObject("fanOut");
+                    if (fo.has("threshold")) fanOutThreshold = Math.max(0, fo.get("threshold").getAsInt());
+                    if (fo.has("parallelism")) fanOutParallelism = Math.max(0, Math.min(64, fo.get("parallelism").getAsInt()));
+                }
+
+                // World batching
+                if (root.has("worldBatching")) {
+                    JsonObject wb = root.getAsJsonObject("worldBatching");
+                    if (wb.has("enabled")) worldBatchingEnabled = wb.get("enabled").getAsBoolean();
+                }
+
+                // Outbound queue
+                if (root.has("outboundQueue")) {
+                    JsonObject oq = root.getAsJsonObject("outboundQueue");
+                    if (oq.has("enabled")) outboundQueueEnabled = oq.get("enabled").getAsBoolean();
+                    if (oq.has("capacity")) outboundCapacity = Math.max(1, oq.get("capacity").getAsInt());
+                    if (oq.has("linesPerTick")) outboundLinesPerTick = Math.max(1, oq.get("linesPerTick").getAsInt());
+                    if (oq.has("overflowPolicy")) outboundOverflowPolicy = oq.get("overflowPolicy").getAsString().trim().toLowerCase();
                 }
 
                 // Mentions
@@ -130,6 +345,42 @@ public class WerchatConfig {
                 // Chat Cancellation
                 if (root.has("ignoreChatCancellations")) ignoreChatCancellations = root.get("ignoreChatCancellations").getAsBoolean();
 
+                // Message rendering
+                if (root.has("messageOptimizer")) {
+                    JsonObject mo = root.getAsJsonObject("messageOptimizer");
+                    if (mo.has("enabled")) messageOptimizerEnabled = mo.get("enabled").getAsBoolean();
+                }
+
+                // Chat log
+                if (root.has("chatLog")) {
+                    JsonObject cl = root.getAsJsonObject("chatLog");
+                    if (cl.has("enabled")) chatLogEnabled = cl.get("enabled").getAsBoolean();
+                    if (cl.has("console")) chatLogConsole = cl.get("console").getAsBoolean();
+                    if (cl.has("directory")) chatLogDirectory = cl.get("directory").getAsString();
+                    if (cl.has("rollMode")) chatLogRollMode = cl.get("rollMode").getAsString();
+                    if (cl.has("maxFileSizeMb")) chatLogMaxFileSizeMb = Math.max(0, cl.get("maxFileSizeMb").getAsInt());
+                    if (cl.has("gzip")) chatLogGzip = cl.get("gzip").getAsBoolean();
+                    if (cl.has("bufferSize")) chatLogBufferSize = Math.max(64, cl.get("bufferSize").getAsInt());
+                    if (cl.has("overflowPolicy")) chatLogOverflowPolicy = cl.get("overflowPolicy").getAsString();
+                }
+
+                // Channel history
+                if (root.has("history")) {
+                    JsonObject h = root.getAsJsonObject("history");
+                    if (h.has("enabled")) historyEnabled = h.get("enabled").getAsBoolean();
+                    if (h.has("segmentSizeMb")) historySegmentSizeMb = Math.max(1, Math.min(1024, h.get("segmentSizeMb").getAsInt()));
+                    if (h.has("retentionDays")) historyRetentionDays = Math.max(0, h.get("retentionDays").getAsInt());
+                    if (h.has("searchEnabled")) searchEnabled = h.get("searchEnabled").getAsBoolean();
+                }
+
+                // Scrollback
+                if (root.has("scrollback")) {
+                    JsonObject sb = root.getAsJsonObject("scrollback");
+                    if (sb.has("enabled")) scrollbackEnabled = sb.get("enabled").getAsBoolean();
+                    if (sb.has("lines")) scrollbackLines = Math.max(1, Math.min(100, sb.get("lines").getAsInt()));
+                    if (sb.has("maxAgeMinutes")) scrollbackMaxAgeMinutes = Math.max(0, sb.get("maxAgeMinutes").getAsInt());
+                }
+
                 plugin.getLogger().at(Level.INFO).log("Configuration loaded from config.json");
                 save(); // Re-save to add any new config fields from updates
             } else {
@@ -139,6 +390,11 @@ public class WerchatConfig {
         } catch (Exception e) {
             plugin.getLogger().at(Level.WARNING).log("Failed to load config: %s", e.getMessage());
         }
+        revision++;
+    }
+
+    public int getRevision() {
+        return revision;
     }
 
     public void save() {
@@ -176,15 +432,106 @@ public class WerchatConfig {
             JsonArray wordsArr = new JsonArray();
             for (String word : filteredWords) wordsArr.add(word);
             wf.add("words", wordsArr);
+            wf.addProperty("normalize", filterNormalize);
+            JsonArray patternsArr = new JsonArray();
+            for (String pattern : filterPatterns) patternsArr.add(pattern);
+            wf.add("patterns", patternsArr);
             root.add("wordFilter", wf);
 
-            // Chat Cooldown
-            JsonObject cd = new JsonObject();
-            cd.addProperty("enabled", cooldownEnabled);
-            cd.addProperty("seconds", cooldownSeconds);
-            cd.addProperty("message", cooldownMessage);
-            cd.addProperty("bypassPermission", cooldownBypassPermission);
-            root.add("cooldown", cd);
+            // Chat rate limit
+            JsonObject rl = new JsonObject();
+            rl.addProperty("enabled", rateLimitEnabled);
+            rl.addProperty("message", rateLimitMessage);
+            rl.addProperty("bypassPermission", rateLimitBypassPermission);
+            JsonArray tiersArr = new JsonArray();
+            for (RateLimitTier tier : rateLimitTiers) {
+                JsonObject t = new JsonObject();
+                t.addProperty("permission", tier.permission());
+                t.addProperty("messagesPerMinute", tier.messagesPerMinute());
+                t.addProperty("burst", tier.burst());
+                tiersArr.add(t);
+            }
+            rl.add("tiers", tiersArr);
+            root.add("rateLimit", rl);
+
+            // Anti-spam scoring
+            JsonObject as = new JsonObject();
+            as.addProperty("enabled", antiSpamEnabled);
+            as.addProperty("bypassPermission", antiSpamBypassPermission);
+            as.addProperty("historySize", antiSpamHistorySize);
+            as.addProperty("scoreHalfLifeSeconds", antiSpamScoreHalfLifeSeconds);
+            as.addProperty("warnScore", antiSpamWarnScore);
+            as.addProperty("blockScore", antiSpamBlockScore);
+            as.addProperty("muteScore", antiSpamMuteScore);
+            as.addProperty("warnMessage", antiSpamWarnMessage);
+            as.addProperty("blockMessage", antiSpamBlockMessage);
+            as.addProperty("repeatScore", antiSpamRepeatScore);
+            as.addProperty("nearRepeatScore", antiSpamNearRepeatScore);
+            as.addProperty("nearRepeatSimilarity", antiSpamNearRepeatSimilarity);
+            as.addProperty("capsMinLength", antiSpamCapsMinLength);
+            as.addProperty("capsRatio", antiSpamCapsRatio);
+            as.addProperty("capsScore", antiSpamCapsScore);
+            as.addProperty("charRunLength", antiSpamCharRunLength);
+            as.addProperty("charRunScore", antiSpamCharRunScore);
+            as.addProperty("floodMessages", antiSpamFloodMessages);
+            as.addProperty("floodSeconds", antiSpamFloodSeconds);
+            as.addProperty("floodScore", antiSpamFloodScore);
+            root.add("antiSpam", as);
+
+            // Raid detection
+            JsonObject rd = new JsonObject();
+            rd.addProperty("enabled", raidDetectionEnabled);
+            rd.addProperty("windowSeconds", raidWindowSeconds);
+            rd.addProperty("windowSize", raidWindowSize);
+            rd.addProperty("minMessageLength", raidMinMessageLength);
+            rd.addProperty("maxDistance", raidMaxDistance);
+            rd.addProperty("clusterSenders", raidClusterSenders);
+            rd.addProperty("lockdownMinutes", raidLockdownMinutes);
+            rd.addProperty("lockdownSlowModeSeconds", raidLockdownSlowModeSeconds);
+            JsonArray actionsArr = new JsonArray();
+            for (String action : raidActions) actionsArr.add(action);
+            rd.add("actions", actionsArr);
+            root.add("raidDetection", rd);
+
+            // Moderation classifiers
+            JsonObject mc = new JsonObject();
+            mc.addProperty("enabled", classifiersEnabled);
+            mc.addProperty("timeoutMillis", classifierTimeoutMillis);
+            mc.addProperty("failPolicy", classifierFailPolicy);
+            mc.addProperty("cacheSize", classifierCacheSize);
+            mc.addProperty("cacheTtlSeconds", classifierCacheTtlSeconds);
+            mc.addProperty("blockMessage", classifierBlockMessage);
+            root.add("moderationClassifiers", mc);
+
+            // Load governor
+            JsonObject lg = new JsonObject();
+            lg.addProperty("enabled", loadGovernorEnabled);
+            lg.addProperty("evaluateMillis", loadGovernorEvaluateMillis);
+            lg.addProperty("latencyTargetMicros", loadGovernorLatencyTargetMicros);
+            lg.addProperty("maxQueueDepth", loadGovernorMaxQueueDepth);
+            lg.addProperty("recoverSeconds", loadGovernorRecoverSeconds);
+            lg.addProperty("maxLevel", loadGovernorMaxLevel);
+            lg.addProperty("coalesceMillis", loadGovernorCoalesceMillis);
+            root.add("loadGovernor", lg);
+
+            // Fan-out
+            JsonObject fo = new JsonObject();
+            fo.addProperty("threshold", fanOutThreshold);
+            fo.addProperty("parallelism", fanOutParallelism);
+            root.add("fanOut", fo);
+
+            // World batching
+            JsonObject wb = new JsonObject();
+            wb.addProperty("enabled", worldBatchingEnabled);
+            root.add("worldBatching", wb);
+
+            // Outbound queue
+            JsonObject oq = new JsonObject();
+            oq.addProperty("enabled", outboundQueueEnabled);
+            oq.addProperty("capacity", outboundCapacity);
+            oq.addProperty("linesPerTick", outboundLinesPerTick);
+            oq.addProperty("overflowPolicy", outboundOverflowPolicy);
+            root.add("outboundQueue", oq);
 
             // Mentions
             JsonObject m = new JsonObject();
@@ -200,6 +547,38 @@ public class WerchatConfig {
             // Chat Cancellation
             root.addProperty("ignoreChatCancellations", ignoreChatCancellations);
 
+            // Message rendering
+            JsonObject mo = new JsonObject();
+            mo.addProperty("enabled", messageOptimizerEnabled);
+            root.add("messageOptimizer", mo);
+
+            // Chat log
+            JsonObject cl = new JsonObject();
+            cl.addProperty("enabled", chatLogEnabled);
+            cl.addProperty("console", chatLogConsole);
+            cl.addProperty("directory", chatLogDirectory);
+            cl.addProperty("rollMode", chatLogRollMode);
+            cl.addProperty("maxFileSizeMb", chatLogMaxFileSizeMb);
+            cl.addProperty("gzip", chatLogGzip);
+            cl.addProperty("bufferSize", chatLogBufferSize);
+            cl.addProperty("overflowPolicy", chatLogOverflowPolicy);
+            root.add("chatLog", cl);
+
+            // Channel history
+            JsonObject h = new JsonObject();
+            h.addProperty("enabled", historyEnabled);
+            h.addProperty("segmentSizeMb", historySegmentSizeMb);
+            h.addProperty("retentionDays", historyRetentionDays);
+            h.addProperty("searchEnabled", searchEnabled);
+            root.add("history", h);
+
+            // Scrollback
+            JsonObject sb = new JsonObject();
+            sb.addProperty("enabled", scrollbackEnabled);
+            sb.addProperty("lines", scrollbackLines);
+            sb.addProperty("maxAgeMinutes", scrollbackMaxAgeMinutes);
+            root.add("scrollback", sb);
+
             Gson gson = new GsonBuilder().setPrettyPrinting().create();
             Files.writeString(configFile, gson.toJson(root));
 
@@ -228,12 +607,91 @@ public class WerchatConfig {
     public String getFilterReplacement() { return filterReplacement; }
     public boolean isFilterNotifyPlayer() { return filterNotifyPlayer; }
     public String getFilterWarningMessage() { return filterWarningMessage; }
+    public boolean isFilterNormalize() { return filterNormalize; }
+    public List<String> getFilterPatterns() { return filterPatterns; }
+
+    // Rate limit
+    public boolean isRateLimitEnabled() { return rateLimitEnabled; }
+    public String getRateLimitMessage() { return rateLimitMessage; }
+    public String getRateLimitBypassPermission() { return rateLimitBypassPermission; }
+    public List<RateLimitTier> getRateLimitTiers() { return rateLimitTiers; }
+
+    /**
+     * A rate limit for players with the given permission ("" matches everyone). Tiers are checked
+     * in config order and the first match applies.
+     */
+    public record RateLimitTier(String permission, double messagesPerMinute, int burst) {}
+
+    private static List<RateLimitTier> defaultRateLimitTiers() {
+        return List.of(
+            new RateLimitTier("werchat.ratelimit.vip", 40, 6),
+            new RateLimitTier("", 20, 3)
+        );
+    }
 
-    // Cooldown
-    public boolean isCooldownEnabled() { return cooldownEnabled; }
-    public int getCooldownSeconds() { return cooldownSeconds; }
-    public String getCooldownMessage() { return cooldownMessage; }
-    public String getCooldownBypassPermission() { return cooldownBypassPermission; }
+    // Anti-spam scoring
+    public boolean isAntiSpamEnabled() { return antiSpamEnabled; }
+    public String getAntiSpamBypassPermission() { return antiSpamBypassPermission; }
+    public int getAntiSpamHistorySize() { return antiSpamHistorySize; }
+    public int getAntiSpamScoreHalfLifeSeconds() { return antiSpamScoreHalfLifeSeconds; }
+    public double getAntiSpamWarnScore() { return antiSpamWarnScore; }
+    public double getAntiSpamBlockScore() { return antiSpamBlockScore; }
+    public double getAntiSpamMuteScore() { return antiSpamMuteScore; }
+    public String getAntiSpamWarnMessage() { return antiSpamWarnMessage; }
+    public String getAntiSpamBlockMessage() { return antiSpamBlockMessage; }
+    public double getAntiSpamRepeatScore() { return antiSpamRepeatScore; }
+    public double getAntiSpamNearRepeatScore() { return antiSpamNearRepeatScore; }
+    public double getAntiSpamNearRepeatSimilarity() { return antiSpamNearRepeatSimilarity; }
+    public int getAntiSpamCapsMinLength() { return antiSpamCapsMinLength; }
+    public double getAntiSpamCapsRatio() { return antiSpamCapsRatio; }
+    public double getAntiSpamCapsScore() { return antiSpamCapsScore; }
+    public int getAntiSpamCharRunLength() { return antiSpamCharRunLength; }
+    public double getAntiSpamCharRunScore() { return antiSpamCharRunScore; }
+    public int getAntiSpamFloodMessages() { return antiSpamFloodMessages; }
+    public int getAntiSpamFloodSeconds() { return antiSpamFloodSeconds; }
+    public double getAntiSpamFloodScore() { return antiSpamFloodScore; }
+
+    // Raid detection
+    public boolean isRaidDetectionEnabled() { return raidDetectionEnabled; }
+    public int getRaidWindowSeconds() { return raidWindowSeconds; }
+    public int getRaidWindowSize() { return raidWindowSize; }
+    public int getRaidMinMessageLength() { return raidMinMessageLength; }
+    public int getRaidMaxDistance() { return raidMaxDistance; }
+    public int getRaidClusterSenders() { return raidClusterSenders; }
+    public int getRaidLockdownMinutes() { return raidLockdownMinutes; }
+    public int getRaidLockdownSlowModeSeconds() { return raidLockdownSlowModeSeconds; }
+    public List<String> getRaidActions() { return raidActions; }
+
+    // Moderation classifiers
+    public boolean isClassifiersEnabled() { return classifiersEnabled; }
+    public int getClassifierTimeoutMillis() { return classifierTimeoutMillis; }
+    public boolean isClassifierFailClosed() { return "closed".equals(classifierFailPolicy); }
+    public int getClassifierCacheSize() { return classifierCacheSize; }
+    public int getClassifierCacheTtlSeconds() { return classifierCacheTtlSeconds; }
+    public String getClassifierBlockMessage() { return classifierBlockMessage; }
+
+    // Load governor
+    public boolean isLoadGovernorEnabled() { return loadGovernorEnabled; }
+    public int getLoadGovernorEvaluateMillis() { return loadGovernorEvaluateMillis; }
+    public int getLoadGovernorLatencyTargetMicros() { return loadGovernorLatencyTargetMicros; }
+    public int getLoadGovernorMaxQueueDepth() { return loadGovernorMaxQueueDepth; }
+    public int getLoadGovernorRecoverSeconds() { return loadGovernorRecoverSeconds; }
+    public String getLoadGovernorMaxLevel() { return loadGovernorMaxLevel; }
+    public int getLoadGovernorCoalesceMillis() { return loadGovernorCoalesceMillis; }
+
+    // Fan-out
+    public int getFanOutThreshold() { return fanOutThreshold; }
+    public int getFanOutParallelism() { return fanOutParallelism; }
+
+    // World batching
+    public boolean isWorldBatchingEnabled() { return worldBatchingEnabled; }
+
+    // Outbound queue
+    public boolean isOutboundQueueEnabled() { return outboundQueueEnabled; }
+    public int getOutboundCapacity() { return outboundCapacity; }
+    public int getOutboundLinesPerTick() { return outboundLinesPerTick; }
+    public String getOutboundOverflowPolicy() { return outboundOverflowPolicy; }
+    public boolean isOutboundCollapseOverflow() { return !"drop-oldest".equals(outboundOverflowPolicy); }
 
     // Mentions
     public boolean isMentionsEnabled() { return mentionsEnabled; }
@@ -245,4 +703,28 @@ public class WerchatConfig {
     // Chat Cancellation
     public boolean isIgnoreChatCancellations() { return ignoreChatCancellations; }
 
+    // Message rendering
+    public boolean isMessageOptimizerEnabled() { return messageOptimizerEnabled; }
+
+    // Chat log
+    public boolean isChatLogEnabled() { return chatLogEnabled; }
+    public boolean isChatLogConsole() { return chatLogConsole; }
+    public String getChatLogDirectory() { return chatLogDirectory; }
+    public boolean isChatLogRollDaily() { return !"size".equalsIgnoreCase(chatLogRollMode); }
+    public int getChatLogMaxFileSizeMb() { return chatLogMaxFileSizeMb; }
+    public boolean isChatLogGzip() { return chatLogGzip; }
+    public int getChatLogBufferSize() { return chatLogBufferSize; }
+    public String getChatLogOverflowPolicy() { return chatLogOverflowPolicy; }
+
+    // Channel history
+    public boolean isHistoryEnabled() { return historyEnabled; }
+    public int getHistorySegmentSizeMb() { return historySegmentSizeMb; }
+    public int getHistoryRetentionDays() { return historyRetentionDays; }
+    public boolean isSearchEnabled() { return searchEnabled; }
+
+    // Scrollback
+    public boolean isScrollbackEnabled() { return scrollbackEnabled; }
+    public int getScrollbackLines() { return scrollbackLines; }
+    public int getScrollbackMaxAgeMinutes() { return scrollbackMaxAgeMinutes; }
+
 }
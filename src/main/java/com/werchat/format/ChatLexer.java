@@ -0,0 +1,420 @@
+package com.werchat.format;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Single-pass, regex-free tokenizer for chat text.
+ * Player messages yield text, mention and URL tokens; decoration strings (prefixes, suffixes and
+ * format literals) yield text, color and format tokens.
+ */
+public final class ChatLexer {
+
+    private static final String URL_TRAILING_PUNCTUATION = ".,!?;:)]}\"'";
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    public enum TokenType { TEXT, MENTION, URL, COLOR, FORMAT }
+
+    /**
+     * A token covering text[start, end). value holds the mention name, the URL link target,
+     * the "#RRGGBB" color, or the lower-case format code (l, o, r); it is null for plain text.
+     */
+    public record Token(TokenType type, int start, int end, String value) {
+    }
+
+    private ChatLexer() {
+    }
+
+    /**
+     * Tokenizes a player message into text, mention and URL tokens.
+     * Mentions inside URLs (e.g. user@example.com) are still reported through {@link LexedMessage#mentions()}.
+     */
+    public static LexedMessage lexChat(String text, boolean mentions, boolean urls) {
+        if (text == null || text.isEmpty()) {
+            return new LexedMessage("", Collections.emptyList(), Collections.emptyList());
+        }
+
+        List<Token> tokens = new ArrayList<>();
+        List<String> mentionNames = mentions ? new ArrayList<>() : Collections.emptyList();
+        int len = text.length();
+        int textStart = 0;
+        int urlSkipUntil = 0;
+        int i = 0;
+
+        while (i < len) {
+            char c = text.charAt(i);
+
+            if (urls && i >= urlSkipUntil && isUrlStart(text, i)) {
+                int rawEnd = matchUrl(text, i);
+                if (rawEnd >= 0) {
+                    int end = trimTrailingPunctuation(text, i, rawEnd);
+                    addText(tokens, textStart, i);
+                    tokens.add(new Token(TokenType.URL, i, end, normalizeLinkTarget(text.substring(i, end))));
+                    if (mentions) {
+                        collectMentions(text, i, rawEnd, mentionNames);
+                    }
+                    textStart = end;
+                    i = rawEnd;
+                    continue;
+                }
+                // Nothing inside the rejected label chain can start a URL either
+                urlSkipUntil = Math.max(-rawEnd - 1, i + 1);
+            }
+
+            if (mentions && c == '@') {
+                int nameEnd = scanWord(text, i + 1);
+                if (nameEnd > i + 1) {
+                    mentionNames.add(text.substring(i + 1, nameEnd));
+                    // A URL may start right after the '@' (e.g. @example.com); let the next pass link it
+                    if (urls && isUrlStart(text, i + 1) && matchUrl(text, i + 1) >= 0) {
+                        i++;
+                        continue;
+                    }
+                    addText(tokens, textStart, i);
+                    tokens.add(new Token(TokenType.MENTION, i, nameEnd, text.substring(i + 1, nameEnd)));
+                    textStart = nameEnd;
+                    i = nameEnd;
+                    continue;
+                }
+            }
+
+            i++;
+        }
+
+        addText(tokens, textStart, len);
+        return new LexedMessage(text, tokens, mentionNames);
+    }
+
+    /**
+     * Tokenizes decoration text using &amp; or § codes: legacy colors, &amp;#RRGGBB, §x§R§R§G§G§B§B,
+     * and the l (bold), o (italic) and r (reset) format codes. Unknown codes are kept as text.
+     */
+    public static List<Token> lexDecorated(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Token> tokens = new ArrayList<>();
+        int len = text.length();
+        int textStart = 0;
+        int i = 0;
+
+        while (i < len) {
+            char c = text.charAt(i);
+            if ((c == '&' || c == '\u00A7') && i + 1 < len) {
+                char next = text.charAt(i + 1);
+
+                // Hex color: &#RRGGBB or §#RRGGBB
+                if (next == '#' && i + 8 <= len && isHexRun(text, i + 2, 6, 1)) {
+                    addText(tokens, textStart, i);
+                    tokens.add(new Token(TokenType.COLOR, i, i + 8, upperHex(text, i + 2, 1)));
+                    i += 8;
+                    textStart = i;
+                    continue;
+                }
+
+                // Minecraft extended hex: §x§R§R§G§G§B§B (14 chars total)
+                if ((next == 'x' || next == 'X') && i + 14 <= len && isExtendedHex(text, i)) {
+                    addText(tokens, textStart, i);
+                    tokens.add(new Token(TokenType.COLOR, i, i + 14, upperHex(text, i + 3, 2)));
+                    i += 14;
+                    textStart = i;
+                    continue;
+                }
+
+                String legacy = legacyColorToHex(next);
+                if (legacy != null) {
+                    addText(tokens, textStart, i);
+                    tokens.add(new Token(TokenType.COLOR, i, i + 2, legacy));
+                    i += 2;
+                    textStart = i;
+                    continue;
+                }
+
+                char code = Character.toLowerCase(next);
+                if (code == 'l' || code == 'o' || code == 'r') {
+                    addText(tokens, textStart, i);
+                    tokens.add(new Token(TokenType.FORMAT, i, i + 2, String.valueOf(code)));
+                    i += 2;
+                    textStart = i;
+                    continue;
+                }
+            }
+            i++;
+        }
+
+        addText(tokens, textStart, len);
+        return tokens;
+    }
+
+    /**
+     * Convert Minecraft legacy color code to hex color.
+     */
+    public static String legacyColorToHex(char code) {
+        return switch (Character.toLowerCase(code)) {
+            case '0' -> "#000000"; // Black
+            case '1' -> "#0000AA"; // Dark Blue
+            case '2' -> "#00AA00"; // Dark Green
+            case '3' -> "#00AAAA"; // Dark Aqua
+            case '4' -> "#AA0000"; // Dark Red
+            case '5' -> "#AA00AA"; // Dark Purple
+            case '6' -> "#FFAA00"; // Gold
+            case '7' -> "#AAAAAA"; // Gray
+            case '8' -> "#555555"; // Dark Gray
+            case '9' -> "#5555FF"; // Blue
+            case 'a' -> "#55FF55"; // Green
+            case 'b' -> "#55FFFF"; // Aqua
+            case 'c' -> "#FF5555"; // Red
+            case 'd' -> "#FF55FF"; // Light Purple
+            case 'e' -> "#FFFF55"; // Yellow
+            case 'f' -> "#FFFFFF"; // White
+            default -> null;
+        };
+    }
+
+    private static void addText(List<Token> tokens, int start, int end) {
+        if (end > start) {
+            tokens.add(new Token(TokenType.TEXT, start, end, null));
+        }
+    }
+
+    private static void collectMentions(String text, int start, int end, List<String> mentionNames) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '@') {
+                int nameEnd = scanWord(text, i + 1);
+                if (nameEnd > i + 1) {
+                    mentionNames.add(text.substring(i + 1, nameEnd));
+                    i = nameEnd - 1;
+                }
+            }
+        }
+    }
+
+    private static int scanWord(String text, int from) {
+        int i = from;
+        while (i < text.length() && isWordChar(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // --- URL matching ---
+    // Equivalent to: \b((?:https?://)?(?:[a-z0-9](?:[a-z0-9-]{0,61}[a-z0-9])?\.)+[a-z]{2,}(?::\d{2,5})?(?:/\S*)?)
+    // (case-insensitive), evaluated in linear time.
+
+    private static boolean isUrlStart(String text, int i) {
+        return i < text.length()
+            && isAsciiAlnum(text.charAt(i))
+            && (i == 0 || !isWordChar(text.charAt(i - 1)));
+    }
+
+    /**
+     * Returns the raw end of a URL starting at start, or -(skipTo) - 1 when none matches,
+     * where skipTo is the first position that could still start a URL.
+     */
+    private static int matchUrl(String text, int start) {
+        int skipTo = start + 1;
+        int schemeLength = schemeLength(text, start);
+        if (schemeLength > 0) {
+            int withScheme = matchHost(text, start + schemeLength);
+            if (withScheme >= 0) {
+                return withScheme;
+            }
+            skipTo = Math.max(skipTo, -withScheme - 1);
+        }
+
+        int withoutScheme = matchHost(text, start);
+        if (withoutScheme >= 0) {
+            return withoutScheme;
+        }
+        skipTo = Math.max(skipTo, -withoutScheme - 1);
+        return -skipTo - 1;
+    }
+
+    private static int schemeLength(String text, int i) {
+        if (text.regionMatches(true, i, "https://", 0, 8)) {
+            return 8;
+        }
+        if (text.regionMatches(true, i, "http://", 0, 7)) {
+            return 7;
+        }
+        return 0;
+    }
+
+    private static int matchHost(String text, int start) {
+        int len = text.length();
+        int labelStart = start;
+        int tldEnd = -1;
+
+        // Walk "label." pieces; the last one followed by 2+ letters decides the TLD (greedy, like the regex)
+        while (labelStart < len && isAsciiAlnum(text.charAt(labelStart))) {
+            int r = labelStart;
+            while (r < len && isLabelChar(text.charAt(r))) {
+                r++;
+            }
+            if (r >= len || text.charAt(r) != '.' || r - labelStart > MAX_LABEL_LENGTH
+                || !isAsciiAlnum(text.charAt(r - 1))) {
+                break;
+            }
+            int tldStart = r + 1;
+            int letters = tldStart;
+            while (letters < len && isAsciiLetter(text.charAt(letters))) {
+                letters++;
+            }
+            if (letters - tldStart >= 2) {
+                tldEnd = letters;
+            }
+            labelStart = tldStart;
+        }
+
+        if (tldEnd < 0) {
+            return -labelStart - 1;
+        }
+
+        int end = tldEnd;
+        if (end < len && text.charAt(end) == ':') {
+            int digits = 0;
+            while (digits < 5 && end + 1 + digits < len && isAsciiDigit(text.charAt(end + 1 + digits))) {
+                digits++;
+            }
+            if (digits >= 2) {
+                end += 1 + digits;
+            }
+        }
+        if (end < len && text.charAt(end) == '/') {
+            end++;
+            while (end < len && !isRegexWhitespace(text.charAt(end))) {
+                end++;
+            }
+        }
+        return end;
+    }
+
+    private static int trimTrailingPunctuation(String text, int start, int end) {
+        // Drop trailing punctuation so "example.com," links correctly without the comma.
+        while (end > start && URL_TRAILING_PUNCTUATION.indexOf(text.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return end;
+    }
+
+    private static String normalizeLinkTarget(String rawUrl) {
+        if (rawUrl.regionMatches(true, 0, "http://", 0, 7) ||
+            rawUrl.regionMatches(true, 0, "https://", 0, 8)) {
+            return rawUrl;
+        }
+        return "https://" + rawUrl;
+    }
+
+    // --- Color code helpers ---
+
+    private static boolean isHexRun(String text, int from, int count, int stride) {
+        for (int k = 0; k < count; k++) {
+            if (!isAsciiHex(text.charAt(from + k * stride))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isExtendedHex(String text, int i) {
+        for (int j = i + 2; j < i + 14; j += 2) {
+            char marker = text.charAt(j);
+            if (marker != '&' && marker != '\u00A7') {
+                return false;
+            }
+        }
+        return isHexRun(text, i + 3, 6, 2);
+    }
+
+    private static String upperHex(String text, int from, int stride) {
+        char[] out = new char[7];
+        out[0] = '#';
+        for (int k = 0; k < 6; k++) {
+            out[k + 1] = Character.toUpperCase(text.charAt(from + k * stride));
+        }
+        return new String(out);
+    }
+
+    // --- Character classes (ASCII, matching java.util.regex defaults) ---
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAsciiAlnum(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c);
+    }
+
+    private static boolean isAsciiHex(char c) {
+        return isAsciiDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isLabelChar(char c) {
+        return isAsciiAlnum(c) || c == '-';
+    }
+
+    private static boolean isWordChar(char c) {
+        return isAsciiAlnum(c) || c == '_';
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Result of {@link #lexChat}: the original text, its tokens, and every mentioned name in order.
+     */
+    public static final class LexedMessage {
+        private final String text;
+        private final List<Token> tokens;
+        private final List<String> mentions;
+        private final boolean hasUrls;
+        private String[] linkTargets;
+
+        LexedMessage(String text, List<Token> tokens, List<String> mentions) {
+            this.text = text;
+            this.tokens = tokens;
+            this.mentions = mentions;
+            boolean urls = false;
+            for (Token token : tokens) {
+                if (token.type() == TokenType.URL) {
+                    urls = true;
+                    break;
+                }
+            }
+            this.hasUrls = urls;
+        }
+
+        public String text() { return text; }
+        public List<Token> tokens() { return tokens; }
+        public List<String> mentions() { return mentions; }
+        public boolean hasUrls() { return hasUrls; }
+
+        /**
+         * Per-character link targets for gradient rendering, or null when the message has no URLs.
+         */
+        public synchronized String[] linkTargetIndex() {
+            if (!hasUrls) {
+                return null;
+            }
+            if (linkTargets == null) {
+                String[] index = new String[text.length()];
+                for (Token token : tokens) {
+                    if (token.type() == TokenType.URL) {
+                        for (int i = token.start(); i < token.end(); i++) {
+                            index[i] = token.value();
+                        }
+                    }
+                }
+                linkTargets = index;
+            }
+            return linkTargets;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.werchat.format;
+
+import com.hypixel.hytale.server.core.Message;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of parsed color-coded decoration strings (prefixes, suffixes and format literals).
+ * These come from a small, slowly changing set, so each distinct string is parsed once.
+ */
+public final class DecorationCache {
+
+    private static final String DEFAULT_COLOR = "#FFFFFF";
+
+    private final Map<String, StyledText> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public DecorationCache(int capacity) {
+        // Access-ordered LRU, guarded by its own monitor
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StyledText> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the parsed Message for a color-coded string, parsing it on first use.
+     */
+    public Message get(String text) {
+        return getSpans(text).toMessage();
+    }
+
+    /**
+     * Returns the parsed spans for a color-coded string, parsing it on first use.
+     */
+    public StyledText getSpans(String text) {
+        if (text == null || text.isEmpty()) {
+            return StyledText.EMPTY;
+        }
+
+        synchronized (entries) {
+            StyledText cached = entries.get(text);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        misses.increment();
+        StyledText parsed = parse(text);
+        synchronized (entries) {
+            entries.put(text, parsed);
+        }
+        return parsed;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+
+    /**
+     * Parse a string containing HyperPerms color codes (&c, &6, &#RRGGBB, etc.)
+     * into styled spans with proper coloring.
+     */
+    public static StyledText parse(String text) {
+        if (text == null || text.isEmpty()) {
+            return StyledText.EMPTY;
+        }
+
+        StyledText.Builder parts = StyledText.builder();
+        String currentColor = DEFAULT_COLOR;
+        boolean bold = false;
+        boolean italic = false;
+
+        for (ChatLexer.Token token : ChatLexer.lexDecorated(text)) {
+            switch (token.type()) {
+                case COLOR -> currentColor = token.value();
+                case FORMAT -> {
+                    switch (token.value()) {
+                        case "l" -> bold = true;
+                        case "o" -> italic = true;
+                        default -> { // Reset
+                            currentColor = DEFAULT_COLOR;
+                            bold = false;
+                            italic = false;
+                        }
+                    }
+                }
+                default -> parts.append(text.substring(token.start(), token.end()), currentColor, bold, italic, null);
+            }
+        }
+        return parts.build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.werchat.format;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A channel format string split into literal text and {token} placeholders, parsed once per distinct format.
+ */
+public final class FormatTemplate {
+
+    public static final String[] TOKENS = {"{name}", "{nick}", "{color}", "{sender}", "{msg}", "{prefix}", "{suffix}"};
+
+    // Indexes into TOKENS, so renderers can keep token values in a plain array
+    public static final int NAME = 0;
+    public static final int NICK = 1;
+    public static final int COLOR = 2;
+    public static final int SENDER = 3;
+    public static final int MSG = 4;
+    public static final int PREFIX = 5;
+    public static final int SUFFIX = 6;
+
+    private static final int CACHE_LIMIT = 128;
+    private static final Map<String, FormatTemplate> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * One piece of a format: either literal text or one of {@link #TOKENS}.
+     * tokenIndex is the token's position in TOKENS, or -1 for literals.
+     */
+    public record Segment(String literal, String token, int tokenIndex) {
+        public boolean isToken() { return token != null; }
+    }
+
+    private final List<Segment> segments;
+
+    private FormatTemplate(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    public List<Segment> segments() {
+        return segments;
+    }
+
+    public static FormatTemplate of(String format) {
+        FormatTemplate cached = CACHE.get(format);
+        if (cached != null) {
+            return cached;
+        }
+        if (CACHE.size() >= CACHE_LIMIT) {
+            CACHE.clear();
+        }
+        FormatTemplate compiled = compile(format);
+        CACHE.put(format, compiled);
+        return compiled;
+    }
+
+    private static FormatTemplate compile(String format) {
+        List<Segment> segments = new ArrayList<>();
+        int last = 0;
+        int i = format.indexOf('{');
+        while (i >= 0) {
+            int tokenIndex = tokenAt(format, i);
+            if (tokenIndex >= 0) {
+                String token = TOKENS[tokenIndex];
+                if (i > last) {
+                    segments.add(new Segment(format.substring(last, i), null, -1));
+                }
+                segments.add(new Segment(null, token, tokenIndex));
+                last = i + token.length();
+                i = format.indexOf('{', last);
+            } else {
+                i = format.indexOf('{', i + 1);
+            }
+        }
+        if (last < format.length()) {
+            segments.add(new Segment(format.substring(last), null, -1));
+        }
+        return new FormatTemplate(Collections.unmodifiableList(segments));
+    }
+
+    private static int tokenAt(String format, int index) {
+        for (int i = 0; i < TOKENS.length; i++) {
+            if (format.startsWith(TOKENS[i], index)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,184 @@
+package com.werchat.format;
+
+import com.hypixel.hytale.server.core.Message;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds gradient-colored chat text shared by chat rendering, nickname caches and command previews.
+ * Interpolated color tables are cached per (start, end, length), and neighbouring characters that
+ * land on the same color are emitted as one run instead of one node per character.
+ */
+public final class GradientRenderer {
+
+    private static final int TABLE_CACHE_CAPACITY = 256;
+    private static final int MAX_CACHED_LENGTH = 0xFFFF;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    // Access-ordered LRU, guarded by its own monitor
+    private static final Map<Long, String[]> TABLE_CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String[]> eldest) {
+            return size() > TABLE_CACHE_CAPACITY;
+        }
+    };
+
+    private GradientRenderer() {
+    }
+
+    /**
+     * Create a gradient-colored message where each character transitions from startColor to endColor.
+     * linkTargets is an optional per-character index of click targets (null = no links).
+     */
+    public static Message render(String text, String startColor, String endColor,
+                                 boolean bold, boolean italic, String[] linkTargets) {
+        return spans(text, startColor, endColor, bold, italic, linkTargets).toMessage();
+    }
+
+    /**
+     * Gradient as styled spans, one per run of equal color and link target.
+     */
+    public static StyledText spans(String text, String startColor, String endColor,
+                                   boolean bold, boolean italic, String[] linkTargets) {
+        if (text == null || text.isEmpty()) {
+            return StyledText.EMPTY;
+        }
+        if (text.length() == 1) {
+            return StyledText.of(text, startColor, bold, italic, null);
+        }
+
+        int startRgb = parseRgb(startColor);
+        int endRgb = parseRgb(endColor);
+        if (startRgb < 0 || endRgb < 0) {
+            return StyledText.of(text, startColor, bold, italic, null);
+        }
+
+        int len = text.length();
+        String[] colors = colorTable(startRgb, endRgb, len);
+        StyledText.Builder runs = StyledText.builder();
+
+        int runStart = 0;
+        for (int i = 1; i <= len; i++) {
+            if (i < len && !isRunBoundary(text, colors, linkTargets, runStart, i)) {
+                continue;
+            }
+            String linkTarget = linkTargets == null ? null : linkTargets[runStart];
+            runs.append(text.substring(runStart, i), colors[runStart], bold, italic, linkTarget);
+            runStart = i;
+        }
+        return runs.build();
+    }
+
+    public static Message styledPart(String text, String color, boolean bold, boolean italic, String linkTarget) {
+        Message part = Message.raw(text).color(color);
+        if (bold) {
+            part = part.bold(true);
+        }
+        if (italic) {
+            part = part.italic(true);
+        }
+        if (linkTarget != null) {
+            part = part.link(linkTarget);
+        }
+        return part;
+    }
+
+    /**
+     * Number of cached color tables, for diagnostics.
+     */
+    public static int cachedTableCount() {
+        synchronized (TABLE_CACHE) {
+            return TABLE_CACHE.size();
+        }
+    }
+
+    private static boolean isRunBoundary(String text, String[] colors, String[] linkTargets, int runStart, int i) {
+        // Never split a surrogate pair across two runs
+        if (Character.isLowSurrogate(text.charAt(i)) && Character.isHighSurrogate(text.charAt(i - 1))) {
+            return false;
+        }
+        // Table entries for equal neighbouring colors share one instance
+        if (colors[i] != colors[runStart]) {
+            return true;
+        }
+        return linkTargets != null && !Objects.equals(linkTargets[i], linkTargets[runStart]);
+    }
+
+    /**
+     * Returns the per-character color table for a gradient. Tables are shared and must not be modified.
+     */
+    static String[] colorTable(int startRgb, int endRgb, int len) {
+        if (len > MAX_CACHED_LENGTH) {
+            return computeTable(startRgb, endRgb, len);
+        }
+
+        Long key = ((long) startRgb << 40) | ((long) endRgb << 16) | len;
+        synchronized (TABLE_CACHE) {
+            String[] cached = TABLE_CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        String[] table = computeTable(startRgb, endRgb, len);
+        synchronized (TABLE_CACHE) {
+            TABLE_CACHE.put(key, table);
+        }
+        return table;
+    }
+
+    private static String[] computeTable(int startRgb, int endRgb, int len) {
+        int startR = (startRgb >> 16) & 0xFF;
+        int startG = (startRgb >> 8) & 0xFF;
+        int startB = startRgb & 0xFF;
+        int endR = (endRgb >> 16) & 0xFF;
+        int endG = (endRgb >> 8) & 0xFF;
+        int endB = endRgb & 0xFF;
+
+        String[] table = new String[len];
+        int previousRgb = -1;
+        for (int i = 0; i < len; i++) {
+            float ratio = len == 1 ? 0f : (float) i / (len - 1);
+            int r = Math.round(startR + (endR - startR) * ratio);
+            int g = Math.round(startG + (endG - startG) * ratio);
+            int b = Math.round(startB + (endB - startB) * ratio);
+            int rgb = (r << 16) | (g << 8) | b;
+            table[i] = rgb == previousRgb ? table[i - 1] : toHex(rgb);
+            previousRgb = rgb;
+        }
+        return table;
+    }
+
+    /**
+     * Parses "#RRGGBB" into a packed RGB int, or -1 when the input is not a 6-digit hex color.
+     */
+    public static int parseRgb(String hex) {
+        if (hex == null || hex.length() != 7 || hex.charAt(0) != '#') {
+            return -1;
+        }
+        int rgb = 0;
+        for (int i = 1; i < 7; i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            rgb = (rgb << 4) | digit;
+        }
+        return rgb;
+    }
+
+    /**
+     * Formats a packed RGB int as "#RRGGBB".
+     */
+    public static String toHex(int rgb) {
+        char[] out = new char[7];
+        out[0] = '#';
+        for (int i = 6; i >= 1; i--) {
+            out[i] = HEX_DIGITS[rgb & 0xF];
+            rgb >>= 4;
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,64 @@
+package com.werchat.format;
+
+import com.hypixel.hytale.server.core.Message;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Turns the styled parts of a rendered chat line into a Message. When enabled, the parts are
+ * flattened into one join and neighbouring spans with the same style are merged; otherwise each
+ * part keeps its own join as before. Node counts are tracked either way for /ch stats.
+ */
+public final class MessageOptimizer {
+
+    // Scratch builder per delivering thread; build() copies the spans out
+    private static final ThreadLocal<StyledText.Builder> SCRATCH = ThreadLocal.withInitial(StyledText::compactingBuilder);
+
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder nodesIn = new LongAdder();
+    private final LongAdder nodesOut = new LongAdder();
+
+    public Message render(List<StyledText> parts, boolean enabled) {
+        int partCount = parts.size();
+        int nestedNodes = partCount > 1 ? 1 : 0;
+        for (int i = 0; i < partCount; i++) {
+            nestedNodes += parts.get(i).nodeCount();
+        }
+        renders.increment();
+        nodesIn.add(nestedNodes);
+
+        if (!enabled) {
+            nodesOut.add(nestedNodes);
+            return nested(parts);
+        }
+
+        StyledText.Builder flat = SCRATCH.get();
+        flat.clear();
+        for (int i = 0; i < partCount; i++) {
+            flat.append(parts.get(i));
+        }
+        StyledText compacted = flat.build();
+        flat.clear();
+        nodesOut.add(compacted.nodeCount());
+        return compacted.toMessage();
+    }
+
+    private static Message nested(List<StyledText> parts) {
+        if (parts.isEmpty()) {
+            return Message.raw("");
+        }
+        if (parts.size() == 1) {
+            return parts.get(0).toMessage();
+        }
+        Message[] messages = new Message[parts.size()];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = parts.get(i).toMessage();
+        }
+        return Message.join(messages);
+    }
+
+    public long getRenders() { return renders.sum(); }
+    public long getNodesIn() { return nodesIn.sum(); }
+    public long getNodesOut() { return nodesOut.sum(); }
+}
@@ -0,0 +1,23 @@
+package com.werchat.format;
+
+import com.hypixel.hytale.server.core.Message;
+
+/**
+ * Pre-rendered sender name for channel chat, rebuilt only when a player's nickname styling changes.
+ */
+public record SenderProfile(String displayName, String color, String gradientEnd, StyledText spans) {
+
+    private static final String DEFAULT_COLOR = "#FFFFFF";
+
+    public static SenderProfile render(String displayName, String nickColor, String gradientEnd) {
+        String color = nickColor != null ? nickColor : DEFAULT_COLOR;
+        StyledText spans = gradientEnd != null
+            ? GradientRenderer.spans(displayName, color, gradientEnd, false, false, null)
+            : StyledText.of(displayName, color);
+        return new SenderProfile(displayName, color, gradientEnd, spans);
+    }
+
+    public Message rendered() {
+        return spans.toMessage();
+    }
+}
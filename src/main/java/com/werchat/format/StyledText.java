@@ -0,0 +1,173 @@
+package com.werchat.format;
+
+import com.hypixel.hytale.server.core.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable run of styled text spans, the form chat rendering builds before it creates Message trees.
+ * The Message for a StyledText is built once and reused.
+ */
+public final class StyledText {
+
+    public static final StyledText EMPTY = new StyledText(List.of());
+
+    /**
+     * One piece of text with a single style. link is null for plain text.
+     */
+    public record Span(String text, String color, boolean bold, boolean italic, String link) {
+        public boolean sameStyle(Span other) {
+            return bold == other.bold
+                && italic == other.italic
+                && Objects.equals(color, other.color)
+                && Objects.equals(link, other.link);
+        }
+
+        public Message toMessage() {
+            return GradientRenderer.styledPart(text, color, bold, italic, link);
+        }
+    }
+
+    private final List<Span> spans;
+    private volatile Message message;
+
+    private StyledText(List<Span> spans) {
+        this.spans = spans;
+    }
+
+    public static StyledText of(String text, String color) {
+        return of(text, color, false, false, null);
+    }
+
+    public static StyledText of(String text, String color, boolean bold, boolean italic, String link) {
+        if (text == null || text.isEmpty()) {
+            return EMPTY;
+        }
+        return new StyledText(List.of(new Span(text, color, bold, italic, link)));
+    }
+
+    public static Builder builder() {
+        return new Builder(false);
+    }
+
+    /**
+     * Builder that merges each span into the previous one when their styles match.
+     */
+    public static Builder compactingBuilder() {
+        return new Builder(true);
+    }
+
+    public List<Span> spans() {
+        return spans;
+    }
+
+    public boolean isEmpty() {
+        return spans.isEmpty();
+    }
+
+    /**
+     * Number of Message nodes {@link #toMessage()} produces: one per span plus the join.
+     */
+    public int nodeCount() {
+        return spans.size() <= 1 ? 1 : spans.size() + 1;
+    }
+
+    /**
+     * A single styled part, or one flat join of all spans.
+     */
+    public Message toMessage() {
+        Message built = message;
+        if (built == null) {
+            built = build();
+            message = built;
+        }
+        return built;
+    }
+
+    private Message build() {
+        if (spans.isEmpty()) {
+            return Message.raw("");
+        }
+        if (spans.size() == 1) {
+            return spans.get(0).toMessage();
+        }
+        Message[] parts = new Message[spans.size()];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = spans.get(i).toMessage();
+        }
+        return Message.join(parts);
+    }
+
+    /**
+     * Collects spans; merged text is accumulated in a reusable buffer, so a builder can be
+     * {@link #clear() cleared} and reused as per-thread scratch space.
+     */
+    public static final class Builder {
+        private final boolean compact;
+        private final List<Span> spans = new ArrayList<>();
+        private final StringBuilder pendingText = new StringBuilder();
+        private Span pending;
+        private boolean pendingMerged;
+
+        private Builder(boolean compact) {
+            this.compact = compact;
+        }
+
+        public Builder append(String text, String color, boolean bold, boolean italic, String link) {
+            if (text == null || text.isEmpty()) {
+                return this;
+            }
+            return append(new Span(text, color, bold, italic, link));
+        }
+
+        public Builder append(Span span) {
+            if (pending != null && compact && pending.sameStyle(span)) {
+                if (!pendingMerged) {
+                    pendingText.setLength(0);
+                    pendingText.append(pending.text());
+                    pendingMerged = true;
+                }
+                pendingText.append(span.text());
+                return this;
+            }
+            flushPending();
+            pending = span;
+            return this;
+        }
+
+        public Builder append(StyledText text) {
+            List<Span> textSpans = text.spans;
+            for (int i = 0; i < textSpans.size(); i++) {
+                append(textSpans.get(i));
+            }
+            return this;
+        }
+
+        public StyledText build() {
+            flushPending();
+            if (spans.isEmpty()) {
+                return EMPTY;
+            }
+            return new StyledText(List.copyOf(spans));
+        }
+
+        public void clear() {
+            spans.clear();
+            pending = null;
+            pendingMerged = false;
+        }
+
+        private void flushPending() {
+            if (pending == null) {
+                return;
+            }
+            spans.add(pendingMerged
+                ? new Span(pendingText.toString(), pending.color(), pending.bold(), pending.italic(), pending.link())
+                : pending);
+            pending = null;
+            pendingMerged = false;
+        }
+    }
+}
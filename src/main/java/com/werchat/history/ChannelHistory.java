@@ -0,0 +1,257 @@
+package com.werchat.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * History of one channel: an ordered list of segments, the newest of which receives appends.
+ */
+final class ChannelHistory {
+
+    private final Path directory;
+    private final List<HistorySegment> segments = new CopyOnWriteArrayList<>();
+
+    // Writer thread state
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+    private long[] timestamps = new long[64];
+    private int[] recordOffsets = new int[64];
+
+    private ChannelHistory(Path directory) {
+        this.directory = directory;
+    }
+
+    static ChannelHistory open(Path directory) throws IOException {
+        ChannelHistory history = new ChannelHistory(directory);
+        if (Files.isDirectory(directory)) {
+            List<Path> files;
+            try (Stream<Path> list = Files.list(directory)) {
+                files = list.filter(path -> path.getFileName().toString().matches("\\d+\\.seg"))
+                    .sorted(Comparator.comparingLong(ChannelHistory::baseTimestampOf))
+                    .toList();
+            }
+            for (int i = 0; i < files.size(); i++) {
+                HistorySegment segment = HistorySegment.open(files.get(i));
+                if (i < files.size() - 1) {
+                    segment.seal();
+                }
+                history.segments.add(segment);
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Appends records in order (writer thread only), starting a new segment once the active one
+     * reaches segmentBytes. Records whose timestamp had to be raised are replaced in the list, so it
+     * holds the records exactly as stored afterwards.
+     */
+    void append(List<HistoryRecord> records, long segmentBytes) throws IOException {
+        HistorySegment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        long lastTimestamp = active != null ? active.lastTimestamp() : Long.MIN_VALUE;
+
+        scratch.clear();
+        int count = 0;
+        for (int i = 0; i < records.size(); i++) {
+            HistoryRecord record = records.get(i);
+            if (active == null || active.committedSize() >= segmentBytes) {
+                flush(active, count, segmentBytes);
+                count = 0;
+                if (active != null) {
+                    active.seal();
+                }
+                Files.createDirectories(directory);
+                active = HistorySegment.create(directory, Math.max(record.timestamp(), lastTimestamp));
+                segments.add(active);
+            }
+
+            // Keep timestamps non-decreasing so the time index stays sorted
+            long timestamp = Math.max(record.timestamp(), lastTimestamp);
+            lastTimestamp = timestamp;
+            if (timestamp != record.timestamp()) {
+                records.set(i, new HistoryRecord(timestamp, record.senderId(), record.senderName(), record.message()));
+            }
+            encode(record, timestamp, count);
+            count++;
+        }
+        flush(active, count, segmentBytes);
+    }
+
+    List<HistoryRecord> since(long fromTimestamp, int limit) throws IOException {
+        List<HistoryRecord> result = new ArrayList<>();
+        List<HistorySegment> snapshot = List.copyOf(segments);
+
+        int first = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.get(i).baseTimestamp() <= fromTimestamp) {
+                first = i;
+            }
+        }
+
+        for (int i = first; i < snapshot.size() && result.size() < limit; i++) {
+            HistorySegment segment = snapshot.get(i);
+            if (segment.lastTimestamp() < fromTimestamp) {
+                continue;
+            }
+            ByteBuffer buffer = segment.view();
+            buffer.position((int) segment.offsetFor(fromTimestamp, buffer.limit()));
+            HistoryRecord record;
+            while (result.size() < limit && (record = HistorySegment.read(buffer)) != null) {
+                if (record.timestamp() >= fromTimestamp) {
+                    result.add(record);
+                }
+            }
+        }
+        return result;
+    }
+
+    List<HistoryRecord> latest(int limit) throws IOException {
+        ArrayDeque<HistoryRecord> result = new ArrayDeque<>(limit);
+        List<HistorySegment> snapshot = List.copyOf(segments);
+
+        for (int i = snapshot.size() - 1; i >= 0 && result.size() < limit; i--) {
+            List<HistoryRecord> tail = tail(snapshot.get(i), limit - result.size());
+            for (int j = tail.size() - 1; j >= 0; j--) {
+                result.addFirst(tail.get(j));
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Reads every record older than beforeTimestamp, oldest first, in chunks of up to chunkSize.
+     * Stops early when the consumer returns false.
+     */
+    void scan(long beforeTimestamp, int chunkSize, Predicate<List<HistoryRecord>> consumer) throws IOException {
+        List<HistoryRecord> chunk = new ArrayList<>(chunkSize);
+        for (HistorySegment segment : List.copyOf(segments)) {
+            if (segment.baseTimestamp() >= beforeTimestamp) {
+                break;
+            }
+            ByteBuffer buffer = segment.view();
+            HistoryRecord record;
+            while ((record = HistorySegment.read(buffer)) != null) {
+                if (record.timestamp() >= beforeTimestamp) {
+                    break;
+                }
+                chunk.add(record);
+                if (chunk.size() == chunkSize) {
+                    if (!consumer.test(chunk)) {
+                        return;
+                    }
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            consumer.test(chunk);
+        }
+    }
+
+    /**
+     * Deletes sealed segments whose newest record is older than the cutoff.
+     * Files that cannot be deleted yet (e.g. still mapped on Windows) are retried on the next start.
+     */
+    void prune(long cutoffTimestamp) {
+        for (int i = 0; i < segments.size() - 1; i++) {
+            HistorySegment segment = segments.get(i);
+            if (segment.lastTimestamp() < cutoffTimestamp) {
+                segments.remove(i);
+                i--;
+                try {
+                    segment.delete();
+                } catch (IOException ignored) {
+                    // Left on disk until the next prune after a restart
+                }
+            }
+        }
+    }
+
+    void close() {
+        for (HistorySegment segment : segments) {
+            segment.close();
+        }
+    }
+
+    private List<HistoryRecord> tail(HistorySegment segment, int limit) throws IOException {
+        ByteBuffer buffer = segment.view();
+        int end = buffer.limit();
+        int entriesBack = (limit + HistorySegment.INDEX_INTERVAL - 1) / HistorySegment.INDEX_INTERVAL;
+
+        while (true) {
+            long start = segment.offsetFromEnd(entriesBack, end);
+            ArrayDeque<HistoryRecord> window = new ArrayDeque<>(limit);
+            buffer.position((int) start);
+            HistoryRecord record;
+            while ((record = HistorySegment.read(buffer)) != null) {
+                if (window.size() == limit) {
+                    window.removeFirst();
+                }
+                window.addLast(record);
+            }
+            // Index gaps (e.g. after a crash) can leave too few records after the chosen entry
+            if (window.size() >= limit || start == 0) {
+                return new ArrayList<>(window);
+            }
+            entriesBack = Math.min(segment.indexSize(), entriesBack * 2);
+        }
+    }
+
+    private void encode(HistoryRecord record, long timestamp, int index) {
+        byte[] name = truncate(record.senderName().getBytes(StandardCharsets.UTF_8), 0xFFFF);
+        byte[] message = record.message().getBytes(StandardCharsets.UTF_8);
+        int length = HistorySegment.HEADER_BYTES + name.length + message.length;
+        ensureCapacity(4 + length, index);
+
+        recordOffsets[index] = scratch.position();
+        timestamps[index] = timestamp;
+        scratch.putInt(length)
+            .putLong(timestamp)
+            .putLong(record.senderId().getMostSignificantBits())
+            .putLong(record.senderId().getLeastSignificantBits())
+            .putShort((short) name.length)
+            .put(name)
+            .put(message);
+    }
+
+    private void flush(HistorySegment segment, int count, long segmentBytes) throws IOException {
+        if (segment == null || count == 0) {
+            return;
+        }
+        scratch.flip();
+        segment.append(scratch, timestamps, recordOffsets, count, segmentBytes);
+        scratch.clear();
+    }
+
+    private void ensureCapacity(int bytes, int index) {
+        if (scratch.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + bytes));
+            scratch.flip();
+            larger.put(scratch);
+            scratch = larger;
+        }
+        if (index == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, index * 2);
+            recordOffsets = Arrays.copyOf(recordOffsets, index * 2);
+        }
+    }
+
+    private static byte[] truncate(byte[] bytes, int max) {
+        return bytes.length <= max ? bytes : Arrays.copyOf(bytes, max);
+    }
+
+    private static long baseTimestampOf(Path path) {
+        String fileName = path.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - ".seg".length()));
+    }
+}
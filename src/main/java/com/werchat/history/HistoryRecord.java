@@ -0,0 +1,9 @@
+package com.werchat.history;
+
+import java.util.UUID;
+
+/**
+ * One stored channel chat line.
+ */
+public record HistoryRecord(long timestamp, UUID senderId, String senderName, String message) {
+}
@@ -0,0 +1,340 @@
+package com.werchat.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over stored channel chat: each term maps to the ascending ids of the
+ * documents (stored lines) containing it. Documents keep only their channel, time and sender in
+ * primitive arrays; message text stays in the history segments and is read back for hits.
+ */
+final class HistorySearchIndex {
+
+    static final int MIN_TERM_LENGTH = 2;
+    static final int MAX_TERM_LENGTH = 40;
+
+    /**
+     * A matching document: where to find the stored line.
+     */
+    record DocRef(String channelKey, long timestamp, UUID senderId) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<String, Integer> channelIds = new HashMap<>();
+    private final List<String> channelKeys = new ArrayList<>();
+    private final Map<String, UUID> sendersByName = new HashMap<>();
+
+    private int[] docChannels = new int[1024];
+    private long[] docTimes = new long[1024];
+    private long[] docSenderMost = new long[1024];
+    private long[] docSenderLeast = new long[1024];
+    private int docCount;
+
+    void add(String channelKey, List<HistoryRecord> records) {
+        lock.writeLock().lock();
+        try {
+            int channelId = channelIds.computeIfAbsent(channelKey, key -> {
+                channelKeys.add(key);
+                return channelKeys.size() - 1;
+            });
+            for (HistoryRecord record : records) {
+                int doc = newDocument(channelId, record);
+                for (String term : terms(record.message())) {
+                    postings.computeIfAbsent(term, ignored -> new PostingList()).add(doc);
+                }
+                sendersByName.put(record.senderName().toLowerCase(Locale.ROOT), record.senderId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops documents older than the cutoff, renumbering the rest and compacting their postings,
+     * so the index only holds lines still within retention. Terms left without documents go too.
+     */
+    void prune(long cutoffTimestamp) {
+        lock.writeLock().lock();
+        try {
+            int[] remap = new int[docCount];
+            int kept = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (docTimes[doc] < cutoffTimestamp) {
+                    remap[doc] = -1;
+                    continue;
+                }
+                remap[doc] = kept;
+                docChannels[kept] = docChannels[doc];
+                docTimes[kept] = docTimes[doc];
+                docSenderMost[kept] = docSenderMost[doc];
+                docSenderLeast[kept] = docSenderLeast[doc];
+                kept++;
+            }
+            if (kept == docCount) {
+                return;
+            }
+            docCount = kept;
+            // Renumbering keeps the order, so each list stays ascending
+            postings.values().removeIf(list -> list.remap(remap) == 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Documents containing every term, newest first, at most limit of them.
+     *
+     * @param senderId    only lines from this sender, or null for anyone
+     * @param channelKeys only these channels, or null for all
+     * @param since       only lines at or after this time
+     * @return the hits plus the total number of matches
+     */
+    SearchMatches search(List<String> terms, UUID senderId, Set<String> channelKeys, long since, int limit) {
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = new PostingList[terms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(terms.get(i));
+                if (lists[i] == null) {
+                    return SearchMatches.NONE;
+                }
+            }
+            if (lists.length == 0) {
+                return SearchMatches.NONE;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+            boolean[] allowedChannels = null;
+            if (channelKeys != null) {
+                allowedChannels = new boolean[this.channelKeys.size()];
+                for (String key : channelKeys) {
+                    Integer id = channelIds.get(key);
+                    if (id != null) {
+                        allowedChannels[id] = true;
+                    }
+                }
+            }
+
+            // Walk the rarest term's postings; the others are probed with a forward-only cursor
+            int[] cursors = new int[lists.length];
+            TopDocs top = new TopDocs(limit);
+            int matches = 0;
+            PostingList rarest = lists[0];
+            for (int p = 0; p < rarest.size; p++) {
+                int doc = rarest.docs[p];
+                if (docTimes[doc] < since) {
+                    continue;
+                }
+                if (allowedChannels != null && !allowedChannels[docChannels[doc]]) {
+                    continue;
+                }
+                if (senderId != null && (docSenderMost[doc] != senderId.getMostSignificantBits()
+                    || docSenderLeast[doc] != senderId.getLeastSignificantBits())) {
+                    continue;
+                }
+                if (!containsAll(lists, cursors, doc)) {
+                    continue;
+                }
+                matches++;
+                top.offer(doc, docTimes[doc]);
+            }
+
+            int[] docs = top.sortedNewestFirst();
+            List<DocRef> hits = new ArrayList<>(docs.length);
+            for (int doc : docs) {
+                hits.add(new DocRef(this.channelKeys.get(docChannels[doc]), docTimes[doc],
+                    new UUID(docSenderMost[doc], docSenderLeast[doc])));
+            }
+            return new SearchMatches(hits, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The sender last seen under this name, or null.
+     */
+    UUID findSender(String name) {
+        lock.readLock().lock();
+        try {
+            return sendersByName.get(name.toLowerCase(Locale.ROOT));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int documentCount() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Distinct lowercase letter/digit runs of a message, in order of appearance. Runs shorter than
+     * {@link #MIN_TERM_LENGTH} are skipped and long runs are cut at {@link #MAX_TERM_LENGTH}.
+     */
+    static List<String> terms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_TERM_LENGTH) {
+                    terms.add(text.substring(start, Math.min(i, start + MAX_TERM_LENGTH)).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    private int newDocument(int channelId, HistoryRecord record) {
+        if (docCount == docTimes.length) {
+            int capacity = docCount * 2;
+            docChannels = Arrays.copyOf(docChannels, capacity);
+            docTimes = Arrays.copyOf(docTimes, capacity);
+            docSenderMost = Arrays.copyOf(docSenderMost, capacity);
+            docSenderLeast = Arrays.copyOf(docSenderLeast, capacity);
+        }
+        int doc = docCount++;
+        docChannels[doc] = channelId;
+        docTimes[doc] = record.timestamp();
+        docSenderMost[doc] = record.senderId().getMostSignificantBits();
+        docSenderLeast[doc] = record.senderId().getLeastSignificantBits();
+        return doc;
+    }
+
+    private static boolean containsAll(PostingList[] lists, int[] cursors, int doc) {
+        for (int i = 1; i < lists.length; i++) {
+            PostingList list = lists[i];
+            int found = Arrays.binarySearch(list.docs, cursors[i], list.size, doc);
+            if (found < 0) {
+                cursors[i] = -found - 1;
+                return false;
+            }
+            cursors[i] = found;
+        }
+        return true;
+    }
+
+    record SearchMatches(List<DocRef> hits, int total) {
+        static final SearchMatches NONE = new SearchMatches(List.of(), 0);
+    }
+
+    /**
+     * Ascending document ids for one term. Documents are added in id order, so a repeat of the
+     * last id (the term occurring twice in one line) is the only duplicate to skip.
+     */
+    private static final class PostingList {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        /**
+         * Renumbers the documents, dropping those mapped to -1. Returns the new size.
+         */
+        int remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[kept++] = doc;
+                }
+            }
+            size = kept;
+            if (size > 0 && size < docs.length / 4) {
+                docs = Arrays.copyOf(docs, Math.max(4, size * 2));
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Keeps the limit newest documents seen so far.
+     */
+    private static final class TopDocs {
+        private final int[] docs;
+        private final long[] times;
+        private int size;
+        private int oldest;
+
+        TopDocs(int limit) {
+            this.docs = new int[Math.max(0, limit)];
+            this.times = new long[docs.length];
+        }
+
+        void offer(int doc, long time) {
+            if (docs.length == 0) {
+                return;
+            }
+            if (size < docs.length) {
+                docs[size] = doc;
+                times[size] = time;
+                size++;
+                if (size == docs.length) {
+                    findOldest();
+                }
+                return;
+            }
+            if (time > times[oldest]) {
+                docs[oldest] = doc;
+                times[oldest] = time;
+                findOldest();
+            }
+        }
+
+        int[] sortedNewestFirst() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(times[b], times[a]));
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = docs[order[i]];
+            }
+            return result;
+        }
+
+        private void findOldest() {
+            oldest = 0;
+            for (int i = 1; i < size; i++) {
+                if (times[i] < times[oldest]) {
+                    oldest = i;
+                }
+            }
+        }
+    }
+}
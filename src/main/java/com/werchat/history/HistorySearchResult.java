@@ -0,0 +1,18 @@
+package com.werchat.history;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Result of a history search: the newest hits, how many lines matched in total, and how long the
+ * query took.
+ */
+public record HistorySearchResult(List<Hit> hits, int total, long elapsedNanos) {
+
+    public static final HistorySearchResult EMPTY = new HistorySearchResult(List.of(), 0, 0);
+
+    /**
+     * One matching line and the id of the channel it was sent in.
+     */
+    public record Hit(UUID channelId, HistoryRecord record) {}
+}
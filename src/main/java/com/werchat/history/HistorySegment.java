@@ -0,0 +1,342 @@
+package com.werchat.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * One append-only segment file of length-prefixed records, with a sparse time-to-offset index
+ * kept in memory and mirrored to a sidecar .idx file. Only the history writer thread appends.
+ * <p>
+ * The active segment's file is preallocated to the segment size and mapped once at that size;
+ * readers share the mapping and stop at the committed size. Sealing trims the file back to its
+ * records. A crash can leave the zero-filled tail behind, which recovery cuts off like any other
+ * incomplete record.
+ * <p>
+ * Record layout: int payloadLength, long timestamp, long senderMsb, long senderLsb,
+ * short nameLength, name (UTF-8), message (UTF-8, rest of payload).
+ */
+final class HistorySegment {
+
+    static final int INDEX_INTERVAL = 64;
+    static final int HEADER_BYTES = 8 + 8 + 8 + 2;
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final long baseTimestamp;
+
+    // Sparse index, guarded by this
+    private long[] indexTimestamps = new long[16];
+    private long[] indexOffsets = new long[16];
+    private int indexSize;
+
+    private volatile long committedSize;
+    private volatile long lastTimestamp;
+    private volatile boolean sealed;
+    private MappedByteBuffer sealedView;
+    // Mapping of the active file at its preallocated size, guarded by this
+    private MappedByteBuffer activeView;
+    private long activeViewSize;
+    private volatile long allocatedSize;
+    private int recordCount;
+
+    // Writer thread state
+    private FileChannel dataChannel;
+    private FileChannel indexChannel;
+
+    private HistorySegment(Path dataFile, Path indexFile, long baseTimestamp) {
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+        this.baseTimestamp = baseTimestamp;
+        this.lastTimestamp = baseTimestamp;
+    }
+
+    static HistorySegment create(Path directory, long baseTimestamp) {
+        return new HistorySegment(directory.resolve(baseTimestamp + ".seg"), directory.resolve(baseTimestamp + ".idx"), baseTimestamp);
+    }
+
+    /**
+     * Loads an existing segment: reads its index, then scans the records after the last indexed
+     * offset to count them and to cut off a partially written tail.
+     */
+    static HistorySegment open(Path dataFile) throws IOException {
+        String fileName = dataFile.getFileName().toString();
+        long baseTimestamp = Long.parseLong(fileName.substring(0, fileName.length() - ".seg".length()));
+        HistorySegment segment = new HistorySegment(dataFile, dataFile.resolveSibling(baseTimestamp + ".idx"), baseTimestamp);
+        segment.recover();
+        return segment;
+    }
+
+    long baseTimestamp() { return baseTimestamp; }
+    long lastTimestamp() { return lastTimestamp; }
+    long committedSize() { return committedSize; }
+    int recordCount() { return recordCount; }
+    Path dataFile() { return dataFile; }
+
+    /**
+     * Appends encoded records (writer thread only). Timestamps must be non-decreasing. The file is
+     * grown to at least segmentBytes up front, so readers can keep one mapping of it.
+     */
+    void append(ByteBuffer encoded, long[] timestamps, int[] recordOffsets, int count, long segmentBytes) throws IOException {
+        if (dataChannel == null) {
+            dataChannel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            allocatedSize = dataChannel.size();
+        }
+
+        long base = committedSize;
+        long needed = base + encoded.remaining();
+        if (needed > allocatedSize) {
+            long size = Math.max(needed, segmentBytes);
+            dataChannel.write(ByteBuffer.allocate(1), size - 1);
+            allocatedSize = size;
+        }
+        long position = base;
+        while (encoded.hasRemaining()) {
+            position += dataChannel.write(encoded, position);
+        }
+
+        ByteBuffer indexEntries = null;
+        for (int i = 0; i < count; i++) {
+            if ((recordCount + i) % INDEX_INTERVAL == 0) {
+                if (indexEntries == null) {
+                    indexEntries = ByteBuffer.allocate(16 * ((count / INDEX_INTERVAL) + 1));
+                }
+                long offset = base + recordOffsets[i];
+                indexEntries.putLong(timestamps[i]).putLong(offset);
+                addIndexEntry(timestamps[i], offset);
+            }
+        }
+        if (indexEntries != null) {
+            indexEntries.flip();
+            while (indexEntries.hasRemaining()) {
+                indexChannel.write(indexEntries);
+            }
+        }
+
+        recordCount += count;
+        lastTimestamp = timestamps[count - 1];
+        committedSize = position;
+    }
+
+    /**
+     * Stop appending; the file is flushed and later reads share one mapping.
+     */
+    void seal() {
+        closeWriter(true);
+        synchronized (this) {
+            sealed = true;
+            activeView = null;
+        }
+    }
+
+    void close() {
+        closeWriter(true);
+    }
+
+    void delete() throws IOException {
+        closeWriter(false);
+        synchronized (this) {
+            sealedView = null;
+            activeView = null;
+        }
+        Files.deleteIfExists(indexFile);
+        Files.deleteIfExists(dataFile);
+    }
+
+    /**
+     * Offset to start scanning from to find the first record at or after the given time.
+     */
+    synchronized long offsetFor(long timestamp, long limit) {
+        int low = 0;
+        int high = indexSize - 1;
+        long offset = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (indexTimestamps[mid] <= timestamp && indexOffsets[mid] < limit) {
+                offset = indexOffsets[mid];
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Offset of the index entry n entries before the last one (clamped to the first record).
+     */
+    synchronized long offsetFromEnd(int entriesBack, long limit) {
+        int index = indexSize - 1 - entriesBack;
+        while (index > 0 && indexOffsets[index] >= limit) {
+            index--;
+        }
+        return index > 0 ? indexOffsets[index] : 0;
+    }
+
+    synchronized int indexSize() {
+        return indexSize;
+    }
+
+    /**
+     * Read-only view of the committed records.
+     */
+    ByteBuffer view() throws IOException {
+        if (sealed) {
+            synchronized (this) {
+                if (sealedView == null) {
+                    sealedView = map(committedSize);
+                }
+                return sealedView.duplicate();
+            }
+        }
+        long size = committedSize;
+        synchronized (this) {
+            // Remapped only when the file outgrew its preallocation
+            if (activeView == null || activeViewSize < size) {
+                activeViewSize = Math.max(size, allocatedSize);
+                activeView = map(activeViewSize);
+            }
+            ByteBuffer view = activeView.duplicate();
+            view.limit((int) size);
+            return view;
+        }
+    }
+
+    /**
+     * Reads the record at the buffer's position and advances past it, or returns null at the end.
+     */
+    static HistoryRecord read(ByteBuffer buffer) {
+        if (buffer.remaining() < 4) {
+            return null;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length < HEADER_BYTES || length > buffer.remaining() - 4) {
+            return null;
+        }
+        buffer.position(buffer.position() + 4);
+        long timestamp = buffer.getLong();
+        UUID senderId = new UUID(buffer.getLong(), buffer.getLong());
+        int nameLength = buffer.getShort() & 0xFFFF;
+        String name = readString(buffer, nameLength);
+        String message = readString(buffer, length - HEADER_BYTES - nameLength);
+        return new HistoryRecord(timestamp, senderId, name, message);
+    }
+
+    /**
+     * Skips the record at the buffer's position, returning its timestamp, or -1 at the end.
+     */
+    static long skip(ByteBuffer buffer) {
+        if (buffer.remaining() < 4) {
+            return -1;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length < HEADER_BYTES || length > buffer.remaining() - 4) {
+            return -1;
+        }
+        long timestamp = buffer.getLong(buffer.position() + 4);
+        buffer.position(buffer.position() + 4 + length);
+        return timestamp;
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private MappedByteBuffer map(long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private synchronized void addIndexEntry(long timestamp, long offset) {
+        if (indexSize == indexTimestamps.length) {
+            indexTimestamps = Arrays.copyOf(indexTimestamps, indexSize * 2);
+            indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+        }
+        indexTimestamps[indexSize] = timestamp;
+        indexOffsets[indexSize] = offset;
+        indexSize++;
+    }
+
+    private void recover() throws IOException {
+        long fileSize = Files.size(dataFile);
+
+        if (Files.exists(indexFile)) {
+            ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+            while (index.remaining() >= 16) {
+                long timestamp = index.getLong();
+                long offset = index.getLong();
+                if (offset >= fileSize || (indexSize > 0 && offset <= indexOffsets[indexSize - 1])) {
+                    break;
+                }
+                addIndexEntry(timestamp, offset);
+            }
+        }
+
+        long start = indexSize > 0 ? indexOffsets[indexSize - 1] : 0;
+        int tailRecords = 0;
+        long last = indexSize > 0 ? indexTimestamps[indexSize - 1] : baseTimestamp;
+        ByteBuffer buffer = map(fileSize);
+        buffer.position((int) start);
+        long timestamp;
+        while ((timestamp = skip(buffer)) >= 0) {
+            tailRecords++;
+            last = timestamp;
+        }
+
+        recordCount = Math.max(0, indexSize - 1) * INDEX_INTERVAL + tailRecords;
+        lastTimestamp = last;
+        committedSize = buffer.position();
+
+        if (committedSize < fileSize) {
+            // Drop a record that was only partially written before a crash
+            try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.WRITE)) {
+                channel.truncate(committedSize);
+            }
+        }
+
+        // Rewrite the index without entries past the recovered end
+        ByteBuffer rewritten = ByteBuffer.allocate(indexSize * 16);
+        for (int i = 0; i < indexSize; i++) {
+            rewritten.putLong(indexTimestamps[i]).putLong(indexOffsets[i]);
+        }
+        Files.write(indexFile, rewritten.array());
+    }
+
+    private void closeWriter(boolean force) {
+        try {
+            if (dataChannel != null) {
+                if (allocatedSize > committedSize) {
+                    // Trim the preallocated tail; if the file is still mapped (Windows), recovery trims it on the next start
+                    try {
+                        dataChannel.truncate(committedSize);
+                        allocatedSize = committedSize;
+                    } catch (IOException ignored) {
+                        // Zero-filled tail stays until the next open
+                    }
+                }
+                if (force) {
+                    dataChannel.force(false);
+                }
+                dataChannel.close();
+            }
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+        } catch (IOException ignored) {
+            // Best effort; the next open recovers from whatever reached the disk
+        }
+        dataChannel = null;
+        indexChannel = null;
+    }
+}
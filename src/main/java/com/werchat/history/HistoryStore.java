@@ -0,0 +1,356 @@
+package com.werchat.history;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.werchat.WerchatPlugin;
+import com.werchat.channels.Channel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+/**
+ * Persistent per-channel chat history. Chat threads hand lines to an unbounded lock-free queue
+ * and a dedicated writer thread appends them, so the broadcast path never waits on disk and,
+ * unlike the chat log ring, history never drops a line when chat outpaces the writer. Queries
+ * read memory-mapped segments. When search is enabled, stored lines are also added to an
+ * in-memory inverted index, which is rebuilt from the segments in the background at startup.
+ * <p>
+ * History is keyed by channel id, so it follows a channel through renames. Directories written
+ * under a channel's name by older versions are moved to its id on startup.
+ */
+public class HistoryStore {
+
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SHUTDOWN_JOIN_MILLIS = 5000;
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int INDEX_CHUNK_SIZE = 1024;
+    // Stored lines read back per hit while looking for the exact record
+    private static final int HIT_LOOKUP_WINDOW = 64;
+
+    private final WerchatPlugin plugin;
+    private final Path root;
+    private final boolean enabled;
+    private final Map<String, ChannelHistory> channels = new ConcurrentHashMap<>();
+    private final HistorySearchIndex searchIndex;
+    // Lines stored before this time are indexed by the startup rebuild, later ones as they are written
+    private final long indexCutoff = System.currentTimeMillis();
+    private volatile boolean indexReady;
+    private volatile boolean closed;
+
+    private record QueuedLine(Channel channel, HistoryRecord record) {}
+
+    private final Queue<QueuedLine> queue = new ConcurrentLinkedQueue<>();
+    private Thread writerThread;
+    private volatile boolean running;
+
+    // Writer thread state
+    private final Map<Channel, List<HistoryRecord>> pending = new LinkedHashMap<>();
+    private long lastPrune;
+
+    public HistoryStore(WerchatPlugin plugin) {
+        this.plugin = plugin;
+        this.root = plugin.getDataDirectory().resolve("history");
+        this.enabled = plugin.getConfig().isHistoryEnabled();
+        this.searchIndex = enabled && plugin.getConfig().isSearchEnabled() ? new HistorySearchIndex() : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isSearchEnabled() {
+        return searchIndex != null;
+    }
+
+    /**
+     * False while the startup rebuild is still indexing older lines.
+     */
+    public boolean isSearchReady() {
+        return indexReady;
+    }
+
+    /**
+     * Rebuilds the search index from the stored history of the given channels on a background thread.
+     */
+    public void startIndexing(Collection<Channel> channels) {
+        if (searchIndex == null) {
+            return;
+        }
+        List<Channel> toIndex = List.copyOf(channels);
+        Thread indexer = new Thread(() -> rebuildIndex(toIndex), "Werchat-HistoryIndex");
+        indexer.setDaemon(true);
+        indexer.start();
+    }
+
+    /**
+     * Starts the writer thread when history is enabled.
+     */
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::drainLoop, "Werchat-History");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues a channel line for storage. Never blocks and never drops the line.
+     */
+    public void append(Channel channel, PlayerRef sender, String message) {
+        if (!running) {
+            return;
+        }
+        queue.add(new QueuedLine(channel,
+            new HistoryRecord(System.currentTimeMillis(), sender.getUuid(), sender.getUsername(), message)));
+    }
+
+    /**
+     * Writes out everything still queued, then closes the segment files.
+     */
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(SHUTDOWN_JOIN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        while (true) {
+            pending.clear();
+            QueuedLine line;
+            int count = 0;
+            while (count < BATCH_SIZE && (line = queue.poll()) != null) {
+                pending.computeIfAbsent(line.channel(), ignored -> new ArrayList<>()).add(line.record());
+                count++;
+            }
+
+            if (count == 0) {
+                if (!running) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                write();
+            } catch (IOException | UncheckedIOException e) {
+                plugin.getLogger().at(Level.WARNING).log("Failed to store chat history: %s", e.getMessage());
+            }
+        }
+        close();
+    }
+
+    private void write() throws IOException {
+        long segmentBytes = plugin.getConfig().getHistorySegmentSizeMb() * 1024L * 1024L;
+        for (Map.Entry<Channel, List<HistoryRecord>> channel : pending.entrySet()) {
+            history(channel.getKey()).append(channel.getValue(), segmentBytes);
+            if (searchIndex != null) {
+                searchIndex.add(key(channel.getKey()), channel.getValue());
+            }
+        }
+        pending.clear();
+
+        long now = System.currentTimeMillis();
+        if (now - lastPrune >= PRUNE_INTERVAL_MILLIS) {
+            lastPrune = now;
+            prune(now);
+        }
+    }
+
+    /**
+     * Records at or after the given time, oldest first.
+     */
+    public List<HistoryRecord> since(Channel channel, long fromTimestamp, int limit) {
+        if (!enabled || channel == null || limit <= 0) {
+            return List.of();
+        }
+        try {
+            return history(channel).since(fromTimestamp, limit);
+        } catch (IOException | UncheckedIOException e) {
+            plugin.getLogger().at(Level.WARNING).log("Failed to read history for %s: %s", channel.getName(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * The most recent records, oldest first.
+     */
+    public List<HistoryRecord> latest(Channel channel, int limit) {
+        if (!enabled || channel == null || limit <= 0) {
+            return List.of();
+        }
+        try {
+            return history(channel).latest(limit);
+        } catch (IOException | UncheckedIOException e) {
+            plugin.getLogger().at(Level.WARNING).log("Failed to read history for %s: %s", channel.getName(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Lines containing every term, newest first.
+     *
+     * @param senderId   only lines from this sender, or null for anyone
+     * @param channelIds only these channels, or null for all channels
+     */
+    public HistorySearchResult search(List<String> terms, UUID senderId, Set<UUID> channelIds, long since, int limit) {
+        if (searchIndex == null || terms.isEmpty() || limit <= 0) {
+            return HistorySearchResult.EMPTY;
+        }
+        long started = System.nanoTime();
+        int retentionDays = plugin.getConfig().getHistoryRetentionDays();
+        if (retentionDays > 0) {
+            since = Math.max(since, System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        }
+
+        Set<String> channelKeys = null;
+        if (channelIds != null) {
+            channelKeys = new HashSet<>();
+            for (UUID channelId : channelIds) {
+                channelKeys.add(channelId.toString());
+            }
+        }
+        HistorySearchIndex.SearchMatches matches = searchIndex.search(terms, senderId, channelKeys, since, limit);
+        List<HistorySearchResult.Hit> hits = new ArrayList<>(matches.hits().size());
+        for (HistorySearchIndex.DocRef ref : matches.hits()) {
+            HistoryRecord record = findRecord(ref, terms);
+            if (record != null) {
+                hits.add(new HistorySearchResult.Hit(UUID.fromString(ref.channelKey()), record));
+            }
+        }
+        return new HistorySearchResult(hits, matches.total(), System.nanoTime() - started);
+    }
+
+    /**
+     * Splits a search query into index terms.
+     */
+    public static List<String> searchTerms(String query) {
+        return HistorySearchIndex.terms(query);
+    }
+
+    /**
+     * The sender who last chatted under this name, so searches can name offline players. Null if unknown.
+     */
+    public UUID findSender(String name) {
+        return searchIndex != null && name != null ? searchIndex.findSender(name) : null;
+    }
+
+    public int getIndexedLines() {
+        return searchIndex != null ? searchIndex.documentCount() : 0;
+    }
+
+    public int getIndexedTerms() {
+        return searchIndex != null ? searchIndex.termCount() : 0;
+    }
+
+    private void close() {
+        closed = true;
+        for (ChannelHistory history : channels.values()) {
+            history.close();
+        }
+    }
+
+    private void rebuildIndex(List<Channel> toIndex) {
+        long started = System.currentTimeMillis();
+        for (Channel channel : toIndex) {
+            String key = key(channel);
+            try {
+                history(channel).scan(indexCutoff, INDEX_CHUNK_SIZE, chunk -> {
+                    searchIndex.add(key, chunk);
+                    return !closed;
+                });
+            } catch (IOException | UncheckedIOException e) {
+                plugin.getLogger().at(Level.WARNING).log("Failed to index history for %s: %s", channel.getName(), e.getMessage());
+            }
+            if (closed) {
+                return;
+            }
+        }
+        indexReady = true;
+        plugin.getLogger().at(Level.INFO).log("History search index built: %d lines, %d terms in %dms",
+            searchIndex.documentCount(), searchIndex.termCount(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Reads back the stored line an index entry points to. Lines sharing a timestamp and sender are
+     * told apart by checking they contain the search terms; pruned lines return null.
+     */
+    private HistoryRecord findRecord(HistorySearchIndex.DocRef ref, List<String> terms) {
+        ChannelHistory history = channels.get(ref.channelKey());
+        if (history == null) {
+            return null;
+        }
+        List<HistoryRecord> candidates;
+        try {
+            candidates = history.since(ref.timestamp(), HIT_LOOKUP_WINDOW);
+        } catch (IOException | UncheckedIOException e) {
+            return null;
+        }
+        for (HistoryRecord record : candidates) {
+            if (record.timestamp() != ref.timestamp()) {
+                break;
+            }
+            if (record.senderId().equals(ref.senderId())
+                && HistorySearchIndex.terms(record.message()).containsAll(terms)) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    private void prune(long now) {
+        int retentionDays = plugin.getConfig().getHistoryRetentionDays();
+        if (retentionDays <= 0) {
+            return;
+        }
+        long cutoff = now - TimeUnit.DAYS.toMillis(retentionDays);
+        for (ChannelHistory history : channels.values()) {
+            history.prune(cutoff);
+        }
+        if (searchIndex != null) {
+            searchIndex.prune(cutoff);
+        }
+    }
+
+    private ChannelHistory history(Channel channel) {
+        return channels.computeIfAbsent(key(channel), key -> {
+            try {
+                return ChannelHistory.open(root.resolve(key));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static String key(Channel channel) {
+        return channel.getId().toString();
+    }
+}
@@ -0,0 +1,86 @@
+package com.werchat.history;
+
+import com.hypixel.hytale.server.core.Message;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Fixed-capacity ring of one channel's recent rendered lines. Timestamps and sender ids are kept in
+ * primitive arrays; each line holds the Message that was broadcast, so replay sends it as-is.
+ */
+final class ScrollbackBuffer {
+
+    private final long[] timestamps;
+    private final long[] senderMost;
+    private final long[] senderLeast;
+    private final Message[] lines;
+    private final String[] plainLines;
+    private int next;
+    private int size;
+
+    ScrollbackBuffer(int capacity) {
+        this.timestamps = new long[capacity];
+        this.senderMost = new long[capacity];
+        this.senderLeast = new long[capacity];
+        this.lines = new Message[capacity];
+        this.plainLines = new String[capacity];
+    }
+
+    int capacity() {
+        return lines.length;
+    }
+
+    synchronized void add(long timestamp, UUID senderId, Message line, String plainLine) {
+        timestamps[next] = timestamp;
+        senderMost[next] = senderId.getMostSignificantBits();
+        senderLeast[next] = senderId.getLeastSignificantBits();
+        lines[next] = line;
+        plainLines[next] = plainLine;
+        next = (next + 1) % lines.length;
+        if (size < lines.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Lines at or after notBefore, oldest first, skipping senders in the ignored set.
+     */
+    synchronized List<Message> lines(long notBefore, Set<UUID> ignored) {
+        return collect(notBefore, ignored, lines);
+    }
+
+    /**
+     * Plain-text form of {@link #lines(long, Set)}, for UI labels.
+     */
+    synchronized List<String> plainLines(long notBefore, Set<UUID> ignored) {
+        return collect(notBefore, ignored, plainLines);
+    }
+
+    private <T> List<T> collect(long notBefore, Set<UUID> ignored, T[] source) {
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        int capacity = source.length;
+        int start = (next - size + capacity) % capacity;
+
+        // Timestamps only grow, so skip the expired head first
+        int skip = 0;
+        while (skip < size && timestamps[(start + skip) % capacity] < notBefore) {
+            skip++;
+        }
+
+        List<T> result = new ArrayList<>(size - skip);
+        for (int i = skip; i < size; i++) {
+            int slot = (start + i) % capacity;
+            if (!ignored.isEmpty() && ignored.contains(new UUID(senderMost[slot], senderLeast[slot]))) {
+                continue;
+            }
+            result.add(source[slot]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,139 @@
+package com.werchat.history;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.permissions.PermissionsModule;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.werchat.WerchatPlugin;
+import com.werchat.channels.Channel;
+import com.werchat.config.WerchatConfig;
+import com.werchat.listeners.ChatListener;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent chat per channel, replayed when a player joins or focuses a channel so they have context.
+ * Each channel keeps at most scrollback.lines entries; local (ranged) channels are not recorded,
+ * since their lines were only meant for players nearby. Buffers are keyed by channel id, like
+ * stored history, so a renamed channel keeps its scrollback.
+ */
+public class ScrollbackManager {
+
+    private final WerchatPlugin plugin;
+    private final Map<UUID, ScrollbackBuffer> buffers = new ConcurrentHashMap<>();
+
+    public ScrollbackManager(WerchatPlugin plugin) {
+        this.plugin = plugin;
+        plugin.getChannelManager().addChannelChangeListener(this::onChannelChanged);
+    }
+
+    /**
+     * Remember a broadcast line. line is the Message members received, shared as-is on replay.
+     */
+    public void record(Channel channel, UUID senderId, Message line, String plainLine) {
+        WerchatConfig config = plugin.getConfig();
+        if (!config.isScrollbackEnabled() || channel.isLocal()) {
+            return;
+        }
+        int capacity = config.getScrollbackLines();
+        ScrollbackBuffer buffer = buffers.compute(key(channel), (key, existing) ->
+            existing != null && existing.capacity() == capacity ? existing : new ScrollbackBuffer(capacity));
+        buffer.add(System.currentTimeMillis(), senderId, line, plainLine);
+    }
+
+    /**
+     * Send the channel's recent lines to a member, skipping senders they ignore. They go ahead of
+     * any live chat already queued for the member, so the replay stays in order.
+     */
+    public void replay(PlayerRef viewer, Channel channel) {
+        if (viewer == null || channel == null) {
+            return;
+        }
+        List<Message> lines = recentLines(viewer.getUuid(), channel);
+        if (lines.isEmpty()) {
+            return;
+        }
+        ChatListener chatListener = plugin.getChatListener();
+        chatListener.sendPriority(viewer, Message.raw("--- Recent chat in " + channel.getName() + " ---").color("#555555"));
+        for (Message line : lines) {
+            chatListener.sendPriority(viewer, line);
+        }
+    }
+
+    public void replay(UUID viewerId, Channel channel) {
+        replay(plugin.getPlayerDataManager().getOnlinePlayer(viewerId), channel);
+    }
+
+    public List<Message> recentLines(UUID viewerId, Channel channel) {
+        ScrollbackBuffer buffer = bufferFor(viewerId, channel);
+        if (buffer == null) {
+            return Collections.emptyList();
+        }
+        return buffer.lines(notBefore(), plugin.getPlayerDataManager().getIgnoredPlayers(viewerId));
+    }
+
+    /**
+     * Plain-text recent lines, for the settings page.
+     */
+    public List<String> recentText(UUID viewerId, Channel channel) {
+        ScrollbackBuffer buffer = bufferFor(viewerId, channel);
+        if (buffer == null) {
+            return Collections.emptyList();
+        }
+        return buffer.plainLines(notBefore(), plugin.getPlayerDataManager().getIgnoredPlayers(viewerId));
+    }
+
+    /**
+     * Apply config changes; disabling scrollback frees every buffer.
+     */
+    public void reload() {
+        if (!plugin.getConfig().isScrollbackEnabled()) {
+            buffers.clear();
+        }
+    }
+
+    public int getBufferCount() {
+        return buffers.size();
+    }
+
+    private ScrollbackBuffer bufferFor(UUID viewerId, Channel channel) {
+        if (viewerId == null || channel == null || !plugin.getConfig().isScrollbackEnabled()) {
+            return null;
+        }
+        if (!channel.isMember(viewerId)) {
+            return null;
+        }
+        if (plugin.getConfig().isEnforceChannelPermissions() && !canRead(viewerId, channel)) {
+            return null;
+        }
+        return buffers.get(key(channel));
+    }
+
+    private static boolean canRead(UUID playerId, Channel channel) {
+        PermissionsModule perms = PermissionsModule.get();
+        return perms.hasPermission(playerId, channel.getReadPermission())
+            || perms.hasPermission(playerId, "werchat.*")
+            || perms.hasPermission(playerId, "*");
+    }
+
+    private long notBefore() {
+        int maxAgeMinutes = plugin.getConfig().getScrollbackMaxAgeMinutes();
+        return maxAgeMinutes <= 0 ? Long.MIN_VALUE : System.currentTimeMillis() - maxAgeMinutes * 60_000L;
+    }
+
+    private void onChannelChanged(Channel channel) {
+        if (channel == null) {
+            // Channels were added, removed or renamed: drop buffers that no longer have a channel
+            buffers.keySet().removeIf(id -> plugin.getChannelManager().getChannelById(id) == null);
+        } else if (channel.isLocal()) {
+            buffers.remove(key(channel));
+        }
+    }
+
+    private static UUID key(Channel channel) {
+        return channel.getId();
+    }
+}
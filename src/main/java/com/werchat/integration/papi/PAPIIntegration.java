@@ -4,6 +4,8 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.werchat.WerchatPlugin;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 /**
@@ -12,6 +14,57 @@ import java.util.logging.Level;
 public abstract class PAPIIntegration {
     private static PAPIIntegration impl = null;
 
+    private static final int CLASSIFICATION_CACHE_LIMIT = 1024;
+    private static final Map<String, TemplateKind> CLASSIFICATIONS = new ConcurrentHashMap<>();
+
+    /**
+     * How much PlaceholderAPI work a template needs.
+     * STATIC has no placeholders, SENDER_ONLY depends only on the sender, RELATIONAL also depends on the viewer.
+     */
+    public enum TemplateKind { STATIC, SENDER_ONLY, RELATIONAL }
+
+    /**
+     * A template with its sender placeholders applied; only relational templates still need per-recipient work.
+     */
+    public record SenderResolved(TemplateKind kind, String text) {
+        public boolean isRelational() {
+            return kind == TemplateKind.RELATIONAL;
+        }
+
+        public String forRecipient(PlayerRef sender, PlayerRef recipient) {
+            if (kind != TemplateKind.RELATIONAL || recipient == null || impl == null) {
+                return text;
+            }
+            try {
+                String resolved = impl.setRelationalPlaceholders(sender, recipient, text);
+                return resolved == null ? text : resolved;
+            } catch (Throwable e) {
+                return text;
+            }
+        }
+
+        /**
+         * The text with relational placeholders removed, for lines not shown to one particular viewer.
+         */
+        public String viewerNeutral() {
+            if (kind != TemplateKind.RELATIONAL) {
+                return text;
+            }
+            StringBuilder out = new StringBuilder(text.length());
+            int last = 0;
+            int start;
+            while ((start = text.indexOf("%rel_", last)) >= 0) {
+                int end = text.indexOf('%', start + 5);
+                if (end < 0) {
+                    break;
+                }
+                out.append(text, last, start);
+                last = end + 1;
+            }
+            return out.append(text, last, text.length()).toString();
+        }
+    }
+
     @Nullable
     public static PAPIIntegration get() {
         return impl;
@@ -39,6 +92,53 @@ public abstract class PAPIIntegration {
         }
     }
 
+    /**
+     * Classifies a template once; later lookups for the same text are a map hit.
+     */
+    public static TemplateKind classify(String text) {
+        if (text == null || text.isEmpty()) {
+            return TemplateKind.STATIC;
+        }
+        TemplateKind cached = CLASSIFICATIONS.get(text);
+        if (cached != null) {
+            return cached;
+        }
+        if (CLASSIFICATIONS.size() >= CLASSIFICATION_CACHE_LIMIT) {
+            CLASSIFICATIONS.clear();
+        }
+        TemplateKind kind = computeKind(text);
+        CLASSIFICATIONS.put(text, kind);
+        return kind;
+    }
+
+    private static TemplateKind computeKind(String text) {
+        // Placeholders look like %identifier_params%, so at least two '%' are needed
+        int first = text.indexOf('%');
+        if (first < 0 || text.indexOf('%', first + 1) < 0) {
+            return TemplateKind.STATIC;
+        }
+        return text.contains("%rel_") ? TemplateKind.RELATIONAL : TemplateKind.SENDER_ONLY;
+    }
+
+    /**
+     * Applies sender placeholders once, skipping PlaceholderAPI entirely for static text.
+     */
+    public static SenderResolved resolveForSender(PlayerRef sender, String text) {
+        if (text == null) {
+            return new SenderResolved(TemplateKind.STATIC, "");
+        }
+        TemplateKind kind = classify(text);
+        if (kind == TemplateKind.STATIC || impl == null || sender == null) {
+            return new SenderResolved(kind, text);
+        }
+        try {
+            String resolved = impl.setPlaceholders(sender, text);
+            return new SenderResolved(kind, resolved == null ? text : resolved);
+        } catch (Throwable e) {
+            return new SenderResolved(kind, text);
+        }
+    }
+
     public abstract String setPlaceholders(PlayerRef player, String text);
 
     public abstract String setRelationalPlaceholders(PlayerRef one, PlayerRef two, String text);
@@ -13,8 +13,13 @@ import com.werchat.storage.PlayerDataManager;
 
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
@@ -75,10 +80,18 @@ public class WerchatExpansion extends PlaceholderExpansion implements Configurab
         .sorted((a, b) -> Integer.compare(b.length(), a.length()))
         .toList();
 
+    private static final int RESOLVER_CACHE_LIMIT = 1024;
+    private static final PlaceholderResolver UNKNOWN_PLACEHOLDER = playerId -> null;
+
     private final WerchatPlugin plugin;
+    private final Map<String, PlaceholderResolver> resolvers = new ConcurrentHashMap<>();
+    private final Map<Channel, ChannelAggregates> aggregates = new ConcurrentHashMap<>();
+    private final AtomicLong channelsEpoch = new AtomicLong();
+    private volatile CachedChannelList channelList;
 
     public WerchatExpansion(WerchatPlugin plugin) {
         this.plugin = plugin;
+        plugin.getChannelManager().addChannelChangeListener(this::onChannelChanged);
     }
 
     @Override
@@ -126,90 +139,146 @@ public class WerchatExpansion extends PlaceholderExpansion implements Configurab
             return null;
         }
 
-        ChannelManager channelManager = plugin.getChannelManager();
-        PlayerDataManager playerDataManager = plugin.getPlayerDataManager();
-        UUID playerId = playerRef != null ? playerRef.getUuid() : null;
+        PlaceholderResolver resolver = resolvers.get(params);
+        if (resolver == null) {
+            if (resolvers.size() >= RESOLVER_CACHE_LIMIT) {
+                resolvers.clear();
+            }
+            resolver = compilePlaceholder(params);
+            resolvers.put(params, resolver);
+        }
+        return resolver.resolve(playerRef != null ? playerRef.getUuid() : null);
+    }
 
+    /**
+     * Parses a placeholder key once into a resolver. Channels are still looked up per request,
+     * so renames and focus changes are picked up without invalidating compiled keys.
+     */
+    private PlaceholderResolver compilePlaceholder(String params) {
         String normalizedParams = params.toLowerCase(Locale.ROOT);
 
         if (normalizedParams.startsWith(SELECTED_CHANNEL_KEY_PREFIX)) {
             String key = params.substring(SELECTED_CHANNEL_KEY_PREFIX.length()).toLowerCase(Locale.ROOT);
             if (key.isBlank() || !isKnownChannelPlaceholderKey(key)) {
-                return null;
-            }
-            if (playerId == null) {
-                return "";
-            }
-
-            Channel selected = channelManager.getChannel(playerDataManager.getFocusedChannel(playerId));
-            if (selected == null) {
-                return "";
+                return UNKNOWN_PLACEHOLDER;
             }
 
-            return resolveChannelPlaceholder(selected, playerDataManager, playerId, key);
+            return playerId -> {
+                if (playerId == null) {
+                    return "";
+                }
+                PlayerDataManager playerDataManager = plugin.getPlayerDataManager();
+                Channel selected = plugin.getChannelManager().getChannel(playerDataManager.getFocusedChannel(playerId));
+                if (selected == null) {
+                    return "";
+                }
+                return resolveChannelPlaceholder(selected, playerDataManager, playerId, key);
+            };
         }
 
         if (normalizedParams.startsWith(CHANNEL_PREFIX)) {
             String remaining = params.substring(CHANNEL_PREFIX.length());
-            ChannelPlaceholderRequest request = parseLegacyChannelKeyedPlaceholderRequest(remaining);
-            if (request != null) {
-                Channel channel = resolveChannel(channelManager, playerDataManager, playerId, request.selector());
-                if (channel != null) {
-                    return resolveChannelPlaceholder(channel, playerDataManager, playerId, request.key());
-                }
-            }
-
+            ChannelPlaceholderRequest legacyRequest = parseLegacyChannelKeyedPlaceholderRequest(remaining);
             // Backup keyed syntax for edge cases:
             // %werchat_channel_<selector>__<key>%
-            request = parseExplicitChannelKeyedPlaceholderRequest(remaining);
-            if (request != null) {
-                Channel channel = resolveChannel(channelManager, playerDataManager, playerId, request.selector());
-                if (channel != null) {
-                    return resolveChannelPlaceholder(channel, playerDataManager, playerId, request.key());
+            ChannelPlaceholderRequest explicitRequest = parseExplicitChannelKeyedPlaceholderRequest(remaining);
+
+            return playerId -> {
+                ChannelManager channelManager = plugin.getChannelManager();
+                PlayerDataManager playerDataManager = plugin.getPlayerDataManager();
+                String value = resolveKeyedRequest(channelManager, playerDataManager, playerId, legacyRequest);
+                if (value == null) {
+                    value = resolveKeyedRequest(channelManager, playerDataManager, playerId, explicitRequest);
+                }
+                if (value != null) {
+                    return value;
                 }
-            }
 
-            // Alias: %werchat_channel_<selector>% => channel name
-            Channel channel = resolveChannel(channelManager, playerDataManager, playerId, remaining);
-            if (channel == null) {
-                return "";
-            }
-            return resolveChannelPlaceholder(channel, playerDataManager, playerId, "name");
+                // Alias: %werchat_channel_<selector>% => channel name
+                Channel channel = resolveChannel(channelManager, playerDataManager, playerId, remaining);
+                if (channel == null) {
+                    return "";
+                }
+                return resolveChannelPlaceholder(channel, playerDataManager, playerId, "name");
+            };
         }
 
         return switch (normalizedParams) {
-            case "channels_total" -> String.valueOf(channelManager.getAllChannels().size());
-            case "channels" -> channelManager.getAllChannels().stream()
-                .map(Channel::getName)
-                .collect(Collectors.joining(", "));
-            case "default_channel" -> channelManager.getDefaultChannel() != null
-                ? channelManager.getDefaultChannel().getName()
-                : "";
-            case "channel", "selected_channel" -> playerId != null ? playerDataManager.getFocusedChannel(playerId) : "";
-            case "ignored_players_total" -> playerId != null
-                ? String.valueOf(playerDataManager.getIgnoredPlayers(playerId).size())
-                : "0";
-            case "ignored_players" -> playerId != null
-                ? playerDataManager.getIgnoredPlayers(playerId).stream()
-                    .map(playerDataManager::getKnownName)
-                    .filter(name -> name != null && !name.isEmpty())
-                    .collect(Collectors.joining(", "))
-                : "";
-            case "known_name" -> playerId != null ? playerDataManager.getKnownName(playerId) : "";
-            case "display_colour", "display_color" -> playerId != null ? nullToEmpty(playerDataManager.getDisplayColor(playerId)) : "";
-            case "msg_color" -> playerId != null ? nullToEmpty(playerDataManager.getMsgColor(playerId)) : "";
-            case "msg_gradient" -> playerId != null
-                ? formatGradient(playerDataManager.getMsgColor(playerId), playerDataManager.getMsgGradientEnd(playerId))
-                : "";
-            case "msg_gradient_end" -> playerId != null ? nullToEmpty(playerDataManager.getMsgGradientEnd(playerId)) : "";
-            case "nick_color" -> playerId != null ? nullToEmpty(playerDataManager.getNickColor(playerId)) : "";
-            case "nick_gradient_end" -> playerId != null ? nullToEmpty(playerDataManager.getNickGradientEnd(playerId)) : "";
-            case "nick" -> playerId != null ? nullToEmpty(playerDataManager.getNickname(playerId)) : "";
-            case "display_name" -> playerId != null ? playerDataManager.getDisplayName(playerId) : "";
-            default -> null;
+            case "channels_total" -> playerId -> String.valueOf(plugin.getChannelManager().getChannelCount());
+            case "channels" -> playerId -> channelList();
+            case "default_channel" -> playerId -> {
+                Channel defaultChannel = plugin.getChannelManager().getDefaultChannel();
+                return defaultChannel != null ? defaultChannel.getName() : "";
+            };
+            case "channel", "selected_channel" -> forPlayer("", (pdm, playerId) -> pdm.getFocusedChannel(playerId));
+            case "ignored_players_total" -> forPlayer("0", (pdm, playerId) -> String.valueOf(pdm.getIgnoredPlayers(playerId).size()));
+            case "ignored_players" -> forPlayer("", (pdm, playerId) -> pdm.getIgnoredPlayers(playerId).stream()
+                .map(pdm::getKnownName)
+                .filter(name -> name != null && !name.isEmpty())
+                .collect(Collectors.joining(", ")));
+            case "known_name" -> forPlayer("", PlayerDataManager::getKnownName);
+            case "display_colour", "display_color" -> forPlayer("", (pdm, playerId) -> nullToEmpty(pdm.getDisplayColor(playerId)));
+            case "msg_color" -> forPlayer("", (pdm, playerId) -> nullToEmpty(pdm.getMsgColor(playerId)));
+            case "msg_gradient" -> forPlayer("", (pdm, playerId) ->
+                formatGradient(pdm.getMsgColor(playerId), pdm.getMsgGradientEnd(playerId)));
+            case "msg_gradient_end" -> forPlayer("", (pdm, playerId) -> nullToEmpty(pdm.getMsgGradientEnd(playerId)));
+            case "nick_color" -> forPlayer("", (pdm, playerId) -> nullToEmpty(pdm.getNickColor(playerId)));
+            case "nick_gradient_end" -> forPlayer("", (pdm, playerId) -> nullToEmpty(pdm.getNickGradientEnd(playerId)));
+            case "nick" -> forPlayer("", (pdm, playerId) -> nullToEmpty(pdm.getNickname(playerId)));
+            case "display_name" -> forPlayer("", PlayerDataManager::getDisplayName);
+            case "load_level" -> playerId -> plugin.getChatListener().getLoadGovernor().getLevel().getKey();
+            default -> UNKNOWN_PLACEHOLDER;
         };
     }
 
+    private String resolveKeyedRequest(ChannelManager channelManager, PlayerDataManager playerDataManager,
+                                       UUID playerId, ChannelPlaceholderRequest request) {
+        if (request == null) {
+            return null;
+        }
+        Channel channel = resolveChannel(channelManager, playerDataManager, playerId, request.selector());
+        return channel != null ? resolveChannelPlaceholder(channel, playerDataManager, playerId, request.key()) : null;
+    }
+
+    private PlaceholderResolver forPlayer(String fallback, BiFunction<PlayerDataManager, UUID, String> resolver) {
+        return playerId -> playerId != null ? resolver.apply(plugin.getPlayerDataManager(), playerId) : fallback;
+    }
+
+    private void onChannelChanged(Channel channel) {
+        if (channel == null) {
+            aggregates.clear();
+        } else {
+            aggregates.remove(channel);
+        }
+        channelsEpoch.incrementAndGet();
+    }
+
+    private String channelList() {
+        long epoch = channelsEpoch.get();
+        CachedChannelList cached = channelList;
+        if (cached != null && cached.epoch() == epoch) {
+            return cached.value();
+        }
+        String value = plugin.getChannelManager().getAllChannels().stream()
+            .map(Channel::getName)
+            .collect(Collectors.joining(", "));
+        channelList = new CachedChannelList(epoch, value);
+        return value;
+    }
+
+    /**
+     * Returns a per-channel aggregate (name lists, counts), computing it once until the channel changes.
+     */
+    private String cachedAggregate(Channel channel, String key, Supplier<String> compute) {
+        long namesVersion = plugin.getPlayerDataManager().getKnownNamesVersion();
+        ChannelAggregates entry = aggregates.get(channel);
+        if (entry == null || entry.namesVersion() != namesVersion) {
+            entry = new ChannelAggregates(namesVersion, new ConcurrentHashMap<>());
+            aggregates.put(channel, entry);
+        }
+        return entry.values().computeIfAbsent(key, ignored -> compute.get());
+    }
+
     private ChannelPlaceholderRequest parseLegacyChannelKeyedPlaceholderRequest(String remaining) {
         if (remaining == null || remaining.isBlank()) {
             return null;
@@ -323,15 +392,15 @@ public class WerchatExpansion extends PlaceholderExpansion implements Configurab
             case "msg_color" -> nullToEmpty(channel.getMessageColorHex());
             case "quickchatsymbol" -> nullToEmpty(channel.getQuickChatSymbol());
             case "speak_permission" -> channel.getSpeakPermission();
-            case "worlds_count" -> String.valueOf(channel.getWorlds().size());
+            case "worlds_count" -> cachedAggregate(channel, key, () -> String.valueOf(channel.getWorlds().size()));
             case "worlds" -> channel.getWorldsDisplay();
             case "distance" -> String.valueOf(channel.getDistance());
             case "member_count" -> String.valueOf(channel.getMemberCount());
-            case "moderator_count" -> String.valueOf(channel.getModerators().size());
-            case "muted_count" -> String.valueOf(channel.getMuted().size());
-            case "member_names" -> joinPlayerNames(channel.getMembers(), playerDataManager);
-            case "moderator_names" -> joinPlayerNames(channel.getModerators(), playerDataManager);
-            case "muted_names" -> joinPlayerNames(channel.getMuted(), playerDataManager);
+            case "moderator_count" -> cachedAggregate(channel, key, () -> String.valueOf(channel.getModerators().size()));
+            case "muted_count" -> cachedAggregate(channel, key, () -> String.valueOf(channel.getMuted().size()));
+            case "member_names" -> cachedAggregate(channel, key, () -> joinPlayerNames(channel.getMembers(), playerDataManager));
+            case "moderator_names" -> cachedAggregate(channel, key, () -> joinPlayerNames(channel.getModerators(), playerDataManager));
+            case "muted_names" -> cachedAggregate(channel, key, () -> joinPlayerNames(channel.getMuted(), playerDataManager));
             case "owner" -> channel.getOwner() != null ? channel.getOwner().toString() : "";
             case "owner_name" -> {
                 UUID owner = channel.getOwner();
@@ -472,4 +541,15 @@ public class WerchatExpansion extends PlaceholderExpansion implements Configurab
 
     private record ChannelPlaceholderRequest(String selector, String key) {
     }
+
+    @FunctionalInterface
+    private interface PlaceholderResolver {
+        String resolve(UUID playerId);
+    }
+
+    private record ChannelAggregates(long namesVersion, Map<String, String> values) {
+    }
+
+    private record CachedChannelList(long epoch, String value) {
+    }
 }
@@ -0,0 +1,91 @@
+package com.werchat.listeners;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Holds channel lines for a short window at the highest load level so each recipient gets one
+ * packet per window instead of one per line. The first line of a window schedules the flush.
+ * Lines delivered directly once the load drops must call {@link #flush()} first, so they never
+ * overtake lines still held here.
+ */
+final class ChatCoalescer {
+
+    /**
+     * A held line and the time already spent on it before delivery.
+     */
+    record Pending(ChatListener.PreparedLine line, long upstreamNanos) {}
+
+    private final Consumer<List<Pending>> flusher;
+    private final ScheduledExecutorService executor;
+    private final Object flushLock = new Object();
+    // Guarded by this
+    private List<Pending> pending = new ArrayList<>();
+    private volatile boolean holding;
+
+    ChatCoalescer(Consumer<List<Pending>> flusher) {
+        this.flusher = flusher;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Werchat-ChatCoalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void add(ChatListener.PreparedLine line, long upstreamNanos, int windowMillis) {
+        boolean first;
+        synchronized (this) {
+            first = pending.isEmpty();
+            pending.add(new Pending(line, upstreamNanos));
+            holding = true;
+        }
+        if (first) {
+            try {
+                executor.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                flush(); // Shutting down
+            }
+        }
+    }
+
+    /**
+     * Delivers everything held. Returns once any flush already in progress has finished, so a
+     * caller that delivers afterwards can't overtake held lines.
+     */
+    void flush() {
+        if (!holding) {
+            return;
+        }
+        synchronized (flushLock) {
+            List<Pending> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    holding = false;
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            try {
+                flusher.accept(batch);
+            } finally {
+                synchronized (this) {
+                    holding = !pending.isEmpty();
+                }
+            }
+        }
+    }
+
+    /**
+     * Delivers anything still held and stops the flush thread.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+        flush();
+    }
+}
@@ -10,14 +10,23 @@ import com.werchat.WerchatPlugin;
 import com.werchat.channels.Channel;
 import com.werchat.channels.ChannelManager;
 import com.werchat.config.WerchatConfig;
+import com.werchat.format.ChatLexer;
+import com.werchat.format.DecorationCache;
+import com.werchat.format.FormatTemplate;
+import com.werchat.format.GradientRenderer;
+import com.werchat.format.MessageOptimizer;
+import com.werchat.format.StyledText;
+import com.werchat.listeners.ChatPipeline.Step;
 import com.werchat.integration.papi.PAPIIntegration;
+import com.werchat.moderation.ClassifierStage;
 import com.werchat.storage.PlayerDataManager;
 
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Routes chat messages to appropriate channels
@@ -29,13 +38,27 @@ public class ChatListener {
     private final PlayerDataManager playerDataManager;
     private final WerchatConfig config;
 
-    // Pattern for @mentions
-    private static final Pattern MENTION_PATTERN = Pattern.compile("@(\\w+)");
-    private static final Pattern FORMAT_TOKEN_PATTERN = Pattern.compile("(\\{name\\}|\\{nick\\}|\\{color\\}|\\{sender\\}|\\{msg\\}|\\{prefix\\}|\\{suffix\\})");
-    private static final Pattern URL_PATTERN = Pattern.compile(
-        "(?i)\\b((?:https?://)?(?:[a-z0-9](?:[a-z0-9-]{0,61}[a-z0-9])?\\.)+[a-z]{2,}(?::\\d{2,5})?(?:/[^\\s]*)?)"
-    );
-    private static final String URL_TRAILING_PUNCTUATION = ".,!?;:)]}\"'";
+    // Parsed prefixes, suffixes and format literals, keyed by their resolved text
+    private static final int DECORATION_CACHE_SIZE = 512;
+    private final DecorationCache decorationCache = new DecorationCache(DECORATION_CACHE_SIZE);
+    private final MessageOptimizer messageOptimizer = new MessageOptimizer();
+
+    // Rebuilt when the config revision changes; stage timers are kept across rebuilds
+    private final Map<String, ChatPipeline.StageTimer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<Void>> senderTails = new ConcurrentHashMap<>();
+    private volatile ChatPipeline pipeline;
+    private final LoadGovernor loadGovernor;
+    private final ChatCoalescer coalescer;
+    private final FanOutExecutor fanOut;
+    private final WorldBatcher worldBatcher;
+    private final OutboundQueues outboundQueues;
+    // Sink for lines going straight to their recipients (as opposed to a coalesced batch being collected)
+    private final BiConsumer<PlayerRef, Message> send = this::sendToRecipient;
+
+    // Private message frames, shared by every PM
+    private static final StyledText PM_FROM_OPEN = StyledText.of("[From ", "#AAAAAA");
+    private static final StyledText PM_TO_OPEN = StyledText.of("[To ", "#AAAAAA");
+    private static final StyledText PM_CLOSE = StyledText.of("] ", "#AAAAAA");
 
     // HyperPerms soft dependency - uses reflection to avoid hard dependency
     private static boolean hyperPermsChecked = false;
@@ -59,6 +82,11 @@ public class ChatListener {
         this.channelManager = plugin.getChannelManager();
         this.playerDataManager = plugin.getPlayerDataManager();
         this.config = plugin.getConfig();
+        this.loadGovernor = new LoadGovernor(plugin);
+        this.coalescer = new ChatCoalescer(this::deliverBatch);
+        this.fanOut = new FanOutExecutor(plugin);
+        this.worldBatcher = new WorldBatcher(plugin);
+        this.outboundQueues = new OutboundQueues(plugin, worldBatcher);
     }
 
     /**
@@ -84,18 +112,30 @@ public class ChatListener {
         return hasPermission(playerId, channel.getReadPermission());
     }
 
-    private boolean bypassesCooldown(UUID playerId) {
-        if (isAdmin(playerId)) {
-            return true;
-        }
+    /**
+     * Tells the sender how long to wait when they have no rate limit token left, without taking one.
+     * The token is taken by {@link #chargeRateLimit} once the message has passed every filter, so
+     * blocked messages don't drain the bucket.
+     */
+    private boolean checkRateLimit(PlayerRef sender) {
+        return rateLimitAllows(sender, plugin.getRateLimiter().retryAfterMillis(sender.getUuid()));
+    }
 
-        String bypassPermission = config.getCooldownBypassPermission();
-        if (bypassPermission == null || bypassPermission.isBlank()) {
-            return false;
-        }
+    /**
+     * Takes the sender's rate limit token. Only fails if another message took the last one after the check.
+     */
+    private boolean chargeRateLimit(PlayerRef sender) {
+        return rateLimitAllows(sender, plugin.getRateLimiter().tryAcquire(sender.getUuid()));
+    }
 
-        PermissionsModule perms = PermissionsModule.get();
-        return perms.hasPermission(playerId, bypassPermission);
+    private boolean rateLimitAllows(PlayerRef sender, long waitMillis) {
+        if (waitMillis == 0) {
+            return true;
+        }
+        int remaining = (int) Math.max(1, Math.ceil(waitMillis / 1000.0));
+        String msg = config.getRateLimitMessage().replace("{seconds}", String.valueOf(remaining));
+        sender.sendMessage(Message.raw(applyPapi(sender, sender, msg)).color("#FF5555"));
+        return false;
     }
 
     /**
@@ -277,15 +317,77 @@ public class ChatListener {
      * Entry point for both native chat events and external plugin API integrations.
      */
     public void handleChatInput(PlayerRef sender, String rawMessage) {
-        if (sender == null || rawMessage == null) {
+        if (sender == null || rawMessage == null || rawMessage.isBlank()) {
             return;
         }
 
-        UUID senderId = sender.getUuid();
-        String message = rawMessage;
-        if (message.isBlank()) {
-            return;
+        ChatPipeline current = pipeline;
+        if (current == null || current.getRevision() != config.getRevision()) {
+            current = buildPipeline();
+            pipeline = current;
         }
+        current.run(new ChatPipeline.Context(sender, rawMessage));
+    }
+
+    /**
+     * The stages in use for the current config, for /ch stats.
+     */
+    public List<ChatPipeline.StageStats> getPipelineStats() {
+        ChatPipeline current = pipeline;
+        return current == null ? List.of() : current.getStats();
+    }
+
+    /**
+     * Route, authorize, check throttles, filter, charge throttles, render, deliver. Throttles are
+     * only charged by the "throttle" stage after the last filter, so a blocked message costs the
+     * sender nothing. Stages for features that are switched off are left out; the chain is rebuilt
+     * when the config is reloaded.
+     */
+    private ChatPipeline buildPipeline() {
+        return ChatPipeline.builder(config.getRevision(), stageTimers, loadGovernor,
+                error -> plugin.getLogger().at(Level.WARNING).log("Chat pipeline failed: %s", error.getMessage()))
+            .resumeOn(worldBatcher::execute, senderTails)
+            .add("route", this::routeStage)
+            .addIf(config.isEnforceChannelPermissions(), "permissions", this::permissionStage)
+            .add("membership", this::membershipStage)
+            .add("slow mode", this::slowModeStage)
+            .addIf(config.isRateLimitEnabled(), "rate limit", context -> checkRateLimit(context.sender) ? Step.CONTINUE : Step.STOP)
+            .addIf(config.isAntiSpamEnabled(), "anti-spam", this::antiSpamStage)
+            .addIf(config.isRaidDetectionEnabled(), "raid", this::raidStage)
+            .addIf(config.isWordFilterEnabled(), "word filter", this::wordFilterStage)
+            .addIf(config.isClassifiersEnabled(), "classifiers", this::classifierStage)
+            .add("throttle", this::throttleStage)
+            .add("render", context -> {
+                context.line = prepareLine(context.channel, context.sender, context.message);
+                return Step.CONTINUE;
+            })
+            .add("deliver", this::deliverStage)
+            .build();
+    }
+
+    /**
+     * Delivers the line now, or holds it for the next coalesced batch at the highest load level.
+     */
+    private Step deliverStage(ChatPipeline.Context context) {
+        if (loadGovernor.atLeast(LoadGovernor.LoadLevel.COALESCE)) {
+            coalescer.add(context.line, context.processingNanos, config.getLoadGovernorCoalesceMillis());
+            return Step.CONTINUE;
+        }
+        long started = System.nanoTime();
+        coalescer.flush(); // Lines held before the load dropped go first
+        deliverLine(context.line, send);
+        loadGovernor.recordLatency(context.processingNanos + System.nanoTime() - started);
+        return Step.CONTINUE;
+    }
+
+    /**
+     * Picks the channel: a quick chat symbol, else the focused channel, else the default channel.
+     * World-restricted channels fall back to the default channel outside their worlds.
+     */
+    private Step routeStage(ChatPipeline.Context context) {
+        UUID senderId = context.senderId;
+        PlayerRef sender = context.sender;
+        String message = context.message;
 
         // Check for quick chat symbol triggers (e.g. "!hello" routes to Global)
         Channel channel = null;
@@ -303,7 +405,7 @@ public class ChatListener {
                     // Remove the symbol prefix from the message
                     message = message.substring(quickChatChannel.getQuickChatSymbol().length()).trim();
                     if (message.isEmpty()) {
-                        return; // Just the symbol with no message, ignore silently
+                        return Step.STOP; // Just the symbol with no message, ignore silently
                     }
                 }
             }
@@ -319,16 +421,7 @@ public class ChatListener {
         }
         if (channel == null) {
             sender.sendMessage(Message.raw("No chat channel is available").color("#FF0000"));
-            return;
-        }
-
-        if (config.isEnforceChannelPermissions() && !hasChannelSpeakPermission(senderId, channel)) {
-            sender.sendMessage(Message.raw("You don't have permission to speak in " + channel.getName()).color("#FF0000"));
-            return;
-        }
-        if (config.isEnforceChannelPermissions() && !hasChannelReadPermission(senderId, channel)) {
-            sender.sendMessage(Message.raw("You don't have permission to read " + channel.getName()).color("#FF0000"));
-            return;
+            return Step.STOP;
         }
 
         // Check world restriction - fall back to default if player isn't in the channel's world
@@ -338,60 +431,162 @@ public class ChatListener {
                 channel = fallback;
             } else {
                 sender.sendMessage(Message.raw("You are not in the correct world for " + channel.getName()).color("#FF0000"));
-                return;
+                return Step.STOP;
             }
         }
 
-        // Check membership
-        if (!channel.isMember(senderId)) {
-            sender.sendMessage(Message.raw("You are not in channel: " + channel.getName()).color("#FF0000"));
-            return;
+        context.channel = channel;
+        context.message = message;
+        return Step.CONTINUE;
+    }
+
+    private Step permissionStage(ChatPipeline.Context context) {
+        Channel channel = context.channel;
+        if (!hasChannelSpeakPermission(context.senderId, channel)) {
+            context.sender.sendMessage(Message.raw("You don't have permission to speak in " + channel.getName()).color("#FF0000"));
+            return Step.STOP;
         }
+        if (!hasChannelReadPermission(context.senderId, channel)) {
+            context.sender.sendMessage(Message.raw("You don't have permission to read " + channel.getName()).color("#FF0000"));
+            return Step.STOP;
+        }
+        return Step.CONTINUE;
+    }
 
-        // Check muted
-        if (channel.isMuted(senderId)) {
-            sender.sendMessage(Message.raw("You are muted in " + channel.getName()).color("#FF0000"));
-            return;
+    private Step membershipStage(ChatPipeline.Context context) {
+        Channel channel = context.channel;
+        if (!channel.isMember(context.senderId)) {
+            context.sender.sendMessage(Message.raw("You are not in channel: " + channel.getName()).color("#FF0000"));
+            return Step.STOP;
+        }
+        if (channel.isMuted(context.senderId)) {
+            context.sender.sendMessage(Message.raw("You are muted in " + channel.getName()).color("#FF0000"));
+            return Step.STOP;
         }
+        return Step.CONTINUE;
+    }
 
-        // Check cooldown
-        if (config.isCooldownEnabled() && !bypassesCooldown(senderId)) {
-            long now = System.currentTimeMillis();
-            long lastTime = playerDataManager.getLastMessageTime(senderId);
-            long cooldownMs = config.getCooldownSeconds() * 1000L;
+    /**
+     * Rejects early while the sender's slow-mode interval is running; the send itself is only
+     * recorded by the throttle stage.
+     */
+    private Step slowModeStage(ChatPipeline.Context context) {
+        Channel channel = context.channel;
+        long slowModeWait = plugin.getSlowMode().check(context.senderId, channel, slowModeSeconds(channel));
+        return slowModeAllows(context, slowModeWait) ? Step.CONTINUE : Step.STOP;
+    }
 
-            if (now - lastTime < cooldownMs) {
-                int remaining = (int) Math.ceil((cooldownMs - (now - lastTime)) / 1000.0);
-                String msg = config.getCooldownMessage().replace("{seconds}", String.valueOf(remaining));
-                sender.sendMessage(Message.raw(applyPapi(sender, sender, msg)).color("#FF5555"));
-                return;
+    /**
+     * Takes the rate limit token and starts the slow-mode interval once the message has passed
+     * every filter. Either can still fail here if another message from the sender got in first;
+     * a token taken for a message slow mode then stops is given back.
+     */
+    private Step throttleStage(ChatPipeline.Context context) {
+        if (config.isRateLimitEnabled() && !chargeRateLimit(context.sender)) {
+            return Step.STOP;
+        }
+        Channel channel = context.channel;
+        long slowModeWait = plugin.getSlowMode().tryAcquire(context.senderId, channel, slowModeSeconds(channel));
+        if (!slowModeAllows(context, slowModeWait)) {
+            plugin.getRateLimiter().refund(context.senderId);
+            return Step.STOP;
+        }
+        return Step.CONTINUE;
+    }
+
+    private int slowModeSeconds(Channel channel) {
+        return Math.max(channel.getSlowModeSeconds(), plugin.getRaidDetector().getLockdownSlowModeSeconds(channel));
+    }
+
+    private boolean slowModeAllows(ChatPipeline.Context context, long slowModeWait) {
+        if (slowModeWait == 0) {
+            return true;
+        }
+        long seconds = Math.max(1, (slowModeWait + 999) / 1000);
+        context.sender.sendMessage(Message.raw("Slow mode is on in " + context.channel.getName() + ": wait " + seconds + "s").color("#FF5555"));
+        return false;
+    }
+
+    private Step antiSpamStage(ChatPipeline.Context context) {
+        PlayerRef sender = context.sender;
+        switch (plugin.getSpamGuard().check(context.senderId, context.channel, context.message)) {
+            case WARN -> sender.sendMessage(Message.raw(applyPapi(sender, sender, config.getAntiSpamWarnMessage())).color("#FFAA00"));
+            case BLOCK -> {
+                sender.sendMessage(Message.raw(applyPapi(sender, sender, config.getAntiSpamBlockMessage())).color("#FF5555"));
+                return Step.STOP;
+            }
+            case MUTE -> {
+                String muteMsg = config.getMuteMessage().replace("{channel}", context.channel.getName());
+                sender.sendMessage(Message.raw(applyPapi(sender, sender, muteMsg)).color("#FF5555"));
+                return Step.STOP;
+            }
+            case ALLOW -> {
             }
         }
+        return Step.CONTINUE;
+    }
 
-        // Word filter (admins bypass)
-        if (config.isWordFilterEnabled() && !isAdmin(senderId)) {
-            FilterResult filterResult = filterMessage(message);
-            if (filterResult.containsBadWords) {
-                if (config.getFilterMode().equals("block")) {
-                    // Block entire message
-                    if (config.isFilterNotifyPlayer()) {
-                        sender.sendMessage(Message.raw(applyPapi(sender, sender, config.getFilterWarningMessage())).color("#FF5555"));
-                    }
-                    return;
-                } else {
-                    // Censor mode - replace bad words
-                    message = filterResult.filteredMessage;
-                    if (config.isFilterNotifyPlayer()) {
-                        sender.sendMessage(Message.raw(applyPapi(sender, sender, config.getFilterWarningMessage())).color("#FFAA00"));
-                    }
+    private Step raidStage(ChatPipeline.Context context) {
+        if (!plugin.getRaidDetector().check(context.sender, context.channel, context.message)) {
+            context.sender.sendMessage(Message.raw("This channel is in raid lockdown and your message was blocked.").color("#FF5555"));
+            return Step.STOP;
+        }
+        return Step.CONTINUE;
+    }
+
+    /**
+     * Word filter (admins bypass).
+     */
+    private Step wordFilterStage(ChatPipeline.Context context) {
+        PlayerRef sender = context.sender;
+        if (isAdmin(context.senderId)) {
+            return Step.CONTINUE;
+        }
+        FilterResult filterResult = filterMessage(context.message);
+        if (filterResult.containsBadWords) {
+            if (config.getFilterMode().equals("block")) {
+                // Block entire message
+                if (config.isFilterNotifyPlayer()) {
+                    sender.sendMessage(Message.raw(applyPapi(sender, sender, config.getFilterWarningMessage())).color("#FF5555"));
                 }
+                return Step.STOP;
+            }
+            // Censor mode - replace bad words
+            context.message = filterResult.filteredMessage;
+            if (config.isFilterNotifyPlayer()) {
+                sender.sendMessage(Message.raw(applyPapi(sender, sender, config.getFilterWarningMessage())).color("#FFAA00"));
             }
         }
+        return Step.CONTINUE;
+    }
 
-        // Update cooldown time
-        playerDataManager.setLastMessageTime(senderId, System.currentTimeMillis());
-
-        broadcastToChannel(channel, sender, message);
+    /**
+     * External classifiers get the filtered text; delivery waits for their verdict (bounded by the time budget).
+     */
+    private Step classifierStage(ChatPipeline.Context context) {
+        ClassifierStage classifiers = plugin.getClassifierStage();
+        if (!classifiers.isActive() || isAdmin(context.senderId)) {
+            return Step.CONTINUE;
+        }
+        PlayerRef sender = context.sender;
+        return context.suspend(classifiers.classify(sender, context.channel, context.message).thenApply(verdict -> {
+            switch (verdict.getAction()) {
+                case BLOCK -> {
+                    String reason = verdict.getReason() != null ? verdict.getReason() : config.getClassifierBlockMessage();
+                    sender.sendMessage(Message.raw(applyPapi(sender, sender, reason)).color("#FF5555"));
+                    return false;
+                }
+                case REPLACE -> {
+                    if (verdict.getReason() != null) {
+                        sender.sendMessage(Message.raw(applyPapi(sender, sender, verdict.getReason())).color("#FFAA00"));
+                    }
+                    context.message = verdict.getReplacement();
+                }
+                case ALLOW -> {
+                }
+            }
+            return true;
+        }));
     }
 
     /**
@@ -400,21 +595,57 @@ public class ChatListener {
     private FilterResult filterMessage(String message) {
         Set<String> badWords = config.getFilteredWords();
         String replacement = config.getFilterReplacement();
-        String lowerMessage = message.toLowerCase();
         boolean found = false;
         String filtered = message;
 
         for (String word : badWords) {
-            if (lowerMessage.contains(word.toLowerCase())) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String replaced = replaceIgnoreCase(filtered, word, replacement);
+            if (replaced != filtered) {
                 found = true;
-                // Case-insensitive replace
-                filtered = filtered.replaceAll("(?i)" + Pattern.quote(word), replacement);
+                filtered = replaced;
             }
         }
 
+        // Patterns, and the words again on normalized text to catch spacing and leetspeak
+        String patterned = plugin.getPatternFilter().apply(filtered, replacement);
+        if (patterned != filtered) {
+            found = true;
+            filtered = patterned;
+        }
+
         return new FilterResult(found, filtered);
     }
 
+    /**
+     * Case-insensitive literal replace. Returns the same instance when the word does not occur.
+     */
+    private static String replaceIgnoreCase(String text, String word, String replacement) {
+        int wordLength = word.length();
+        int limit = text.length() - wordLength;
+        StringBuilder out = null;
+        int last = 0;
+        int i = 0;
+        while (i <= limit) {
+            if (text.regionMatches(true, i, word, 0, wordLength)) {
+                if (out == null) {
+                    out = new StringBuilder(text.length());
+                }
+                out.append(text, last, i).append(replacement);
+                i += wordLength;
+                last = i;
+            } else {
+                i++;
+            }
+        }
+        if (out == null) {
+            return text;
+        }
+        return out.append(text, last, text.length()).toString();
+    }
+
     private static class FilterResult {
         final boolean containsBadWords;
         final String filteredMessage;
@@ -428,162 +659,381 @@ public class ChatListener {
     /**
      * Find mentioned players in a message
      */
-    private Set<UUID> findMentionedPlayers(String message) {
+    private Set<UUID> findMentionedPlayers(ChatLexer.LexedMessage lexed) {
+        if (lexed.mentions().isEmpty()) {
+            return Collections.emptySet();
+        }
         Set<UUID> mentioned = new HashSet<>();
-        Matcher matcher = MENTION_PATTERN.matcher(message);
-
-        while (matcher.find()) {
-            String username = matcher.group(1);
+        for (String username : lexed.mentions()) {
             PlayerRef player = playerDataManager.findPlayerByName(username);
             if (player != null) {
                 mentioned.add(player.getUuid());
             }
         }
-
         return mentioned;
     }
 
+    /**
+     * Deliver a chat line to every eligible channel member.
+     * <p>
+     * Allocation budget: lexing, sender decorations and the message body are built once per line,
+     * and each render key (at most two without relational placeholders) costs one token array, one
+     * part list, the compacted spans and their Message nodes. Formats without relational
+     * placeholders allocate nothing per recipient on the render path; with them, each recipient
+     * costs its resolved decorations and a RenderKey, plus a render for each distinct key.
+     */
     public void broadcastToChannel(Channel channel, PlayerRef sender, String message) {
+        deliverLine(prepareLine(channel, sender, message), send);
+    }
+
+    /**
+     * The per-line work shared by every recipient: lexing, mentions and sender decorations.
+     * The load level decides which rendering features the line keeps.
+     */
+    private PreparedLine prepareLine(Channel channel, PlayerRef sender, String message) {
+        LoadGovernor.LoadLevel level = loadGovernor.getLevel();
+        boolean links = config.isClickableUrlsEnabled() && level.compareTo(LoadGovernor.LoadLevel.NO_LINKS) < 0;
+
+        // Tokenize once: mentions and URLs are shared by every recipient
+        ChatLexer.LexedMessage lexed = ChatLexer.lexChat(message, config.isMentionsEnabled(), links);
+        Set<UUID> mentionedPlayers = config.isMentionsEnabled() ? findMentionedPlayers(lexed) : Collections.emptySet();
+
+        // Sender-side placeholders are resolved once; only relational templates are resolved per recipient
+        SenderDecorations decorations = resolveSenderDecorations(channel, sender);
+        boolean relational = decorations.relational() && level.compareTo(LoadGovernor.LoadLevel.NO_RELATIONAL) < 0;
+        boolean gradients = level.compareTo(LoadGovernor.LoadLevel.SOLID_COLORS) < 0;
+        return new PreparedLine(channel, sender, message, lexed, mentionedPlayers, decorations, relational, gradients);
+    }
+
+    /**
+     * Sends a channel line through the recipient's outbound queue, or from their world thread when
+     * only world batching is on.
+     */
+    private void sendToRecipient(PlayerRef recipient, Message message) {
+        if (config.isOutboundQueueEnabled()) {
+            outboundQueues.send(recipient, message);
+        } else if (config.isWorldBatchingEnabled()) {
+            worldBatcher.send(recipient, message);
+        } else {
+            recipient.sendMessage(message);
+        }
+    }
+
+    /**
+     * Sends a system, PM or moderation line ahead of any channel chat queued for the recipient.
+     * These are never dropped when the recipient's queue is full.
+     */
+    public void sendPriority(PlayerRef recipient, Message message) {
+        if (config.isOutboundQueueEnabled()) {
+            outboundQueues.sendPriority(recipient, message);
+        } else {
+            recipient.sendMessage(message);
+        }
+    }
+
+    /**
+     * Delivers a batch held back at the coalesce load level: each recipient gets its lines joined into one message.
+     */
+    private void deliverBatch(List<ChatCoalescer.Pending> batch) {
+        long started = System.nanoTime();
+        Map<UUID, PlayerRef> recipients = new LinkedHashMap<>();
+        Map<UUID, List<Message>> linesByRecipient = new HashMap<>();
+        try {
+            for (ChatCoalescer.Pending pending : batch) {
+                deliverLine(pending.line(), (member, formatted) -> {
+                    UUID memberId = member.getUuid();
+                    recipients.putIfAbsent(memberId, member);
+                    linesByRecipient.computeIfAbsent(memberId, id -> new ArrayList<>(batch.size())).add(formatted);
+                });
+            }
+            for (Map.Entry<UUID, PlayerRef> recipient : recipients.entrySet()) {
+                List<Message> lines = linesByRecipient.get(recipient.getKey());
+                if (lines.size() == 1) {
+                    send.accept(recipient.getValue(), lines.get(0));
+                    continue;
+                }
+                Message[] joined = new Message[lines.size() * 2 - 1];
+                for (int i = 0; i < lines.size(); i++) {
+                    if (i > 0) {
+                        joined[i * 2 - 1] = Message.raw("\n");
+                    }
+                    joined[i * 2] = lines.get(i);
+                }
+                send.accept(recipient.getValue(), Message.join(joined));
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().at(Level.WARNING).log("Failed to deliver coalesced chat: %s", e.getMessage());
+        }
+
+        long perLine = (System.nanoTime() - started) / batch.size();
+        for (ChatCoalescer.Pending pending : batch) {
+            loadGovernor.recordLatency(pending.upstreamNanos() + perLine);
+        }
+    }
+
+    private void deliverLine(PreparedLine prepared, BiConsumer<PlayerRef, Message> sink) {
+        Channel channel = prepared.channel();
+        PlayerRef sender = prepared.sender();
         UUID senderId = sender.getUuid();
-        String senderName = sender.getUsername();
+        LineDelivery delivery = new LineDelivery(prepared);
 
-        // Find mentioned players
-        Set<UUID> mentionedPlayers = config.isMentionsEnabled() ? findMentionedPlayers(message) : Collections.emptySet();
+        // Send to all channel members who aren't ignoring the sender; large channels fan out over the pool
+        Set<UUID> members = channel.getMembers();
+        if (sink == send && fanOut.shouldFanOut(members.size())) {
+            delivery.renderShared();
+            fanOut.submit(members, memberId -> delivery.deliverTo(memberId, send));
+        } else {
+            for (UUID memberId : members) {
+                delivery.deliverTo(memberId, sink);
+            }
+        }
 
-        // Get sender position and world for distance check
-        double senderX = 0, senderY = 0, senderZ = 0;
-        UUID senderWorldId = null;
-        boolean isLocal = channel.isLocal();
-        int maxDistance = channel.getDistance();
+        // Scrollback keeps a viewer-neutral render: no mention highlight and no relational placeholders
+        if (config.isScrollbackEnabled() && !channel.isLocal()) {
+            Message line = delivery.scrollbackRender();
+            String plainLine = "[" + channel.getNick() + "] " + playerDataManager.getDisplayName(senderId) + ": " + prepared.message();
+            plugin.getScrollback().record(channel, senderId, line, plainLine);
+        }
 
-        if (isLocal) {
-            try {
-                var senderPos = sender.getTransform().getPosition();
-                senderX = senderPos.x;
-                senderY = senderPos.y;
-                senderZ = senderPos.z;
-                senderWorldId = sender.getWorldUuid();
-            } catch (Exception e) {
-                // If we can't get position, treat as global
-                isLocal = false;
+        // Log the message and store it in the channel's history
+        plugin.getChatLog().logChannel(channel.getName(), sender, prepared.message());
+        plugin.getHistoryStore().append(channel, sender, prepared.message());
+    }
+
+    /**
+     * Per-line delivery state: recipient filters and the renders recipients share.
+     * <p>
+     * Used from one thread, except after {@link #renderShared()}, when every shared render and
+     * message body a recipient can need already exists and lane threads only read them.
+     */
+    private final class LineDelivery {
+        private final PreparedLine prepared;
+        private final Channel channel;
+        private final PlayerRef sender;
+        private final UUID senderId;
+        private final boolean gradients;
+
+        // Sender position and world for the distance check
+        private double senderX, senderY, senderZ;
+        private UUID senderWorldId;
+        private boolean isLocal;
+        private final int maxDistance;
+        private final Set<UUID> allowedWorldIds;
+
+        // Recipients with the same render key share one Message; without relational
+        // placeholders that leaves at most two renders (mentioned or not) per message,
+        // held in sharedRenders so no key is allocated per recipient
+        private Map<RenderKey, Message> renderedByKey;
+        private final Message[] sharedRenders = new Message[2];
+        private final StyledText[] bodyParts = new StyledText[2];
+
+        LineDelivery(PreparedLine prepared) {
+            this.prepared = prepared;
+            this.channel = prepared.channel();
+            this.sender = prepared.sender();
+            this.senderId = sender.getUuid();
+            this.gradients = prepared.gradients();
+            this.isLocal = channel.isLocal();
+            this.maxDistance = channel.getDistance();
+            this.renderedByKey = prepared.relational() ? new HashMap<>() : null;
+
+            if (isLocal) {
+                try {
+                    var senderPos = sender.getTransform().getPosition();
+                    senderX = senderPos.x;
+                    senderY = senderPos.y;
+                    senderZ = senderPos.z;
+                    senderWorldId = sender.getWorldUuid();
+                } catch (Exception e) {
+                    // If we can't get position, treat as global
+                    isLocal = false;
+                }
             }
+
+            // Resolve world restriction UUIDs for filtering
+            Set<UUID> worldIds = Collections.emptySet();
+            if (channel.isWorldRestricted()) {
+                worldIds = new HashSet<>();
+                for (String worldName : channel.getWorlds()) {
+                    UUID wid = resolveWorldUuid(worldName);
+                    if (wid != null) worldIds.add(wid);
+                }
+            }
+            this.allowedWorldIds = worldIds;
         }
 
-        // Resolve world restriction UUIDs for filtering
-        Set<UUID> allowedWorldIds = new HashSet<>();
-        if (channel.isWorldRestricted()) {
-            for (String worldName : channel.getWorlds()) {
-                UUID wid = resolveWorldUuid(worldName);
-                if (wid != null) allowedWorldIds.add(wid);
+        /**
+         * Renders everything recipients share up front, before the line is handed to other threads.
+         */
+        void renderShared() {
+            boolean anyMentioned = !prepared.mentionedPlayers().isEmpty();
+            if (renderedByKey != null) {
+                renderedByKey = new ConcurrentHashMap<>();
+                bodyParts[0] = buildMessagePart(channel, senderId, prepared.lexed(), false, gradients);
+                if (anyMentioned) {
+                    bodyParts[1] = buildMessagePart(channel, senderId, prepared.lexed(), true, gradients);
+                }
+                return;
+            }
+            sharedRender(false, sender);
+            if (anyMentioned) {
+                sharedRender(true, sender);
             }
         }
 
-        // Send to all channel members who aren't ignoring the sender
-        for (UUID memberId : channel.getMembers()) {
+        void deliverTo(UUID memberId, BiConsumer<PlayerRef, Message> sink) {
             if (config.isEnforceChannelPermissions() && !hasChannelReadPermission(memberId, channel)) {
-                continue;
+                return;
             }
             if (playerDataManager.isIgnoring(memberId, senderId)) {
-                continue;
+                return;
             }
             PlayerRef member = playerDataManager.getOnlinePlayer(memberId);
-            if (member != null) {
-                // Check world restriction
-                if (!allowedWorldIds.isEmpty()) {
-                    try {
-                        UUID memberWorldId = member.getWorldUuid();
-                        if (!allowedWorldIds.contains(memberWorldId)) {
-                            continue; // Not in any of the channel's worlds
-                        }
-                    } catch (Exception e) {
-                        continue;
+            if (member == null) {
+                return;
+            }
+
+            // Check world restriction
+            if (!allowedWorldIds.isEmpty()) {
+                try {
+                    UUID memberWorldId = member.getWorldUuid();
+                    if (!allowedWorldIds.contains(memberWorldId)) {
+                        return; // Not in any of the channel's worlds
                     }
+                } catch (Exception e) {
+                    return;
                 }
+            }
 
-                // Check distance and world for local channels
-                if (isLocal && !memberId.equals(senderId)) {
-                    try {
-                        // Must be in the same world
-                        UUID memberWorldId = member.getWorldUuid();
-                        if (senderWorldId != null && !senderWorldId.equals(memberWorldId)) {
-                            continue; // Different world
-                        }
-                        var memberPos = member.getTransform().getPosition();
-                        double dx = memberPos.x - senderX;
-                        double dy = memberPos.y - senderY;
-                        double dz = memberPos.z - senderZ;
-                        double distance = Math.sqrt(dx*dx + dy*dy + dz*dz);
-                        if (distance > maxDistance) {
-                            continue; // Too far away
-                        }
-                    } catch (Exception e) {
-                        // If we can't check distance, skip this member
-                        continue;
+            // Check distance and world for local channels
+            if (isLocal && !memberId.equals(senderId)) {
+                try {
+                    // Must be in the same world
+                    UUID memberWorldId = member.getWorldUuid();
+                    if (senderWorldId != null && !senderWorldId.equals(memberWorldId)) {
+                        return; // Different world
+                    }
+                    var memberPos = member.getTransform().getPosition();
+                    double dx = memberPos.x - senderX;
+                    double dy = memberPos.y - senderY;
+                    double dz = memberPos.z - senderZ;
+                    double distance = Math.sqrt(dx*dx + dy*dy + dz*dz);
+                    if (distance > maxDistance) {
+                        return; // Too far away
                     }
+                } catch (Exception e) {
+                    // If we can't check distance, skip this member
+                    return;
                 }
+            }
 
-                Message formatted = formatMessageForRecipient(channel, sender, message, memberId, mentionedPlayers);
-                member.sendMessage(formatted);
+            boolean isMentioned = prepared.mentionedPlayers().contains(memberId);
+            Message formatted;
+            if (renderedByKey != null) {
+                RenderKey key = new RenderKey(isMentioned, prepared.decorations().resolveFor(sender, member));
+                formatted = renderedByKey.computeIfAbsent(key, k ->
+                    formatMessageForRecipient(channel, senderId, prepared.lexed(), k.resolved(), k.mentioned(),
+                        prepared.decorations(), bodyParts, gradients));
+            } else {
+                // Relational parts skipped under load are rendered as the sender sees them, for everyone
+                formatted = sharedRender(isMentioned, prepared.decorations().relational() ? sender : member);
             }
+            sink.accept(member, formatted);
         }
 
-        // Log the message
-        plugin.getLogger().at(Level.INFO).log("[%s] %s: %s", channel.getName(), senderName, message);
+        /**
+         * The line as replayed to later viewers. Shares the unmentioned render when the format has
+         * no relational placeholders; otherwise renders once with them removed, so no viewer sees
+         * values resolved for someone else.
+         */
+        Message scrollbackRender() {
+            if (!prepared.decorations().relational() && sharedRenders[0] != null) {
+                return sharedRenders[0];
+            }
+            return formatMessageForRecipient(channel, senderId, prepared.lexed(), prepared.decorations().resolveNeutral(),
+                false, prepared.decorations(), bodyParts, gradients);
+        }
+
+        private Message sharedRender(boolean mentioned, PlayerRef viewer) {
+            int slot = mentioned ? 1 : 0;
+            Message formatted = sharedRenders[slot];
+            if (formatted == null) {
+                formatted = formatMessageForRecipient(channel, senderId, prepared.lexed(),
+                    prepared.decorations().resolveFor(sender, viewer), mentioned, prepared.decorations(), bodyParts, gradients);
+                sharedRenders[slot] = formatted;
+            }
+            return formatted;
+        }
     }
 
     /**
      * Format message with mention highlighting for a specific recipient.
      * Integrates with permission plugins for prefix/suffix display.
+     * bodyParts caches the message body by mention state so relational renders can share it.
      */
-    private Message formatMessageForRecipient(Channel channel, PlayerRef sender, String message,
-                                              UUID recipientId, Set<UUID> mentionedPlayers) {
-        UUID senderId = sender.getUuid();
-        boolean isMentioned = mentionedPlayers.contains(recipientId);
-        PlayerRef recipient = playerDataManager.getOnlinePlayer(recipientId);
-
-        String displayName = playerDataManager.getDisplayName(senderId);
-        String nickColor = playerDataManager.getDisplayColor(senderId);
-        if (nickColor == null) nickColor = "#FFFFFF";
-
-        String prefix = applyPapi(sender, recipient, getPrefix(senderId));
-        String suffix = applyPapi(sender, recipient, getSuffix(senderId));
-
-        Message senderPart = buildSenderPart(senderId, displayName, nickColor);
-        Message messagePart = buildMessagePart(channel, senderId, message, isMentioned);
+    private Message formatMessageForRecipient(Channel channel, UUID senderId, ChatLexer.LexedMessage message,
+                                              ResolvedDecorations resolved, boolean isMentioned,
+                                              SenderDecorations decorations, StyledText[] bodyParts, boolean gradients) {
+        StyledText senderPart = playerDataManager.getSenderProfile(senderId).spans();
+        int bodyIndex = isMentioned ? 1 : 0;
+        StyledText messagePart = bodyParts[bodyIndex];
+        if (messagePart == null) {
+            messagePart = buildMessagePart(channel, senderId, message, isMentioned, gradients);
+            bodyParts[bodyIndex] = messagePart;
+        }
 
-        Map<String, Message> tokenParts = new HashMap<>();
-        tokenParts.put("{name}", Message.raw(applyPapi(sender, recipient, channel.getName())).color(channel.getColorHex()));
-        tokenParts.put("{nick}", Message.raw(applyPapi(sender, recipient, channel.getNick())).color(channel.getColorHex()));
-        tokenParts.put("{color}", Message.raw(channel.getColorHex()).color(channel.getColorHex()));
-        tokenParts.put("{sender}", senderPart);
-        tokenParts.put("{msg}", messagePart);
-        tokenParts.put("{prefix}", parseColoredString(prefix));
-        tokenParts.put("{suffix}", parseColoredString(suffix));
+        String channelColor = channel.getColorHex();
+        StyledText[] tokenParts = new StyledText[FormatTemplate.TOKENS.length];
+        tokenParts[FormatTemplate.NAME] = StyledText.of(resolved.channelName(), channelColor);
+        tokenParts[FormatTemplate.NICK] = StyledText.of(resolved.channelNick(), channelColor);
+        tokenParts[FormatTemplate.COLOR] = StyledText.of(channelColor, channelColor);
+        tokenParts[FormatTemplate.SENDER] = senderPart;
+        tokenParts[FormatTemplate.MSG] = messagePart;
+        tokenParts[FormatTemplate.PREFIX] = decorationCache.getSpans(resolved.prefix());
+        tokenParts[FormatTemplate.SUFFIX] = decorationCache.getSpans(resolved.suffix());
+
+        return renderFormat(decorations, tokenParts, resolved);
+    }
 
+    private SenderDecorations resolveSenderDecorations(Channel channel, PlayerRef sender) {
+        UUID senderId = sender.getUuid();
         String format = channel.getFormat();
         if (format == null || format.isBlank()) {
             format = "{nick} {sender}: {msg}";
         }
 
-        return renderFormat(format, tokenParts, sender, recipient);
-    }
+        FormatTemplate template = FormatTemplate.of(format);
+        List<FormatTemplate.Segment> segments = template.segments();
+        PAPIIntegration.SenderResolved[] literals = new PAPIIntegration.SenderResolved[segments.size()];
+        for (int i = 0; i < literals.length; i++) {
+            FormatTemplate.Segment segment = segments.get(i);
+            if (!segment.isToken()) {
+                literals[i] = PAPIIntegration.resolveForSender(sender, segment.literal());
+            }
+        }
+
+        PAPIIntegration.SenderResolved channelName = PAPIIntegration.resolveForSender(sender, channel.getName());
+        PAPIIntegration.SenderResolved channelNick = PAPIIntegration.resolveForSender(sender, channel.getNick());
+        PAPIIntegration.SenderResolved prefix = PAPIIntegration.resolveForSender(sender, getPrefix(senderId));
+        PAPIIntegration.SenderResolved suffix = PAPIIntegration.resolveForSender(sender, getSuffix(senderId));
 
-    private Message buildSenderPart(UUID senderId, String displayName, String nickColor) {
-        String gradientEnd = playerDataManager.getNickGradientEnd(senderId);
-        if (gradientEnd != null && nickColor != null) {
-            return createGradientMessage(displayName, nickColor, gradientEnd);
+        boolean relational = channelName.isRelational() || channelNick.isRelational()
+            || prefix.isRelational() || suffix.isRelational();
+        for (PAPIIntegration.SenderResolved literal : literals) {
+            relational |= literal != null && literal.isRelational();
         }
-        return Message.raw(displayName).color(nickColor);
+
+        return new SenderDecorations(template, literals, channelName, channelNick, prefix, suffix, relational);
     }
 
-    private Message buildMessagePart(Channel channel, UUID senderId, String message, boolean isMentioned) {
+    private StyledText buildMessagePart(Channel channel, UUID senderId, ChatLexer.LexedMessage message, boolean isMentioned, boolean gradients) {
         if (isMentioned && config.isMentionsEnabled()) {
             return buildStyledMessageWithLinks(message, config.getMentionColor(), true, false);
         }
 
         String msgColor = playerDataManager.getMsgColor(senderId);
         String msgGradientEnd = playerDataManager.getMsgGradientEnd(senderId);
-        if (msgColor != null && msgGradientEnd != null) {
+        if (msgColor != null && msgGradientEnd != null && gradients) {
             return createGradientMessage(message, msgColor, msgGradientEnd, false, false);
         }
         if (msgColor != null) {
@@ -592,327 +1042,105 @@ public class ChatListener {
         return buildStyledMessageWithLinks(message, channel.getEffectiveMessageColorHex(), false, false);
     }
 
-    private Message renderFormat(String format, Map<String, Message> tokenParts, PlayerRef sender, PlayerRef recipient) {
-        List<Message> parts = new ArrayList<>();
-        Matcher matcher = FORMAT_TOKEN_PATTERN.matcher(format);
-        int last = 0;
-
-        while (matcher.find()) {
-            appendLiteralPart(parts, format.substring(last, matcher.start()), sender, recipient);
-
-            Message tokenPart = tokenParts.get(matcher.group(1));
-            if (tokenPart != null) {
-                parts.add(tokenPart);
+    private Message renderFormat(SenderDecorations decorations, StyledText[] tokenParts, ResolvedDecorations resolved) {
+        List<FormatTemplate.Segment> segments = decorations.template().segments();
+        List<StyledText> parts = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            FormatTemplate.Segment segment = segments.get(i);
+            if (!segment.isToken()) {
+                appendLiteralPart(parts, resolved.literals().get(i));
+                continue;
             }
 
-            last = matcher.end();
+            parts.add(tokenParts[segment.tokenIndex()]);
         }
 
-        appendLiteralPart(parts, format.substring(last), sender, recipient);
-
-        if (parts.isEmpty()) {
-            return Message.raw("");
-        }
-        if (parts.size() == 1) {
-            return parts.get(0);
-        }
-        return Message.join(parts.toArray(new Message[0]));
+        return messageOptimizer.render(parts, config.isMessageOptimizerEnabled());
     }
 
-    private void appendLiteralPart(List<Message> parts, String literal, PlayerRef sender, PlayerRef recipient) {
-        if (literal == null || literal.isEmpty()) {
-            return;
-        }
-
-        String resolved = applyPapi(sender, recipient, literal);
+    private void appendLiteralPart(List<StyledText> parts, String resolved) {
         if (!resolved.isEmpty()) {
-            parts.add(parseColoredString(resolved));
+            parts.add(decorationCache.getSpans(resolved));
         }
     }
 
     private String applyPapi(PlayerRef sender, PlayerRef recipient, String text) {
-        final PAPIIntegration papi = PAPIIntegration.get();
-
-        if (text == null || text.isEmpty() || papi == null) {
-            return text == null ? "" : text;
-        }
-
-        try {
-            String resolved = papi.setPlaceholders(sender, text);
-            if (recipient != null) {
-                resolved = papi.setRelationalPlaceholders(sender, recipient, resolved);
-            }
-            return resolved == null ? text : resolved;
-        } catch (Throwable e) {
-            return text;
-        }
+        return PAPIIntegration.resolveForSender(sender, text).forRecipient(sender, recipient);
     }
 
-    /**
-     * Parse a string containing HyperPerms color codes (&c, &6, &#RRGGBB, etc.)
-     * and convert to Hytale Message with proper coloring.
-     */
-    private Message parseColoredString(String text) {
-        if (text == null || text.isEmpty()) {
-            return Message.raw("");
-        }
-
-        List<Message> parts = new ArrayList<>();
-        StringBuilder currentText = new StringBuilder();
-        String currentColor = "#FFFFFF";
-        boolean bold = false;
-        boolean italic = false;
-
-        int i = 0;
-        while (i < text.length()) {
-            char c = text.charAt(i);
-
-            // Handle both & and § (section sign) color code prefixes
-            if ((c == '&' || c == '\u00A7') && i + 1 < text.length()) {
-                // Flush current text with current formatting
-                if (currentText.length() > 0) {
-                    Message part = Message.raw(currentText.toString()).color(currentColor);
-                    if (bold) part = part.bold(true);
-                    if (italic) part = part.italic(true);
-                    parts.add(part);
-                    currentText = new StringBuilder();
-                }
-
-                char next = text.charAt(i + 1);
-
-                // Check for hex color: &#RRGGBB or §#RRGGBB
-                if (next == '#' && i + 8 <= text.length()) {
-                    String hex = text.substring(i + 1, i + 8);
-                    if (hex.matches("#[0-9A-Fa-f]{6}")) {
-                        currentColor = hex.toUpperCase();
-                        i += 8;
-                        continue;
-                    }
-                }
-
-                // Check for Minecraft extended hex: §x§R§R§G§G§B§B (14 chars total)
-                if ((next == 'x' || next == 'X') && i + 14 <= text.length()) {
-                    String extended = text.substring(i, i + 14);
-                    if (extended.matches("[\u00A7&][xX]([\u00A7&][0-9A-Fa-f]){6}")) {
-                        // Extract hex digits
-                        StringBuilder hexBuilder = new StringBuilder("#");
-                        for (int j = 2; j < 14; j += 2) {
-                            hexBuilder.append(extended.charAt(j + 1));
-                        }
-                        currentColor = hexBuilder.toString().toUpperCase();
-                        i += 14;
-                        continue;
-                    }
-                }
+    public DecorationCache getDecorationCache() {
+        return decorationCache;
+    }
 
-                // Check for legacy color/format codes
-                String newColor = legacyColorToHex(next);
-                if (newColor != null) {
-                    currentColor = newColor;
-                    i += 2;
-                    continue;
-                }
+    public MessageOptimizer getMessageOptimizer() {
+        return messageOptimizer;
+    }
 
-                // Check for formatting codes
-                switch (Character.toLowerCase(next)) {
-                    case 'l': bold = true; i += 2; continue;
-                    case 'o': italic = true; i += 2; continue;
-                    case 'r': // Reset
-                        currentColor = "#FFFFFF";
-                        bold = false;
-                        italic = false;
-                        i += 2;
-                        continue;
-                }
-            }
+    public LoadGovernor getLoadGovernor() {
+        return loadGovernor;
+    }
 
-            currentText.append(c);
-            i++;
-        }
+    public FanOutExecutor getFanOut() {
+        return fanOut;
+    }
 
-        // Flush remaining text
-        if (currentText.length() > 0) {
-            Message part = Message.raw(currentText.toString()).color(currentColor);
-            if (bold) part = part.bold(true);
-            if (italic) part = part.italic(true);
-            parts.add(part);
-        }
+    public WorldBatcher getWorldBatcher() {
+        return worldBatcher;
+    }
 
-        if (parts.isEmpty()) {
-            return Message.raw("");
-        } else if (parts.size() == 1) {
-            return parts.get(0);
-        } else {
-            return Message.join(parts.toArray(new Message[0]));
-        }
+    public OutboundQueues getOutboundQueues() {
+        return outboundQueues;
     }
 
     /**
-     * Convert Minecraft legacy color code to hex color.
+     * Delivers any coalesced or fanned-out lines still held. Called on plugin shutdown, before the chat log closes.
      */
-    private String legacyColorToHex(char code) {
-        return switch (Character.toLowerCase(code)) {
-            case '0' -> "#000000"; // Black
-            case '1' -> "#0000AA"; // Dark Blue
-            case '2' -> "#00AA00"; // Dark Green
-            case '3' -> "#00AAAA"; // Dark Aqua
-            case '4' -> "#AA0000"; // Dark Red
-            case '5' -> "#AA00AA"; // Dark Purple
-            case '6' -> "#FFAA00"; // Gold
-            case '7' -> "#AAAAAA"; // Gray
-            case '8' -> "#555555"; // Dark Gray
-            case '9' -> "#5555FF"; // Blue
-            case 'a' -> "#55FF55"; // Green
-            case 'b' -> "#55FFFF"; // Aqua
-            case 'c' -> "#FF5555"; // Red
-            case 'd' -> "#FF55FF"; // Light Purple
-            case 'e' -> "#FFFF55"; // Yellow
-            case 'f' -> "#FFFFFF"; // White
-            default -> null;
-        };
+    public void shutdown() {
+        coalescer.shutdown();
+        fanOut.shutdown();
+        outboundQueues.flush();
+        worldBatcher.flush();
     }
 
     /**
      * Create a gradient-colored message where each character transitions from startColor to endColor.
      */
-    private Message createGradientMessage(String text, String startColor, String endColor) {
-        return createGradientMessage(text, startColor, endColor, false, false, false);
+    private StyledText createGradientMessage(ChatLexer.LexedMessage message, String startColor, String endColor, boolean bold, boolean italic) {
+        return GradientRenderer.spans(message.text(), startColor, endColor, bold, italic, message.linkTargetIndex());
     }
 
-    private Message createGradientMessage(String text, String startColor, String endColor, boolean bold, boolean italic) {
-        return createGradientMessage(text, startColor, endColor, bold, italic, true);
-    }
-
-    private Message createGradientMessage(String text, String startColor, String endColor,
-                                          boolean bold, boolean italic, boolean allowLinks) {
-        if (text == null || text.isEmpty()) {
-            return Message.raw("");
-        }
-        if (text.length() == 1) {
-            return createStyledPart(text, startColor, bold, italic, null);
-        }
-
-        // Parse hex colors
-        int startR = Integer.parseInt(startColor.substring(1, 3), 16);
-        int startG = Integer.parseInt(startColor.substring(3, 5), 16);
-        int startB = Integer.parseInt(startColor.substring(5, 7), 16);
-        int endR = Integer.parseInt(endColor.substring(1, 3), 16);
-        int endG = Integer.parseInt(endColor.substring(3, 5), 16);
-        int endB = Integer.parseInt(endColor.substring(5, 7), 16);
-
-        int len = text.length();
-        List<UrlRange> urlRanges = allowLinks ? extractUrlRanges(text) : Collections.emptyList();
-        String[] linkTargets = buildLinkTargetIndex(urlRanges, len);
-        List<Message> parts = new ArrayList<>(len);
-
-        for (int i = 0; i < len; i++) {
-            float ratio = (float) i / (len - 1);
-            int r = Math.round(startR + (endR - startR) * ratio);
-            int g = Math.round(startG + (endG - startG) * ratio);
-            int b = Math.round(startB + (endB - startB) * ratio);
-            String color = String.format("#%02X%02X%02X", r, g, b);
-            String linkTarget = linkTargets == null ? null : linkTargets[i];
-            parts.add(createStyledPart(String.valueOf(text.charAt(i)), color, bold, italic, linkTarget));
+    private StyledText buildStyledMessageWithLinks(ChatLexer.LexedMessage message, String color, boolean bold, boolean italic) {
+        String text = message.text();
+        if (!message.hasUrls()) {
+            return StyledText.of(text, color, bold, italic, null);
         }
 
-        return Message.join(parts.toArray(new Message[0]));
-    }
-
-    private Message buildStyledMessageWithLinks(String text, String color, boolean bold, boolean italic) {
-        if (text == null || text.isEmpty()) {
-            return Message.raw("");
-        }
-
-        List<UrlRange> urlRanges = extractUrlRanges(text);
-        if (urlRanges.isEmpty()) {
-            return createStyledPart(text, color, bold, italic, null);
-        }
-
-        List<Message> parts = new ArrayList<>();
+        StyledText.Builder parts = StyledText.builder();
         int cursor = 0;
-        for (UrlRange urlRange : urlRanges) {
-            if (cursor < urlRange.start()) {
-                parts.add(createStyledPart(text.substring(cursor, urlRange.start()), color, bold, italic, null));
-            }
-            parts.add(createStyledPart(text.substring(urlRange.start(), urlRange.end()), color, bold, italic, urlRange.linkTarget()));
-            cursor = urlRange.end();
-        }
-        if (cursor < text.length()) {
-            parts.add(createStyledPart(text.substring(cursor), color, bold, italic, null));
-        }
-
-        if (parts.size() == 1) {
-            return parts.get(0);
-        }
-        return Message.join(parts.toArray(new Message[0]));
-    }
-
-    private Message createStyledPart(String text, String color, boolean bold, boolean italic, String linkTarget) {
-        Message part = Message.raw(text).color(color);
-        if (bold) {
-            part = part.bold(true);
-        }
-        if (italic) {
-            part = part.italic(true);
-        }
-        if (linkTarget != null) {
-            part = part.link(linkTarget);
-        }
-        return part;
-    }
-
-    private List<UrlRange> extractUrlRanges(String text) {
-        if (!config.isClickableUrlsEnabled() || text == null || text.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        List<UrlRange> ranges = new ArrayList<>();
-        Matcher matcher = URL_PATTERN.matcher(text);
-        while (matcher.find()) {
-            int start = matcher.start(1);
-            int end = matcher.end(1);
-
-            // Drop trailing punctuation so "example.com," links correctly without the comma.
-            while (end > start && URL_TRAILING_PUNCTUATION.indexOf(text.charAt(end - 1)) >= 0) {
-                end--;
-            }
-            if (end <= start) {
+        for (ChatLexer.Token token : message.tokens()) {
+            if (token.type() != ChatLexer.TokenType.URL) {
                 continue;
             }
-
-            String rawUrl = text.substring(start, end);
-            String linkTarget = normalizeLinkTarget(rawUrl);
-            ranges.add(new UrlRange(start, end, linkTarget));
-        }
-
-        return ranges;
-    }
-
-    private String normalizeLinkTarget(String rawUrl) {
-        if (rawUrl.regionMatches(true, 0, "http://", 0, 7) ||
-            rawUrl.regionMatches(true, 0, "https://", 0, 8)) {
-            return rawUrl;
-        }
-        return "https://" + rawUrl;
-    }
-
-    private String[] buildLinkTargetIndex(List<UrlRange> ranges, int messageLength) {
-        if (ranges.isEmpty()) {
-            return null;
-        }
-        String[] index = new String[messageLength];
-        for (UrlRange range : ranges) {
-            for (int i = range.start(); i < range.end(); i++) {
-                index[i] = range.linkTarget();
+            if (cursor < token.start()) {
+                parts.append(text.substring(cursor, token.start()), color, bold, italic, null);
             }
+            parts.append(text.substring(token.start(), token.end()), color, bold, italic, token.value());
+            cursor = token.end();
         }
-        return index;
+        if (cursor < text.length()) {
+            parts.append(text.substring(cursor), color, bold, italic, null);
+        }
+        return parts.build();
     }
 
     public void sendPrivateMessage(PlayerRef sender, PlayerRef recipient, String message) {
         UUID senderId = sender.getUuid();
         UUID recipientId = recipient.getUuid();
 
+        if (!checkRateLimit(sender)) {
+            return;
+        }
+
         // Check if recipient is ignoring sender
         if (playerDataManager.isIgnoring(recipientId, senderId)) {
             sender.sendMessage(Message.raw("That player is not receiving messages from you.").color("#FF0000"));
@@ -937,6 +1165,10 @@ public class ChatListener {
             }
         }
 
+        if (!chargeRateLimit(sender)) {
+            return;
+        }
+
         // Use display names (nicknames if set)
         String senderDisplayName = playerDataManager.getDisplayName(senderId);
         String recipientDisplayName = playerDataManager.getDisplayName(recipientId);
@@ -947,32 +1179,100 @@ public class ChatListener {
         if (senderColor == null) senderColor = "#55FF55";
         if (recipientColor == null) recipientColor = "#55FF55";
 
+        ChatLexer.LexedMessage lexed = ChatLexer.lexChat(message, false, config.isClickableUrlsEnabled());
+
         // Message to recipient: [From SenderName] message
-        Message toRecipient = Message.join(
-            Message.raw("[From ").color("#AAAAAA"),
-            Message.raw(senderDisplayName).color(senderColor),
-            Message.raw("] ").color("#AAAAAA"),
-            buildStyledMessageWithLinks(message, "#FFFFFF", false, false)
-        );
+        StyledText body = buildStyledMessageWithLinks(lexed, "#FFFFFF", false, false);
+        boolean optimize = config.isMessageOptimizerEnabled();
+        Message toRecipient = messageOptimizer.render(List.of(
+            PM_FROM_OPEN,
+            StyledText.of(senderDisplayName, senderColor),
+            PM_CLOSE,
+            body
+        ), optimize);
 
         // Message to sender: [To RecipientName] message
-        Message toSender = Message.join(
-            Message.raw("[To ").color("#AAAAAA"),
-            Message.raw(recipientDisplayName).color(recipientColor),
-            Message.raw("] ").color("#AAAAAA"),
-            buildStyledMessageWithLinks(message, "#FFFFFF", false, false)
-        );
+        Message toSender = messageOptimizer.render(List.of(
+            PM_TO_OPEN,
+            StyledText.of(recipientDisplayName, recipientColor),
+            PM_CLOSE,
+            body
+        ), optimize);
 
-        recipient.sendMessage(toRecipient);
-        sender.sendMessage(toSender);
+        sendPriority(recipient, toRecipient);
+        sendPriority(sender, toSender);
 
         // Update last message from for reply functionality
         playerDataManager.setLastMessageFrom(recipientId, senderId);
 
         // Log PM (use real usernames for logs)
-        plugin.getLogger().at(Level.INFO).log("[PM] %s -> %s: %s", sender.getUsername(), recipient.getUsername(), message);
+        plugin.getChatLog().logPrivate(sender, recipient, message);
     }
 
-    private record UrlRange(int start, int end, String linkTarget) {
+    /**
+     * Channel and sender decoration for one message, with sender placeholders already applied.
+     * literals is parallel to the template segments (null for token segments).
+     * relational is set when any part still depends on the recipient.
+     */
+    private record SenderDecorations(FormatTemplate template,
+                                     PAPIIntegration.SenderResolved[] literals,
+                                     PAPIIntegration.SenderResolved channelName,
+                                     PAPIIntegration.SenderResolved channelNick,
+                                     PAPIIntegration.SenderResolved prefix,
+                                     PAPIIntegration.SenderResolved suffix,
+                                     boolean relational) {
+
+        /**
+         * The decoration text with relational placeholders removed.
+         */
+        ResolvedDecorations resolveNeutral() {
+            String[] literalText = new String[literals.length];
+            for (int i = 0; i < literals.length; i++) {
+                literalText[i] = literals[i] != null ? literals[i].viewerNeutral() : null;
+            }
+            return new ResolvedDecorations(channelName.viewerNeutral(), channelNick.viewerNeutral(),
+                prefix.viewerNeutral(), suffix.viewerNeutral(), Arrays.asList(literalText));
+        }
+
+        /**
+         * The decoration text as one recipient sees it.
+         */
+        ResolvedDecorations resolveFor(PlayerRef sender, PlayerRef recipient) {
+            String[] literalText = new String[literals.length];
+            for (int i = 0; i < literals.length; i++) {
+                literalText[i] = literals[i] != null ? literals[i].forRecipient(sender, recipient) : null;
+            }
+            return new ResolvedDecorations(channelName.forRecipient(sender, recipient), channelNick.forRecipient(sender, recipient),
+                prefix.forRecipient(sender, recipient), suffix.forRecipient(sender, recipient), Arrays.asList(literalText));
+        }
+    }
+
+    /**
+     * Sender decorations with relational placeholders applied for a recipient.
+     * literals has one entry per format segment, null for tokens.
+     */
+    private record ResolvedDecorations(String channelName, String channelNick, String prefix, String suffix,
+                                       List<String> literals) {
+    }
+
+    /**
+     * A chat line ready for delivery, carried from the render stage to the deliver stage.
+     */
+    record PreparedLine(Channel channel,
+                        PlayerRef sender,
+                        String message,
+                        ChatLexer.LexedMessage lexed,
+                        Set<UUID> mentionedPlayers,
+                        SenderDecorations decorations,
+                        boolean relational,
+                        boolean gradients) {
+    }
+
+    /**
+     * Everything that can make one recipient's render differ from another's: the mention state and
+     * the decorations as resolved for them. Recipients whose relational placeholders resolve to the
+     * same text share one render.
+     */
+    private record RenderKey(boolean mentioned, ResolvedDecorations resolved) {
     }
 }
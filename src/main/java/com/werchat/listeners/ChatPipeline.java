@@ -0,0 +1,254 @@
+package com.werchat.listeners;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.werchat.channels.Channel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The chain of stages a channel message passes through, built once per config load. Features that
+ * are switched off are left out of the chain rather than checked for each message. A stage either
+ * passes the message on, stops it (having told the sender why) or suspends it until an
+ * asynchronous check completes.
+ * <p>
+ * A suspended message resumes on the sender's world thread, never on whichever thread completed
+ * the check. Messages from a sender who still has one suspended queue behind it, so a sender's
+ * lines are always delivered in the order they were sent.
+ */
+public final class ChatPipeline {
+
+    public enum Step { CONTINUE, STOP, SUSPEND }
+
+    /**
+     * One step of chat processing. Stages may change the message, channel or rendered line on the
+     * context for the stages after them.
+     */
+    @FunctionalInterface
+    interface Stage {
+        Step process(Context context);
+    }
+
+    /**
+     * A message on its way through the pipeline.
+     */
+    static final class Context {
+        final PlayerRef sender;
+        final UUID senderId;
+        String message;
+        Channel channel;
+        ChatListener.PreparedLine line;
+        // Time spent in the stages so far, not counting waits on suspended stages
+        long processingNanos;
+        private CompletableFuture<Boolean> pending;
+
+        Context(PlayerRef sender, String message) {
+            this.sender = sender;
+            this.senderId = sender.getUuid();
+            this.message = message;
+        }
+
+        /**
+         * Holds the message until the future completes: true continues with the next stage, false stops.
+         */
+        Step suspend(CompletableFuture<Boolean> future) {
+            this.pending = future;
+            return Step.SUSPEND;
+        }
+    }
+
+    /**
+     * Time spent in one stage and how often it stopped a message.
+     */
+    public record StageStats(String name, long messages, double averageMicros, double maxMicros, long stopped) {}
+
+    static final class StageTimer {
+        private final LongAdder messages = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder stopped = new LongAdder();
+
+        void record(long nanos, boolean stop) {
+            messages.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (stop) {
+                stopped.increment();
+            }
+        }
+
+        StageStats snapshot(String name) {
+            long count = messages.sum();
+            double average = count == 0 ? 0 : totalNanos.sum() / (double) count / 1000.0;
+            return new StageStats(name, count, average, maxNanos.get() / 1000.0, stopped.sum());
+        }
+    }
+
+    private final int revision;
+    private final String[] names;
+    private final Stage[] stages;
+    private final StageTimer[] timers;
+    private final LoadGovernor governor;
+    private final Consumer<Throwable> onError;
+    private final BiConsumer<PlayerRef, Runnable> resumer;
+    // Completes when the sender's latest message leaves the pipeline; shared across rebuilds
+    private final Map<UUID, CompletableFuture<Void>> senderTails;
+
+    private ChatPipeline(Builder builder) {
+        this.revision = builder.revision;
+        this.names = builder.names.toArray(new String[0]);
+        this.stages = builder.stages.toArray(new Stage[0]);
+        this.timers = builder.stageTimers.toArray(new StageTimer[0]);
+        this.governor = builder.governor;
+        this.onError = builder.onError;
+        this.resumer = builder.resumer;
+        this.senderTails = builder.senderTails;
+    }
+
+    int getRevision() {
+        return revision;
+    }
+
+    void run(Context context) {
+        governor.enter();
+        CompletableFuture<Void> finished = new CompletableFuture<>();
+        CompletableFuture<Void> previous = senderTails.put(context.senderId, finished);
+        if (previous == null || previous.isDone()) {
+            proceed(context, 0, finished);
+        } else {
+            // An earlier message from this sender is still suspended: go after it
+            previous.whenComplete((ignored, error) -> resume(context, () -> proceed(context, 0, finished)));
+        }
+    }
+
+    private void proceed(Context context, int from, CompletableFuture<Void> finished) {
+        try {
+            if (!run(context, from, finished)) {
+                finish(context, finished);
+            }
+        } catch (RuntimeException e) {
+            finish(context, finished);
+            throw e;
+        }
+    }
+
+    private void finish(Context context, CompletableFuture<Void> finished) {
+        governor.exit();
+        senderTails.remove(context.senderId, finished);
+        finished.complete(null);
+    }
+
+    private void resume(Context context, Runnable task) {
+        try {
+            resumer.accept(context.sender, task);
+        } catch (RuntimeException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * Runs stages from the given index. Returns true when a stage suspended the message, in which
+     * case the rest of the chain (and leaving the pipeline) happens when it resumes.
+     */
+    private boolean run(Context context, int from, CompletableFuture<Void> finished) {
+        for (int i = from; i < stages.length; i++) {
+            long started = System.nanoTime();
+            Step step = stages[i].process(context);
+            if (step == Step.SUSPEND) {
+                int stage = i;
+                long suspendedAt = System.nanoTime();
+                context.processingNanos += suspendedAt - started;
+                CompletableFuture<Boolean> pending = context.pending;
+                context.pending = null;
+                pending.whenComplete((proceed, error) -> resume(context, () -> {
+                    if (error != null) {
+                        finish(context, finished);
+                        onError.accept(error);
+                        return;
+                    }
+                    timers[stage].record(System.nanoTime() - started, !proceed);
+                    if (proceed) {
+                        proceed(context, stage + 1, finished);
+                    } else {
+                        finish(context, finished);
+                    }
+                }));
+                return true;
+            }
+            long elapsed = System.nanoTime() - started;
+            context.processingNanos += elapsed;
+            timers[i].record(elapsed, step == Step.STOP);
+            if (step == Step.STOP) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public List<StageStats> getStats() {
+        List<StageStats> stats = new ArrayList<>(stages.length);
+        for (int i = 0; i < stages.length; i++) {
+            stats.add(timers[i].snapshot(names[i]));
+        }
+        return stats;
+    }
+
+    static Builder builder(int revision, Map<String, StageTimer> timers, LoadGovernor governor, Consumer<Throwable> onError) {
+        return new Builder(revision, timers, governor, onError);
+    }
+
+    /**
+     * Collects the enabled stages in order. Timers are shared by name, so counters survive a rebuild.
+     */
+    static final class Builder {
+        private final int revision;
+        private final Map<String, StageTimer> timers;
+        private final LoadGovernor governor;
+        private final Consumer<Throwable> onError;
+        private BiConsumer<PlayerRef, Runnable> resumer = (sender, task) -> task.run();
+        private Map<UUID, CompletableFuture<Void>> senderTails = new ConcurrentHashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<Stage> stages = new ArrayList<>();
+        private final List<StageTimer> stageTimers = new ArrayList<>();
+
+        private Builder(int revision, Map<String, StageTimer> timers, LoadGovernor governor, Consumer<Throwable> onError) {
+            this.revision = revision;
+            this.timers = timers;
+            this.governor = governor;
+            this.onError = onError;
+        }
+
+        Builder add(String name, Stage stage) {
+            names.add(name);
+            stages.add(stage);
+            stageTimers.add(timers.computeIfAbsent(name, ignored -> new StageTimer()));
+            return this;
+        }
+
+        Builder addIf(boolean enabled, String name, Stage stage) {
+            return enabled ? add(name, stage) : this;
+        }
+
+        /**
+         * Where suspended messages resume, and the per-sender ordering they share with the
+         * pipelines built before and after this one.
+         */
+        Builder resumeOn(BiConsumer<PlayerRef, Runnable> resumer, Map<UUID, CompletableFuture<Void>> senderTails) {
+            this.resumer = resumer;
+            this.senderTails = senderTails;
+            return this;
+        }
+
+        ChatPipeline build() {
+            return new ChatPipeline(this);
+        }
+    }
+}
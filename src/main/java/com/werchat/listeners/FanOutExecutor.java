@@ -0,0 +1,172 @@
+package com.werchat.listeners;
+
+import com.werchat.WerchatPlugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Formats and sends lines for large channels on a work-stealing pool. Recipients are split into
+ * lanes by a hash of their UUID and each lane runs its tasks one at a time in submission order,
+ * so a player always receives lines in the order they were sent while different lanes run in
+ * parallel. While any lane still has work queued, smaller lines go through the lanes too, so they
+ * can't overtake a large line on its way to the same player.
+ */
+public final class FanOutExecutor {
+
+    private static final int MAX_PARALLELISM = 64;
+
+    private final WerchatPlugin plugin;
+    private final ForkJoinPool pool;
+    private final Lane[] lanes;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder laneTasks = new LongAdder();
+
+    /**
+     * One serial queue of tasks; at most one drain per lane is scheduled on the pool at a time.
+     */
+    private final class Lane {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void submit(Runnable task) {
+            queued.incrementAndGet();
+            tasks.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                pool.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                drain(); // Shutting down: finish on the caller
+            }
+        }
+
+        private void drain() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    plugin.getLogger().at(Level.WARNING).log("Chat fan-out task failed: %s", e.getMessage());
+                } finally {
+                    queued.decrementAndGet();
+                }
+            }
+            scheduled.set(false);
+            // A task added after the last poll but before the flag cleared still needs a drain
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    FanOutExecutor(WerchatPlugin plugin) {
+        this.plugin = plugin;
+        int parallelism = plugin.getConfig().getFanOutParallelism();
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        parallelism = Math.max(1, Math.min(MAX_PARALLELISM, parallelism));
+
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("Werchat-FanOut-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Async mode: lane drains are independent event-style tasks, taken FIFO
+        this.pool = new ForkJoinPool(parallelism, factory, null, true);
+        this.lanes = new Lane[parallelism];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * Whether a line for this many channel members should go through the lanes.
+     */
+    boolean shouldFanOut(int members) {
+        int threshold = plugin.getConfig().getFanOutThreshold();
+        return threshold > 0 && (members >= threshold || queued.get() > 0);
+    }
+
+    /**
+     * Runs action for every recipient on the recipient's lane. Returns immediately.
+     */
+    void submit(Collection<UUID> recipients, Consumer<UUID> action) {
+        List<List<UUID>> byLane = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            byLane.add(null);
+        }
+        for (UUID recipient : recipients) {
+            int lane = laneOf(recipient);
+            List<UUID> laneRecipients = byLane.get(lane);
+            if (laneRecipients == null) {
+                laneRecipients = new ArrayList<>(recipients.size() / lanes.length + 1);
+                byLane.set(lane, laneRecipients);
+            }
+            laneRecipients.add(recipient);
+        }
+
+        lines.increment();
+        for (int i = 0; i < lanes.length; i++) {
+            List<UUID> laneRecipients = byLane.get(i);
+            if (laneRecipients == null) {
+                continue;
+            }
+            laneTasks.increment();
+            lanes[i].submit(() -> {
+                for (UUID recipient : laneRecipients) {
+                    action.accept(recipient);
+                }
+            });
+        }
+    }
+
+    public int getLaneCount() { return lanes.length; }
+    public int getQueued() { return queued.get(); }
+    public long getLines() { return lines.sum(); }
+    public long getLaneTasks() { return laneTasks.sum(); }
+    public int getActiveThreads() { return pool.getActiveThreadCount(); }
+
+    /**
+     * Lets queued lines finish, for up to two seconds.
+     */
+    void shutdown() {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(2, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int laneOf(UUID recipient) {
+        long bits = recipient.getMostSignificantBits() ^ recipient.getLeastSignificantBits();
+        int hash = (int) (bits ^ (bits >>> 32));
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, lanes.length);
+    }
+}
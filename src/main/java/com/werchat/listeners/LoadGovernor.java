@@ -0,0 +1,174 @@
+package com.werchat.listeners;
+
+import com.werchat.WerchatPlugin;
+import com.werchat.config.WerchatConfig;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Steps channel chat rendering down when the server can't keep up, and back up once it can.
+ * <p>
+ * Two signals are sampled per evaluation window: the average time to process and deliver one
+ * message, and the most messages in the pipeline at once (including ones waiting on a
+ * classifier). Either reaching its target raises the level by one per window. The level only
+ * drops, again one step at a time, after both signals have stayed under half their targets for
+ * {@code recoverSeconds}, so a storm that comes in waves doesn't flap between levels.
+ */
+public final class LoadGovernor {
+
+    /**
+     * Degradation levels; each includes the ones before it.
+     */
+    public enum LoadLevel {
+        NORMAL("normal"),
+        NO_RELATIONAL("no-relational"),
+        SOLID_COLORS("solid-colors"),
+        NO_LINKS("no-links"),
+        COALESCE("coalesce");
+
+        private final String key;
+
+        LoadLevel(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        static LoadLevel fromKey(String key) {
+            for (LoadLevel level : values()) {
+                if (level.key.equalsIgnoreCase(key)) {
+                    return level;
+                }
+            }
+            return COALESCE;
+        }
+    }
+
+    private static final double RECOVER_PRESSURE = 0.5;
+
+    private final WerchatPlugin plugin;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder levelChanges = new LongAdder();
+
+    // Current window, guarded by this
+    private long windowStart = System.nanoTime();
+    private long windowMessages;
+    private long windowNanos;
+    private int windowPeakDepth;
+    private long calmSince = -1;
+    private double lastPressure;
+
+    private volatile LoadLevel level = LoadLevel.NORMAL;
+
+    LoadGovernor(WerchatPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    void enter() {
+        int depth = inFlight.incrementAndGet();
+        synchronized (this) {
+            windowPeakDepth = Math.max(windowPeakDepth, depth);
+        }
+    }
+
+    void exit() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Time spent processing and delivering one message that reached its recipients.
+     */
+    void recordLatency(long nanos) {
+        synchronized (this) {
+            windowMessages++;
+            windowNanos += nanos;
+        }
+        evaluate();
+    }
+
+    public LoadLevel getLevel() {
+        evaluate();
+        return level;
+    }
+
+    boolean atLeast(LoadLevel threshold) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    public int getInFlight() { return inFlight.get(); }
+    public long getLevelChanges() { return levelChanges.sum(); }
+
+    public synchronized double getPressure() {
+        return lastPressure;
+    }
+
+    private void evaluate() {
+        WerchatConfig config = plugin.getConfig();
+        if (!config.isLoadGovernorEnabled()) {
+            if (level != LoadLevel.NORMAL) {
+                changeLevel(LoadLevel.NORMAL, 0);
+            }
+            return;
+        }
+
+        LoadLevel next;
+        double pressure;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (now - windowStart < config.getLoadGovernorEvaluateMillis() * 1_000_000L) {
+                return;
+            }
+            double averageMicros = windowMessages == 0 ? 0 : windowNanos / (double) windowMessages / 1000.0;
+            pressure = Math.max(averageMicros / config.getLoadGovernorLatencyTargetMicros(),
+                windowPeakDepth / (double) config.getLoadGovernorMaxQueueDepth());
+            lastPressure = pressure;
+            windowStart = now;
+            windowMessages = 0;
+            windowNanos = 0;
+            windowPeakDepth = inFlight.get();
+
+            LoadLevel current = level;
+            LoadLevel maxLevel = LoadLevel.fromKey(config.getLoadGovernorMaxLevel());
+            next = current;
+            if (pressure >= 1.0) {
+                calmSince = -1;
+                if (current.compareTo(maxLevel) < 0) {
+                    next = LoadLevel.values()[current.ordinal() + 1];
+                }
+            } else if (pressure <= RECOVER_PRESSURE) {
+                if (calmSince < 0) {
+                    calmSince = now;
+                }
+                if (current != LoadLevel.NORMAL && now - calmSince >= config.getLoadGovernorRecoverSeconds() * 1_000_000_000L) {
+                    next = LoadLevel.values()[current.ordinal() - 1];
+                    calmSince = now;
+                }
+            } else {
+                calmSince = -1;
+            }
+            if (next.compareTo(maxLevel) > 0) {
+                next = maxLevel;
+            }
+            if (next == current) {
+                return;
+            }
+            level = next;
+        }
+        levelChanges.increment();
+        plugin.getLogger().at(Level.INFO).log("Chat load level is now %s (pressure %.2f)", next.getKey(), pressure);
+    }
+
+    private synchronized void changeLevel(LoadLevel next, double pressure) {
+        if (level == next) {
+            return;
+        }
+        level = next;
+        lastPressure = pressure;
+        calmSince = -1;
+        levelChanges.increment();
+    }
+}
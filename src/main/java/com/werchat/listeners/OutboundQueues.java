@@ -0,0 +1,171 @@
+package com.werchat.listeners;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.werchat.WerchatPlugin;
+import com.werchat.config.WerchatConfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * A bounded outbound chat queue per online player, drained on the player's world thread a tick
+ * at a time. Each drain sends at most {@code linesPerTick} channel lines, so a player who is
+ * flooded, or whose client can't keep up, costs a bounded amount of work per tick and never holds
+ * up anyone else. When a queue is full its oldest channel lines are dropped, optionally with a
+ * "N messages skipped" notice. System, PM and moderation lines go in a priority lane that is sent
+ * first on every drain and never dropped.
+ */
+public final class OutboundQueues {
+
+    private final WerchatPlugin plugin;
+    private final WorldBatcher worldBatcher;
+    private final Map<UUID, RecipientQueue> queues = new ConcurrentHashMap<>();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder prioritySent = new LongAdder();
+
+    private final class RecipientQueue {
+        private final PlayerRef recipient;
+        // Guarded by this
+        private final ArrayDeque<Message> priority = new ArrayDeque<>();
+        private final ArrayDeque<Message> chat = new ArrayDeque<>();
+        private int skipped;
+        private boolean scheduled;
+
+        RecipientQueue(PlayerRef recipient) {
+            this.recipient = recipient;
+        }
+
+        void add(Message message, boolean isPriority, int capacity) {
+            boolean schedule;
+            synchronized (this) {
+                if (isPriority) {
+                    priority.add(message);
+                } else {
+                    while (chat.size() >= capacity) {
+                        chat.pollFirst();
+                        skipped++;
+                        dropped.increment();
+                    }
+                    chat.add(message);
+                }
+                schedule = !scheduled;
+                scheduled = true;
+            }
+            if (schedule) {
+                worldBatcher.execute(recipient, this::drain);
+            }
+        }
+
+        void drain() {
+            WerchatConfig config = plugin.getConfig();
+            List<Message> priorityLines;
+            List<Message> chatLines;
+            int skippedLines;
+            boolean more;
+            synchronized (this) {
+                priorityLines = new ArrayList<>(priority);
+                priority.clear();
+                int count = Math.min(chat.size(), config.getOutboundLinesPerTick());
+                chatLines = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    chatLines.add(chat.pollFirst());
+                }
+                skippedLines = skipped;
+                skipped = 0;
+                more = !chat.isEmpty();
+                scheduled = more;
+            }
+
+            for (Message line : priorityLines) {
+                send(line);
+            }
+            prioritySent.add(priorityLines.size());
+            if (skippedLines > 0 && config.isOutboundCollapseOverflow()) {
+                send(Message.raw("[" + skippedLines + " messages skipped]").color("#AAAAAA"));
+            }
+            for (Message line : chatLines) {
+                send(line);
+            }
+            sent.add(chatLines.size());
+
+            if (more) {
+                worldBatcher.execute(recipient, this::drain);
+            }
+        }
+
+        private void send(Message message) {
+            try {
+                recipient.sendMessage(message);
+            } catch (RuntimeException e) {
+                plugin.getLogger().at(Level.WARNING).log("Failed to send chat to %s: %s", recipient.getUsername(), e.getMessage());
+            }
+        }
+
+        synchronized int size() {
+            return priority.size() + chat.size();
+        }
+    }
+
+    OutboundQueues(WerchatPlugin plugin, WorldBatcher worldBatcher) {
+        this.plugin = plugin;
+        this.worldBatcher = worldBatcher;
+    }
+
+    /**
+     * Queues a channel line; it may be dropped if the recipient falls too far behind.
+     */
+    void send(PlayerRef recipient, Message message) {
+        queueFor(recipient).add(message, false, plugin.getConfig().getOutboundCapacity());
+    }
+
+    /**
+     * Queues a system, PM or moderation line ahead of channel chat. Never dropped.
+     */
+    void sendPriority(PlayerRef recipient, Message message) {
+        queueFor(recipient).add(message, true, 0);
+    }
+
+    /**
+     * Forgets a player's queue. Called on connect and disconnect, so a new session never reuses
+     * a queue bound to an old connection.
+     */
+    public void evict(UUID playerId) {
+        queues.remove(playerId);
+    }
+
+    /**
+     * Sends everything still queued from the calling thread. Used on shutdown.
+     */
+    void flush() {
+        for (RecipientQueue queue : queues.values()) {
+            while (queue.size() > 0) {
+                queue.drain();
+            }
+        }
+    }
+
+    public int getTrackedPlayers() { return queues.size(); }
+    public long getSentCount() { return sent.sum(); }
+    public long getPrioritySentCount() { return prioritySent.sum(); }
+    public long getDroppedCount() { return dropped.sum(); }
+
+    public int getQueuedCount() {
+        int queued = 0;
+        for (RecipientQueue queue : queues.values()) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    private RecipientQueue queueFor(PlayerRef recipient) {
+        return queues.computeIfAbsent(recipient.getUuid(), id -> new RecipientQueue(recipient));
+    }
+}
@@ -9,6 +9,11 @@ import com.werchat.WerchatPlugin;
 import com.werchat.channels.Channel;
 import com.werchat.channels.ChannelManager;
 import com.werchat.config.WerchatConfig;
+import com.werchat.history.ScrollbackManager;
+import com.werchat.moderation.JoinLog;
+import com.werchat.moderation.RateLimiter;
+import com.werchat.moderation.SlowModeTracker;
+import com.werchat.moderation.SpamGuard;
 import com.werchat.storage.PlayerDataManager;
 
 import java.util.UUID;
@@ -22,12 +27,22 @@ public class PlayerListener {
     private final ChannelManager channelManager;
     private final PlayerDataManager playerDataManager;
     private final WerchatConfig config;
+    private final ScrollbackManager scrollback;
+    private final RateLimiter rateLimiter;
+    private final SlowModeTracker slowMode;
+    private final SpamGuard spamGuard;
+    private final JoinLog joinLog;
 
     public PlayerListener(WerchatPlugin plugin) {
         this.chatListener = plugin.getChatListener();
         this.channelManager = plugin.getChannelManager();
         this.playerDataManager = plugin.getPlayerDataManager();
         this.config = plugin.getConfig();
+        this.scrollback = plugin.getScrollback();
+        this.rateLimiter = plugin.getRateLimiter();
+        this.slowMode = plugin.getSlowMode();
+        this.spamGuard = plugin.getSpamGuard();
+        this.joinLog = plugin.getJoinLog();
     }
 
     private boolean hasChannelJoinPermission(UUID playerId, Channel channel) {
@@ -44,6 +59,8 @@ public class PlayerListener {
 
         // Track online player
         playerDataManager.trackPlayer(playerId, player);
+        chatListener.getOutboundQueues().evict(playerId);
+        joinLog.record(playerId);
         channelManager.resetMotdSession(playerId);
 
         Channel firstJoinedChannel = null;
@@ -83,6 +100,12 @@ public class PlayerListener {
             }
         }
 
+        // Catch the player up on their focused channel
+        Channel focused = channelManager.getChannel(playerDataManager.getFocusedChannel(playerId));
+        if (focused != null) {
+            scrollback.replay(player, focused);
+        }
+
         if (config.isShowJoinLeaveMessages() && firstJoinedChannel != null) {
             broadcastMembershipEvent(playerName + " joined the server");
         }
@@ -101,6 +124,10 @@ public class PlayerListener {
         channelManager.resetMotdSession(playerId);
         playerDataManager.untrackPlayer(playerId);
         playerDataManager.clearTransientData(playerId);
+        rateLimiter.release(playerId);
+        slowMode.release(playerId);
+        spamGuard.release(playerId);
+        chatListener.getOutboundQueues().evict(playerId);
     }
 
     private void broadcastMembershipEvent(String text) {
@@ -118,7 +145,7 @@ public class PlayerListener {
         for (UUID memberId : channel.getMembers()) {
             PlayerRef member = playerDataManager.getOnlinePlayer(memberId);
             if (member != null) {
-                member.sendMessage(formatted);
+                chatListener.sendPriority(member, formatted);
             }
         }
     }
@@ -0,0 +1,174 @@
+package com.werchat.listeners;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.werchat.WerchatPlugin;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Runs chat delivery on the recipient's own world thread. Tasks are queued per world and the
+ * first task of a batch schedules one drain on the world's executor, so everything queued before
+ * the next tick runs together. Only one thread drains a world's queue at a time, so its tasks
+ * always run in the order they were queued.
+ * <p>
+ * Tasks for players between worlds (no world, or one that can't be found) never run on the
+ * calling thread; they go to a single fallback thread, which also takes over the drain of a world
+ * that hasn't run it for a second.
+ */
+public final class WorldBatcher {
+
+    private static final long STALL_NANOS = 1_000_000_000L;
+
+    private final WerchatPlugin plugin;
+    private final Map<UUID, WorldQueue> queues = new ConcurrentHashMap<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batched = new LongAdder();
+    private final LongAdder fallbackTasks = new LongAdder();
+    private final ExecutorService fallback;
+
+    private final class WorldQueue {
+        private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long scheduledAt;
+
+        void add(World world, Runnable task) {
+            pending.add(task);
+            schedule(world);
+        }
+
+        private void schedule(World world) {
+            if (!scheduled.compareAndSet(false, true)) {
+                if (System.nanoTime() - scheduledAt > STALL_NANOS) {
+                    runFallback(this::drain); // The world isn't running its tasks; don't hold chat behind it
+                }
+                return;
+            }
+            scheduledAt = System.nanoTime();
+            try {
+                world.execute(() -> {
+                    drain();
+                    scheduled.set(false);
+                    if (!pending.isEmpty()) {
+                        schedule(world);
+                    }
+                });
+            } catch (RuntimeException e) {
+                scheduled.set(false);
+                runFallback(this::drain);
+            }
+        }
+
+        /**
+         * Runs everything queued, unless another thread is already draining this world, in which
+         * case that thread picks up the new tasks before it lets go.
+         */
+        void drain() {
+            while (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+                int ran = 0;
+                try {
+                    Runnable task;
+                    while ((task = pending.poll()) != null) {
+                        runTask(task);
+                        ran++;
+                    }
+                } finally {
+                    draining.set(false);
+                }
+                if (ran > 0) {
+                    batches.increment();
+                    batched.add(ran);
+                }
+            }
+        }
+    }
+
+    WorldBatcher(WerchatPlugin plugin) {
+        this.plugin = plugin;
+        this.fallback = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Werchat-Delivery");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void send(PlayerRef recipient, Message message) {
+        execute(recipient, () -> sendDirect(recipient, message));
+    }
+
+    /**
+     * Runs the task on the recipient's world thread with the next batch for that world.
+     */
+    void execute(PlayerRef recipient, Runnable task) {
+        World world = null;
+        UUID worldId = null;
+        try {
+            worldId = recipient.getWorldUuid();
+            if (worldId != null) {
+                world = Universe.get().getWorld(worldId);
+            }
+        } catch (Exception e) {
+            world = null;
+        }
+        if (world == null) {
+            fallbackTasks.increment();
+            runFallback(() -> runTask(task));
+            return;
+        }
+        queues.computeIfAbsent(worldId, id -> new WorldQueue()).add(world, task);
+    }
+
+    /**
+     * Runs everything still queued on the calling thread and stops the fallback thread. Used on
+     * shutdown.
+     */
+    void flush() {
+        for (Runnable task : fallback.shutdownNow()) {
+            task.run();
+        }
+        for (WorldQueue queue : queues.values()) {
+            queue.drain();
+        }
+    }
+
+    public long getBatches() { return batches.sum(); }
+    public long getBatchedTasks() { return batched.sum(); }
+    public long getFallbackTasks() { return fallbackTasks.sum(); }
+
+    private void runFallback(Runnable task) {
+        try {
+            fallback.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run(); // Shutting down; nothing else will run it
+        }
+    }
+
+    private void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            plugin.getLogger().at(Level.WARNING).log("Chat delivery task failed: %s", e.getMessage());
+        }
+    }
+
+    private void sendDirect(PlayerRef recipient, Message message) {
+        try {
+            recipient.sendMessage(message);
+        } catch (RuntimeException e) {
+            plugin.getLogger().at(Level.WARNING).log("Failed to send chat to %s: %s", recipient.getUsername(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.werchat.moderation;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.werchat.WerchatPlugin;
+import com.werchat.api.WerchatModerationClassifier;
+import com.werchat.api.WerchatModerationRequest;
+import com.werchat.api.WerchatModerationVerdict;
+import com.werchat.channels.Channel;
+import com.werchat.config.WerchatConfig;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Runs registered {@link WerchatModerationClassifier}s on channel chat. All classifiers are asked
+ * at once; each answer must arrive within the time budget, otherwise the fail policy decides. The
+ * first non-allow verdict in registration order wins. Decided verdicts are cached by a hash of
+ * the normalized message, so repeated text is answered without asking the classifiers again.
+ */
+public class ClassifierStage {
+
+    private final WerchatPlugin plugin;
+    private final List<Registration> classifiers = new CopyOnWriteArrayList<>();
+    private final Map<Long, CachedVerdict> cache;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private record CachedVerdict(WerchatModerationVerdict verdict, long expiresAt) {}
+
+    /**
+     * A registered classifier plus its latency counters.
+     */
+    private static final class Registration {
+        private final UUID id;
+        private final WerchatModerationClassifier classifier;
+        private final LongAdder checks = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        Registration(UUID id, WerchatModerationClassifier classifier) {
+            this.id = id;
+            this.classifier = classifier;
+        }
+
+        void recordLatency(long nanos) {
+            checks.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    /**
+     * Per-classifier latency snapshot for /ch stats.
+     */
+    public record ClassifierStats(String name, long checks, double averageMillis, double maxMillis, long timeouts, long errors) {}
+
+    public ClassifierStage(WerchatPlugin plugin) {
+        this.plugin = plugin;
+        // Access-ordered LRU, guarded by its own monitor
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedVerdict> eldest) {
+                return size() > plugin.getConfig().getClassifierCacheSize();
+            }
+        };
+    }
+
+    public UUID register(WerchatModerationClassifier classifier) {
+        UUID id = UUID.randomUUID();
+        classifiers.add(new Registration(id, classifier));
+        clearCache();
+        return id;
+    }
+
+    public boolean unregister(UUID id) {
+        boolean removed = classifiers.removeIf(registration -> registration.id.equals(id));
+        if (removed) {
+            clearCache();
+        }
+        return removed;
+    }
+
+    public boolean isActive() {
+        return !classifiers.isEmpty() && plugin.getConfig().isClassifiersEnabled();
+    }
+
+    /**
+     * The combined verdict for a message. Completes immediately on a cache hit.
+     */
+    public CompletableFuture<WerchatModerationVerdict> classify(PlayerRef sender, Channel channel, String message) {
+        WerchatConfig config = plugin.getConfig();
+        String normalized = TextNormalizer.normalize(message).text();
+        long key = hash(normalized);
+
+        WerchatModerationVerdict cached = cachedVerdict(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        cacheMisses.increment();
+
+        WerchatModerationRequest request = new WerchatModerationRequest(sender.getUuid(), sender.getUsername(),
+            channel.getName(), message, normalized);
+        List<Registration> registrations = List.copyOf(classifiers);
+        List<CompletableFuture<Outcome>> outcomes = new ArrayList<>(registrations.size());
+        long budget = config.getClassifierTimeoutMillis();
+        for (Registration registration : registrations) {
+            outcomes.add(ask(registration, request, budget));
+        }
+
+        return CompletableFuture.allOf(outcomes.toArray(CompletableFuture<?>[]::new)).thenApply(ignored -> {
+            boolean complete = true;
+            for (CompletableFuture<Outcome> future : outcomes) {
+                Outcome outcome = future.join();
+                if (outcome.verdict() == null) {
+                    complete = false;
+                    if (config.isClassifierFailClosed()) {
+                        return WerchatModerationVerdict.block(null);
+                    }
+                } else if (outcome.verdict().getAction() != WerchatModerationVerdict.Action.ALLOW) {
+                    // A replacement is text for this exact message, not for everything that normalizes the same
+                    if (outcome.verdict().getAction() == WerchatModerationVerdict.Action.BLOCK) {
+                        cache(key, outcome.verdict());
+                    }
+                    return outcome.verdict();
+                }
+            }
+            // Only a full set of answers is cached; a timeout under fail-open shouldn't stick
+            if (complete) {
+                cache(key, WerchatModerationVerdict.allow());
+            }
+            return WerchatModerationVerdict.allow();
+        });
+    }
+
+    public List<ClassifierStats> getStats() {
+        List<ClassifierStats> stats = new ArrayList<>(classifiers.size());
+        for (Registration registration : classifiers) {
+            long checks = registration.checks.sum();
+            double average = checks == 0 ? 0 : registration.totalNanos.sum() / (double) checks / 1_000_000.0;
+            stats.add(new ClassifierStats(registration.classifier.getName(), checks, average,
+                registration.maxNanos.get() / 1_000_000.0, registration.timeouts.sum(), registration.errors.sum()));
+        }
+        return stats;
+    }
+
+    public long getCacheHits() { return cacheHits.sum(); }
+    public long getCacheMisses() { return cacheMisses.sum(); }
+
+    /**
+     * A classifier's verdict, or null verdict when it timed out or failed.
+     */
+    private record Outcome(WerchatModerationVerdict verdict) {}
+
+    private static final Outcome FAILED = new Outcome(null);
+
+    private CompletableFuture<Outcome> ask(Registration registration, WerchatModerationRequest request, long budgetMillis) {
+        long started = System.nanoTime();
+        CompletableFuture<WerchatModerationVerdict> answer;
+        try {
+            answer = registration.classifier.classify(request);
+        } catch (RuntimeException e) {
+            registration.errors.increment();
+            logFailure(registration, e);
+            return CompletableFuture.completedFuture(FAILED);
+        }
+        if (answer == null) {
+            registration.errors.increment();
+            return CompletableFuture.completedFuture(FAILED);
+        }
+
+        // Work on a dependent future so the budget never completes the classifier's own future
+        return answer.handle((verdict, error) -> {
+            if (error != null || verdict == null) {
+                registration.errors.increment();
+                if (error != null) {
+                    logFailure(registration, error);
+                }
+                return FAILED;
+            }
+            registration.recordLatency(System.nanoTime() - started);
+            return new Outcome(verdict);
+        }).completeOnTimeout(null, budgetMillis, TimeUnit.MILLISECONDS).thenApply(outcome -> {
+            if (outcome == null) {
+                registration.timeouts.increment();
+                return FAILED;
+            }
+            return outcome;
+        });
+    }
+
+    private void logFailure(Registration registration, Throwable error) {
+        plugin.getLogger().at(Level.WARNING).log("Moderation classifier %s failed: %s",
+            registration.classifier.getName(), error.getMessage());
+    }
+
+    private WerchatModerationVerdict cachedVerdict(long key) {
+        synchronized (cache) {
+            CachedVerdict entry = cache.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() - System.nanoTime() < 0) {
+                cache.remove(key);
+                return null;
+            }
+            return entry.verdict();
+        }
+    }
+
+    private void cache(long key, WerchatModerationVerdict verdict) {
+        long ttlNanos = plugin.getConfig().getClassifierCacheTtlSeconds() * 1_000_000_000L;
+        if (ttlNanos <= 0) {
+            return;
+        }
+        synchronized (cache) {
+            cache.put(key, new CachedVerdict(verdict, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    private void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static long hash(String text) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,50 @@
+package com.werchat.moderation;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Time-ordered log of recent server joins, kept as a fixed-size ring of primitive UUID halves and
+ * join times. Raid tooling uses it to find everyone who joined within the last few minutes.
+ */
+public class JoinLog {
+
+    private static final int CAPACITY = 4096;
+
+    private final long[] idMost = new long[CAPACITY];
+    private final long[] idLeast = new long[CAPACITY];
+    private final long[] joinedAt = new long[CAPACITY];
+    private int next;
+    private int size;
+
+    public synchronized void record(UUID playerId) {
+        idMost[next] = playerId.getMostSignificantBits();
+        idLeast[next] = playerId.getLeastSignificantBits();
+        joinedAt[next] = System.currentTimeMillis();
+        next = (next + 1) % CAPACITY;
+        size = Math.min(size + 1, CAPACITY);
+    }
+
+    /**
+     * Distinct players who joined at or after the given time, most recent first.
+     */
+    public synchronized Set<UUID> joinedSince(long sinceEpochMillis) {
+        Set<UUID> players = new LinkedHashSet<>();
+        for (int i = 1; i <= size; i++) {
+            int index = (next - i + CAPACITY) % CAPACITY;
+            if (joinedAt[index] < sinceEpochMillis) {
+                break;
+            }
+            players.add(new UUID(idMost[index], idLeast[index]));
+        }
+        return players;
+    }
+
+    /**
+     * Whether the log still reaches back to the given time; false once older joins have been overwritten.
+     */
+    public synchronized boolean covers(long sinceEpochMillis) {
+        return size < CAPACITY || joinedAt[next] <= sinceEpochMillis;
+    }
+}
@@ -0,0 +1,633 @@
+package com.werchat.moderation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A set of filter patterns compiled into one Thompson NFA and run with a Pike VM, so matching
+ * takes time linear in the text for a given rule set and no input can trigger backtracking.
+ * <p>
+ * Supported syntax: literals, {@code .}, classes ({@code [a-z]}, {@code [^0-9]}), {@code \d \w \s}
+ * and their negations, groups ({@code (...)}, {@code (?:...)}), {@code |}, {@code * + ?},
+ * {@code {n} {n,} {n,m}} (bounded at {@link #MAX_REPEAT}), lazy quantifier suffixes and the
+ * anchors {@code ^ $}. Backreferences and lookaround are not supported: they can't be matched in
+ * linear time. Literals and classes are folded like the text they are matched against (see
+ * {@link TextNormalizer}), so {@code \d} and {@code [0-9]} also match the letters leetspeak digits
+ * fold to.
+ */
+final class LinearRegex {
+
+    static final int MAX_REPEAT = 32;
+    static final int MAX_PROGRAM_SIZE = 20_000;
+
+    private static final int CHAR = 0;
+    private static final int CLASS = 1;
+    private static final int SPLIT = 2;
+    private static final int JMP = 3;
+    private static final int MATCH = 4;
+    private static final int BOL = 5;
+    private static final int EOL = 6;
+
+    /**
+     * A match of rule {@code rule} over [start, end) of the searched text.
+     */
+    record Match(int start, int end, int rule) {}
+
+    private final int[] ops;
+    private final int[] args;
+    private final int[] alts;
+    private final char[][] classes;
+    private final boolean[] negated;
+
+    private LinearRegex(int[] ops, int[] args, int[] alts, char[][] classes, boolean[] negated) {
+        this.ops = ops;
+        this.args = args;
+        this.alts = alts;
+        this.classes = classes;
+        this.negated = negated;
+    }
+
+    /**
+     * Compiles the patterns into one program; a match reports the index of the pattern it came from.
+     * Literal words, if any, follow the patterns and are numbered after them.
+     *
+     * @throws IllegalArgumentException if a pattern is invalid or the program grows too large
+     */
+    static LinearRegex compile(List<String> patterns, List<String> literals) {
+        List<Node> rules = new ArrayList<>(patterns.size() + literals.size());
+        for (String pattern : patterns) {
+            rules.add(new Parser(pattern).parse());
+        }
+        for (String literal : literals) {
+            List<Node> chars = new ArrayList<>(literal.length());
+            for (int i = 0; i < literal.length(); i++) {
+                chars.add(new Literal(literal.charAt(i)));
+            }
+            rules.add(new Concat(chars));
+        }
+        Emitter emitter = new Emitter();
+        emitter.emitRules(rules);
+        return emitter.build();
+    }
+
+    /**
+     * Validates one pattern, throwing IllegalArgumentException with the reason if it is invalid.
+     */
+    static void validate(String pattern) {
+        compile(List.of(pattern), List.of());
+    }
+
+    /**
+     * Leftmost match at or after {@code from}, preferring earlier rules and greedy repeats, or null.
+     */
+    Match find(CharSequence text, int from) {
+        int length = text.length();
+        int size = ops.length;
+        ThreadList current = new ThreadList(size);
+        ThreadList next = new ThreadList(size);
+        int[] stack = new int[size * 2];
+        Match best = null;
+
+        for (int i = from; i <= length; i++) {
+            if (best == null) {
+                addThread(current, 0, i, i, length, stack);
+            }
+            if (current.size == 0) {
+                break;
+            }
+            char c = i < length ? text.charAt(i) : 0;
+            for (int t = 0; t < current.size; t++) {
+                int pc = current.pcs[t];
+                int start = current.starts[t];
+                switch (ops[pc]) {
+                    case CHAR -> {
+                        if (i < length && c == args[pc]) {
+                            addThread(next, pc + 1, start, i + 1, length, stack);
+                        }
+                    }
+                    case CLASS -> {
+                        if (i < length && inClass(args[pc], c)) {
+                            addThread(next, pc + 1, start, i + 1, length, stack);
+                        }
+                    }
+                    case MATCH -> {
+                        best = new Match(start, i, args[pc]);
+                        // Lower priority threads can't beat this match
+                        t = current.size;
+                    }
+                    default -> {
+                    }
+                }
+            }
+            ThreadList swap = current;
+            current = next;
+            next = swap;
+            next.clear();
+        }
+        return best;
+    }
+
+    int programSize() {
+        return ops.length;
+    }
+
+    /**
+     * Follows SPLIT, JMP and anchors from pc, adding the reachable consuming and MATCH
+     * instructions in priority order. Each pc is added at most once per text position.
+     */
+    private void addThread(ThreadList list, int pc, int start, int position, int length, int[] stack) {
+        int top = 0;
+        stack[top++] = pc;
+        while (top > 0) {
+            int at = stack[--top];
+            if (list.contains(at)) {
+                continue;
+            }
+            list.mark(at);
+            switch (ops[at]) {
+                case JMP -> stack[top++] = args[at];
+                case SPLIT -> {
+                    stack[top++] = alts[at];
+                    stack[top++] = args[at];
+                }
+                case BOL -> {
+                    if (position == 0) {
+                        stack[top++] = at + 1;
+                    }
+                }
+                case EOL -> {
+                    if (position == length) {
+                        stack[top++] = at + 1;
+                    }
+                }
+                default -> list.add(at, start);
+            }
+        }
+    }
+
+    private boolean inClass(int index, char c) {
+        char[] ranges = classes[index];
+        boolean found = false;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (c >= ranges[i] && c <= ranges[i + 1]) {
+                found = true;
+                break;
+            }
+        }
+        return found != negated[index];
+    }
+
+    /**
+     * Sparse set of pcs (for O(1) membership and clearing) plus the runnable threads in priority order.
+     */
+    private static final class ThreadList {
+        private final int[] sparse;
+        private final int[] dense;
+        private int marked;
+        private final int[] pcs;
+        private final int[] starts;
+        private int size;
+
+        ThreadList(int capacity) {
+            this.sparse = new int[capacity];
+            this.dense = new int[capacity];
+            this.pcs = new int[capacity];
+            this.starts = new int[capacity];
+        }
+
+        boolean contains(int pc) {
+            int index = sparse[pc];
+            return index < marked && dense[index] == pc;
+        }
+
+        void mark(int pc) {
+            sparse[pc] = marked;
+            dense[marked++] = pc;
+        }
+
+        void add(int pc, int start) {
+            pcs[size] = pc;
+            starts[size] = start;
+            size++;
+        }
+
+        void clear() {
+            marked = 0;
+            size = 0;
+        }
+    }
+
+    // === Parsing ===
+
+    private sealed interface Node permits Literal, CharClass, Concat, Alternation, Repeat, Anchor {}
+    private record Literal(char c) implements Node {}
+    private record CharClass(char[] ranges, boolean negated) implements Node {}
+    private record Concat(List<Node> nodes) implements Node {}
+    private record Alternation(List<Node> options) implements Node {}
+    private record Repeat(Node node, int min, int max, boolean greedy) implements Node {} // max -1 = unbounded
+    private record Anchor(boolean start) implements Node {}
+
+    private static final char[] DIGIT = {'0', '9'};
+    private static final char[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+    private static final char[] SPACE = {' ', ' ', '\t', '\r'};
+
+    private static final class Parser {
+        private final String pattern;
+        private int pos;
+
+        Parser(String pattern) {
+            this.pattern = pattern;
+        }
+
+        Node parse() {
+            Node node = parseAlternation();
+            if (pos < pattern.length()) {
+                throw error("unexpected ')'");
+            }
+            return node;
+        }
+
+        private Node parseAlternation() {
+            List<Node> options = new ArrayList<>();
+            options.add(parseConcat());
+            while (pos < pattern.length() && pattern.charAt(pos) == '|') {
+                pos++;
+                options.add(parseConcat());
+            }
+            return options.size() == 1 ? options.get(0) : new Alternation(options);
+        }
+
+        private Node parseConcat() {
+            List<Node> nodes = new ArrayList<>();
+            while (pos < pattern.length()) {
+                char c = pattern.charAt(pos);
+                if (c == '|' || c == ')') {
+                    break;
+                }
+                Node atom = parseAtom();
+                nodes.add(parseQuantifiers(atom));
+            }
+            return nodes.size() == 1 ? nodes.get(0) : new Concat(nodes);
+        }
+
+        private Node parseQuantifiers(Node atom) {
+            while (pos < pattern.length()) {
+                char c = pattern.charAt(pos);
+                int min;
+                int max;
+                if (c == '*') {
+                    min = 0;
+                    max = -1;
+                    pos++;
+                } else if (c == '+') {
+                    min = 1;
+                    max = -1;
+                    pos++;
+                } else if (c == '?') {
+                    min = 0;
+                    max = 1;
+                    pos++;
+                } else if (c == '{' && isCountedRepeat()) {
+                    pos++;
+                    min = readNumber();
+                    max = min;
+                    if (pattern.charAt(pos) == ',') {
+                        pos++;
+                        max = pattern.charAt(pos) == '}' ? -1 : readNumber();
+                    }
+                    pos++; // '}'
+                    if (min > MAX_REPEAT || max > MAX_REPEAT || (max >= 0 && max < min)) {
+                        throw error("repeat count must be between 0 and " + MAX_REPEAT);
+                    }
+                } else {
+                    break;
+                }
+                boolean greedy = true;
+                if (pos < pattern.length() && pattern.charAt(pos) == '?') {
+                    greedy = false;
+                    pos++;
+                }
+                if (atom instanceof Anchor) {
+                    throw error("nothing to repeat");
+                }
+                atom = new Repeat(atom, min, max, greedy);
+            }
+            return atom;
+        }
+
+        private boolean isCountedRepeat() {
+            int i = pos + 1;
+            int digits = 0;
+            while (i < pattern.length() && Character.isDigit(pattern.charAt(i))) {
+                i++;
+                digits++;
+            }
+            if (digits == 0 || i >= pattern.length()) {
+                return false;
+            }
+            if (pattern.charAt(i) == ',') {
+                i++;
+                while (i < pattern.length() && Character.isDigit(pattern.charAt(i))) {
+                    i++;
+                }
+            }
+            return i < pattern.length() && pattern.charAt(i) == '}';
+        }
+
+        private int readNumber() {
+            int start = pos;
+            while (Character.isDigit(pattern.charAt(pos))) {
+                pos++;
+            }
+            String digits = pattern.substring(start, pos);
+            return digits.length() > 4 ? Integer.MAX_VALUE : Integer.parseInt(digits);
+        }
+
+        private Node parseAtom() {
+            char c = pattern.charAt(pos++);
+            switch (c) {
+                case '(' -> {
+                    if (pattern.startsWith("?:", pos)) {
+                        pos += 2;
+                    } else if (pos < pattern.length() && pattern.charAt(pos) == '?') {
+                        throw error("lookaround and other (? groups are not supported");
+                    }
+                    Node inner = parseAlternation();
+                    if (pos >= pattern.length() || pattern.charAt(pos) != ')') {
+                        throw error("missing ')'");
+                    }
+                    pos++;
+                    return inner;
+                }
+                case '[' -> {
+                    return parseClass();
+                }
+                case '.' -> {
+                    return new CharClass(new char[0], true);
+                }
+                case '^' -> {
+                    return new Anchor(true);
+                }
+                case '$' -> {
+                    return new Anchor(false);
+                }
+                case '\\' -> {
+                    return parseEscape(false);
+                }
+                case '*', '+', '?' -> throw error("nothing to repeat");
+                default -> {
+                    return new Literal(TextNormalizer.fold(c));
+                }
+            }
+        }
+
+        private Node parseEscape(boolean inClass) {
+            if (pos >= pattern.length()) {
+                throw error("trailing '\\'");
+            }
+            char c = pattern.charAt(pos++);
+            return switch (c) {
+                case 'd' -> classOf(DIGIT, false, inClass);
+                case 'D' -> classOf(DIGIT, true, inClass);
+                case 'w' -> classOf(WORD, false, inClass);
+                case 'W' -> classOf(WORD, true, inClass);
+                case 's' -> classOf(SPACE, false, inClass);
+                case 'S' -> classOf(SPACE, true, inClass);
+                case 't' -> new Literal('\t');
+                case 'n' -> new Literal('\n');
+                default -> {
+                    if (Character.isLetterOrDigit(c)) {
+                        throw error("unsupported escape \\" + c + (inClass ? " in class" : ""));
+                    }
+                    yield new Literal(inClass ? c : TextNormalizer.fold(c));
+                }
+            };
+        }
+
+        private Node parseClass() {
+            boolean negate = false;
+            if (pos < pattern.length() && pattern.charAt(pos) == '^') {
+                negate = true;
+                pos++;
+            }
+            StringBuilder ranges = new StringBuilder();
+            boolean first = true;
+            while (true) {
+                if (pos >= pattern.length()) {
+                    throw error("missing ']'");
+                }
+                char c = pattern.charAt(pos);
+                if (c == ']' && !first) {
+                    pos++;
+                    break;
+                }
+                first = false;
+                pos++;
+                char low;
+                if (c == '\\') {
+                    Node escaped = parseEscape(true);
+                    if (escaped instanceof CharClass cls) {
+                        if (cls.negated()) {
+                            throw error("negated escapes are not supported inside a class");
+                        }
+                        ranges.append(cls.ranges());
+                        continue;
+                    }
+                    low = ((Literal) escaped).c();
+                } else {
+                    low = c;
+                }
+                char high = low;
+                if (pos + 1 < pattern.length() && pattern.charAt(pos) == '-' && pattern.charAt(pos + 1) != ']') {
+                    pos++;
+                    high = pattern.charAt(pos++);
+                    if (high == '\\') {
+                        Node escaped = parseEscape(true);
+                        if (!(escaped instanceof Literal literal)) {
+                            throw error("invalid class range");
+                        }
+                        high = literal.c();
+                    }
+                    if (high < low) {
+                        throw error("invalid class range " + low + "-" + high);
+                    }
+                }
+                ranges.append(low).append(high);
+            }
+            char[] chars = new char[ranges.length()];
+            ranges.getChars(0, chars.length, chars, 0);
+            return folded(chars, negate);
+        }
+
+        /**
+         * Escapes inside a class stay unfolded; the whole class is folded once it is complete.
+         */
+        private static CharClass classOf(char[] ranges, boolean negate, boolean inClass) {
+            return inClass ? new CharClass(ranges, negate) : folded(ranges, negate);
+        }
+
+        /**
+         * The class as it applies to folded text: every character a member folds to. A negated
+         * class becomes the folded form of its complement, so {@code [^0-9]} still matches the
+         * "o" a letter o folds to, even though 0 folds to it as well.
+         */
+        private static CharClass folded(char[] ranges, boolean negate) {
+            BitSet members = new BitSet(Character.MAX_VALUE + 1);
+            for (int i = 0; i < ranges.length; i += 2) {
+                members.set(ranges[i], ranges[i + 1] + 1);
+            }
+            if (negate) {
+                members.flip(0, Character.MAX_VALUE + 1);
+            }
+            BitSet folded = new BitSet(128);
+            for (int c = members.nextSetBit(0); c >= 0; c = members.nextSetBit(c + 1)) {
+                char alone = TextNormalizer.fold((char) c);
+                char inWord = TextNormalizer.foldInWord((char) c);
+                if (alone != TextNormalizer.REMOVED) {
+                    folded.set(alone);
+                }
+                if (inWord != TextNormalizer.REMOVED) {
+                    folded.set(inWord);
+                }
+            }
+            StringBuilder foldedRanges = new StringBuilder();
+            for (int start = folded.nextSetBit(0); start >= 0; ) {
+                int end = folded.nextClearBit(start);
+                foldedRanges.append((char) start).append((char) (end - 1));
+                start = folded.nextSetBit(end);
+            }
+            char[] chars = new char[foldedRanges.length()];
+            foldedRanges.getChars(0, chars.length, chars, 0);
+            return new CharClass(chars, false);
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " in '" + pattern + "'");
+        }
+    }
+
+    // === Code generation ===
+
+    private static final class Emitter {
+        private int[] ops = new int[64];
+        private int[] args = new int[64];
+        private int[] alts = new int[64];
+        private int size;
+        private final List<char[]> classes = new ArrayList<>();
+        private final List<Boolean> negated = new ArrayList<>();
+
+        void emitRules(List<Node> rules) {
+            // rule0 | rule1 | ...: a SPLIT chain, each rule ending in its own MATCH
+            for (int rule = 0; rule < rules.size(); rule++) {
+                int split = -1;
+                if (rule < rules.size() - 1) {
+                    split = emit(SPLIT, 0, 0);
+                    args[split] = size;
+                }
+                emitNode(rules.get(rule));
+                emit(MATCH, rule, 0);
+                if (split >= 0) {
+                    alts[split] = size;
+                }
+            }
+            if (rules.isEmpty()) {
+                // Matches nothing: a class that excludes every character
+                emit(CLASS, addClass(new char[0], false), 0);
+            }
+        }
+
+        private void emitNode(Node node) {
+            switch (node) {
+                case Literal literal -> emit(CHAR, literal.c(), 0);
+                case CharClass cls -> emit(CLASS, addClass(cls.ranges(), cls.negated()), 0);
+                case Anchor anchor -> emit(anchor.start() ? BOL : EOL, 0, 0);
+                case Concat concat -> {
+                    for (Node child : concat.nodes()) {
+                        emitNode(child);
+                    }
+                }
+                case Alternation alternation -> {
+                    List<Node> options = alternation.options();
+                    int[] jumps = new int[options.size() - 1];
+                    for (int i = 0; i < options.size(); i++) {
+                        if (i < options.size() - 1) {
+                            int split = emit(SPLIT, 0, 0);
+                            args[split] = size;
+                            emitNode(options.get(i));
+                            jumps[i] = emit(JMP, 0, 0);
+                            alts[split] = size;
+                        } else {
+                            emitNode(options.get(i));
+                        }
+                    }
+                    for (int jump : jumps) {
+                        args[jump] = size;
+                    }
+                }
+                case Repeat repeat -> emitRepeat(repeat);
+            }
+        }
+
+        private void emitRepeat(Repeat repeat) {
+            for (int i = 0; i < repeat.min(); i++) {
+                emitNode(repeat.node());
+            }
+            if (repeat.max() < 0) {
+                // loop: SPLIT body, exit; body; JMP loop
+                int loop = emit(SPLIT, 0, 0);
+                int body = size;
+                emitNode(repeat.node());
+                emit(JMP, loop, 0);
+                setSplit(loop, body, size, repeat.greedy());
+                return;
+            }
+            int optional = repeat.max() - repeat.min();
+            int[] splits = new int[optional];
+            for (int i = 0; i < optional; i++) {
+                splits[i] = emit(SPLIT, 0, 0);
+                args[splits[i]] = size;
+                emitNode(repeat.node());
+            }
+            for (int split : splits) {
+                setSplit(split, args[split], size, repeat.greedy());
+            }
+        }
+
+        private void setSplit(int split, int body, int exit, boolean greedy) {
+            args[split] = greedy ? body : exit;
+            alts[split] = greedy ? exit : body;
+        }
+
+        private int addClass(char[] ranges, boolean negate) {
+            classes.add(ranges);
+            negated.add(negate);
+            return classes.size() - 1;
+        }
+
+        private int emit(int op, int arg, int alt) {
+            if (size == MAX_PROGRAM_SIZE) {
+                throw new IllegalArgumentException("filter patterns are too large (over " + MAX_PROGRAM_SIZE + " instructions)");
+            }
+            if (size == ops.length) {
+                ops = Arrays.copyOf(ops, size * 2);
+                args = Arrays.copyOf(args, size * 2);
+                alts = Arrays.copyOf(alts, size * 2);
+            }
+            ops[size] = op;
+            args[size] = arg;
+            alts[size] = alt;
+            return size++;
+        }
+
+        LinearRegex build() {
+            boolean[] negatedArray = new boolean[negated.size()];
+            for (int i = 0; i < negatedArray.length; i++) {
+                negatedArray[i] = negated.get(i);
+            }
+            return new LinearRegex(Arrays.copyOf(ops, size), Arrays.copyOf(args, size), Arrays.copyOf(alts, size),
+                classes.toArray(new char[0][]), negatedArray);
+        }
+    }
+}
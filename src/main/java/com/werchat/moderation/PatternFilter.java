@@ -0,0 +1,112 @@
+package com.werchat.moderation;
+
+import com.werchat.WerchatPlugin;
+import com.werchat.config.WerchatConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Word filter rules matched against {@link TextNormalizer normalized} text: the configured
+ * patterns plus, when normalization is on, the filtered words themselves, so spacing, accents,
+ * look-alike letters and leetspeak don't get around them. All rules run as one {@link LinearRegex}
+ * program, recompiled when the config is reloaded.
+ */
+public class PatternFilter {
+
+    private final WerchatPlugin plugin;
+    private volatile Compiled compiled;
+
+    private record Compiled(int revision, LinearRegex regex) {}
+
+    public PatternFilter(WerchatPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Replaces every rule match with the replacement, mapped back onto the original text.
+     * Returns the same instance when nothing matches.
+     */
+    public String apply(String message, String replacement) {
+        LinearRegex regex = regex();
+        if (regex == null || message.isEmpty()) {
+            return message;
+        }
+        TextNormalizer.Normalized normalized = TextNormalizer.normalize(message);
+        String text = normalized.text();
+        StringBuilder out = null;
+        int last = 0;
+        int from = 0;
+        while (from <= text.length()) {
+            LinearRegex.Match match = regex.find(text, from);
+            if (match == null) {
+                break;
+            }
+            if (match.end() == match.start()) {
+                from = match.start() + 1;
+                continue;
+            }
+            int start = normalized.starts()[match.start()];
+            int end = normalized.ends()[match.end() - 1];
+            if (out == null) {
+                out = new StringBuilder(message.length());
+            }
+            if (start >= last) {
+                out.append(message, last, start).append(replacement);
+                last = end;
+            }
+            from = match.end();
+        }
+        if (out == null) {
+            return message;
+        }
+        return out.append(message, last, message.length()).toString();
+    }
+
+    private LinearRegex regex() {
+        WerchatConfig config = plugin.getConfig();
+        Compiled current = compiled;
+        if (current != null && current.revision() == config.getRevision()) {
+            return current.regex();
+        }
+        synchronized (this) {
+            current = compiled;
+            if (current == null || current.revision() != config.getRevision()) {
+                current = new Compiled(config.getRevision(), compile(config));
+                compiled = current;
+            }
+            return current.regex();
+        }
+    }
+
+    private LinearRegex compile(WerchatConfig config) {
+        List<String> patterns = new ArrayList<>();
+        for (String pattern : config.getFilterPatterns()) {
+            try {
+                LinearRegex.validate(pattern);
+                patterns.add(pattern);
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().at(Level.WARNING).log("Ignoring word filter pattern: %s", e.getMessage());
+            }
+        }
+        List<String> words = new ArrayList<>();
+        if (config.isFilterNormalize()) {
+            for (String word : config.getFilteredWords()) {
+                String folded = TextNormalizer.normalize(word).text();
+                if (!folded.isEmpty()) {
+                    words.add(folded);
+                }
+            }
+        }
+        if (patterns.isEmpty() && words.isEmpty()) {
+            return null;
+        }
+        try {
+            return LinearRegex.compile(patterns, words);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().at(Level.WARNING).log("Word filter patterns disabled: %s", e.getMessage());
+            return null;
+        }
+    }
+}
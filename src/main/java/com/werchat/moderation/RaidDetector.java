@@ -0,0 +1,492 @@
+package com.werchat.moderation;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.permissions.PermissionsModule;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.werchat.WerchatPlugin;
+import com.werchat.channels.Channel;
+import com.werchat.config.WerchatConfig;
+import com.werchat.integration.papi.PAPIIntegration;
+import com.werchat.listeners.ChatListener;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Channel-level raid detection: many different senders posting near-identical text in a short time.
+ * <p>
+ * Each message is reduced to a 64-bit SimHash of its character trigrams, so small edits only flip a
+ * few bits. A channel keeps the SimHashes of its recent messages in a fixed-size ring, indexed by
+ * locality-sensitive hashing: the SimHash is cut into {@link #BANDS} 8-bit bands and each band value
+ * points at the ring slots that share it. Two hashes within {@link #BANDS} - 1 bits of each other
+ * always share a band, so a message is only compared against the few slots in its own buckets.
+ * <p>
+ * When a message's cluster reaches the configured number of distinct senders, the channel goes into
+ * lockdown for a while: optionally a temporary slow mode, a filter that blocks further messages
+ * like the cluster's, and muting the cluster's senders. Moderators are alerted either way.
+ * <p>
+ * Mutes imposed by a lockdown are temporary: the players it muted are unmuted when it expires, is
+ * ended with {@code /ch raid end}, or the server stops. Players muted some other way are left alone.
+ */
+public class RaidDetector {
+
+    private static final int BANDS = 8;
+    private static final int BAND_BITS = 8;
+    private static final int BUCKETS = BANDS << BAND_BITS;
+    private static final int MAX_FILTERS = 16;
+
+    private final WerchatPlugin plugin;
+    private final Map<Integer, ChannelWindow> windows = new ConcurrentHashMap<>();
+    // Players each channel's lockdown muted, by runtime slot
+    private final Map<Integer, LockdownMutes> lockdownMutes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService releaser;
+    private final LongAdder lockdowns = new LongAdder();
+    private final LongAdder filtered = new LongAdder();
+
+    private record LockdownMutes(UUID channelId, Set<UUID> players) {}
+
+    public RaidDetector(WerchatPlugin plugin) {
+        this.plugin = plugin;
+        this.releaser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Werchat-RaidRelease");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Records a message and reports whether it may be sent. Messages are blocked when they match an
+     * active lockdown filter or when the sender is muted as part of a detected cluster.
+     */
+    public boolean check(PlayerRef sender, Channel channel, String message) {
+        WerchatConfig config = plugin.getConfig();
+        int slot = channel.getRuntimeSlot();
+        if (!config.isRaidDetectionEnabled() || slot < 0) {
+            return true;
+        }
+        UUID senderId = sender.getUuid();
+        if (isExempt(senderId, channel)) {
+            return true;
+        }
+        long simHash = simHash(message, config.getRaidMinMessageLength());
+        if (simHash == 0) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        int capacity = config.getRaidWindowSize();
+        ChannelWindow window = windows.compute(slot,
+            (ignored, existing) -> existing != null && existing.capacity() == capacity ? existing : new ChannelWindow(capacity));
+
+        Set<UUID> cluster;
+        boolean newLockdown;
+        long until;
+        synchronized (window) {
+            if (window.matchesFilter(simHash, now, config.getRaidMaxDistance())) {
+                filtered.increment();
+                return false;
+            }
+            window.expire(now - config.getRaidWindowSeconds() * 1_000_000_000L);
+            cluster = window.addAndCluster(simHash, senderId, now, config.getRaidMaxDistance());
+            if (cluster.size() < config.getRaidClusterSenders()) {
+                return true;
+            }
+            newLockdown = !window.isLockedDown(now);
+            until = now + config.getRaidLockdownMinutes() * 60_000_000_000L;
+            List<String> actions = config.getRaidActions();
+            window.lockDown(simHash, until, actions.contains("slowmode") ? config.getRaidLockdownSlowModeSeconds() : 0,
+                actions.contains("filter"));
+        }
+
+        boolean muteCluster = config.getRaidActions().contains("mute");
+        if (muteCluster) {
+            List<UUID> newlyMuted = channel.muteAll(cluster);
+            if (!newlyMuted.isEmpty()) {
+                recordMutes(channel, slot, newlyMuted, until - now);
+            }
+        }
+        if (newLockdown) {
+            lockdowns.increment();
+            alertModerators(channel, cluster.size(), config);
+        }
+        return !muteCluster;
+    }
+
+    /**
+     * Slow mode imposed by an active lockdown in the channel, or 0.
+     */
+    public int getLockdownSlowModeSeconds(Channel channel) {
+        ChannelWindow window = windows.get(channel.getRuntimeSlot());
+        if (window == null) {
+            return 0;
+        }
+        synchronized (window) {
+            return window.isLockedDown(System.nanoTime()) ? window.lockdownSlowModeSeconds : 0;
+        }
+    }
+
+    public boolean isLockedDown(Channel channel) {
+        ChannelWindow window = windows.get(channel.getRuntimeSlot());
+        if (window == null) {
+            return false;
+        }
+        synchronized (window) {
+            return window.isLockedDown(System.nanoTime());
+        }
+    }
+
+    /**
+     * Ends a channel's lockdown early and forgets its recent messages. Returns false if it wasn't locked down.
+     */
+    public boolean endLockdown(Channel channel) {
+        ChannelWindow window = windows.remove(channel.getRuntimeSlot());
+        releaseMutes(channel.getRuntimeSlot(), true);
+        if (window == null) {
+            return false;
+        }
+        synchronized (window) {
+            return window.isLockedDown(System.nanoTime());
+        }
+    }
+
+    /**
+     * Lifts every mute imposed by a lockdown and stops the release timer. Called on plugin
+     * shutdown, before channels are saved, so raid mutes never outlive the lockdown on disk.
+     */
+    public void shutdown() {
+        releaser.shutdownNow();
+        for (Integer slot : lockdownMutes.keySet()) {
+            releaseMutes(slot, false);
+        }
+    }
+
+    public long getLockdownCount() { return lockdowns.sum(); }
+    public long getFilteredCount() { return filtered.sum(); }
+
+    public int getActiveLockdowns() {
+        long now = System.nanoTime();
+        int active = 0;
+        for (ChannelWindow window : windows.values()) {
+            synchronized (window) {
+                if (window.isLockedDown(now)) {
+                    active++;
+                }
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Remembers the players a lockdown muted, tells them, and on the channel's first raid mute
+     * schedules their release for when the lockdown ends.
+     */
+    private void recordMutes(Channel channel, int slot, List<UUID> newlyMuted, long remainingNanos) {
+        boolean[] first = new boolean[1];
+        lockdownMutes.compute(slot, (ignored, existing) -> {
+            LockdownMutes mutes = existing;
+            if (mutes == null) {
+                mutes = new LockdownMutes(channel.getId(), new HashSet<>());
+                first[0] = true;
+            }
+            mutes.players().addAll(newlyMuted);
+            return mutes;
+        });
+        if (first[0]) {
+            scheduleRelease(slot, remainingNanos);
+        }
+
+        String notice = plugin.getConfig().getMuteMessage().replace("{channel}", channel.getName());
+        ChatListener chatListener = plugin.getChatListener();
+        for (UUID playerId : newlyMuted) {
+            PlayerRef player = plugin.getPlayerDataManager().getOnlinePlayer(playerId);
+            if (player != null) {
+                String text = PAPIIntegration.get() != null ? PAPIIntegration.resolveForSender(player, notice).text() : notice;
+                chatListener.sendPriority(player, Message.raw(text).color("#FF5555"));
+            }
+        }
+    }
+
+    private void scheduleRelease(int slot, long delayNanos) {
+        try {
+            releaser.schedule(() -> releaseWhenOver(slot), Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; shutdown() releases the mutes
+        }
+    }
+
+    /**
+     * Releases the slot's raid mutes, or waits longer if the lockdown was extended meanwhile.
+     */
+    private void releaseWhenOver(int slot) {
+        ChannelWindow window = windows.get(slot);
+        long remaining = 0;
+        if (window != null) {
+            synchronized (window) {
+                remaining = window.lockdownUntil - System.nanoTime();
+            }
+        }
+        if (remaining > 0) {
+            scheduleRelease(slot, remaining);
+        } else {
+            releaseMutes(slot, true);
+        }
+    }
+
+    private void releaseMutes(int slot, boolean notify) {
+        LockdownMutes mutes = lockdownMutes.remove(slot);
+        if (mutes == null) {
+            return;
+        }
+        Channel channel = plugin.getChannelManager().getChannelById(mutes.channelId());
+        if (channel == null) {
+            return;
+        }
+        List<UUID> unmuted = channel.unmuteAll(mutes.players());
+        plugin.getLogger().at(Level.INFO).log("Raid lockdown in %s over: unmuted %d players", channel.getName(), unmuted.size());
+        if (!notify) {
+            return;
+        }
+        ChatListener chatListener = plugin.getChatListener();
+        Message notice = Message.raw("Your raid mute in " + channel.getName() + " has been lifted").color("#AAAAAA");
+        for (UUID playerId : unmuted) {
+            PlayerRef player = plugin.getPlayerDataManager().getOnlinePlayer(playerId);
+            if (player != null) {
+                chatListener.sendPriority(player, notice);
+            }
+        }
+    }
+
+    private void alertModerators(Channel channel, int senders, WerchatConfig config) {
+        List<String> actions = config.getRaidActions();
+        StringBuilder text = new StringBuilder("[Raid] ").append(senders).append(" players sent near-identical messages in ")
+            .append(channel.getName()).append(". Lockdown for ").append(config.getRaidLockdownMinutes()).append(" min");
+        if (!actions.isEmpty()) {
+            text.append(" (").append(String.join(", ", actions)).append(")");
+        }
+        Message alert = Message.raw(text.toString()).color("#FF5555");
+        PermissionsModule perms = PermissionsModule.get();
+        ChatListener chatListener = plugin.getChatListener();
+        for (PlayerRef online : plugin.getPlayerDataManager().getOnlinePlayers()) {
+            UUID id = online.getUuid();
+            if (channel.isModerator(id) || perms.hasPermission(id, "werchat.raid")
+                || perms.hasPermission(id, "werchat.*") || perms.hasPermission(id, "*")) {
+                chatListener.sendPriority(online, alert);
+            }
+        }
+        plugin.getLogger().at(Level.WARNING).log("Raid detected in %s: %d senders, lockdown for %d min",
+            channel.getName(), senders, config.getRaidLockdownMinutes());
+    }
+
+    private static boolean isExempt(UUID playerId, Channel channel) {
+        if (channel.isModerator(playerId)) {
+            return true;
+        }
+        PermissionsModule perms = PermissionsModule.get();
+        return perms.hasPermission(playerId, "werchat.raid") || perms.hasPermission(playerId, "werchat.*")
+            || perms.hasPermission(playerId, "*");
+    }
+
+    /**
+     * SimHash of the message's lowercase letter/digit trigrams, or 0 when the normalized text is
+     * shorter than minLength (short messages like "hi" collide across players by nature).
+     */
+    static long simHash(String message, int minLength) {
+        int[] weights = new int[64];
+        long window = 0;
+        int length = 0;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                continue;
+            }
+            window = (window << 16) | Character.toLowerCase(c);
+            length++;
+            if (length >= 3) {
+                long feature = mix(window & 0xFFFFFFFFFFFFL);
+                for (int bit = 0; bit < 64; bit++) {
+                    weights[bit] += (int) ((feature >>> bit) & 1L) * 2 - 1;
+                }
+            }
+        }
+        if (length < Math.max(3, minLength)) {
+            return 0;
+        }
+        long hash = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                hash |= 1L << bit;
+            }
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static int bucket(long simHash, int band) {
+        return (band << BAND_BITS) | (int) ((simHash >>> (band * BAND_BITS)) & 0xFF);
+    }
+
+    /**
+     * Recent messages of one channel plus its lockdown state. Guarded by its own monitor.
+     */
+    private static final class ChannelWindow {
+        private final long[] hashes;
+        private final long[] senderMost;
+        private final long[] senderLeast;
+        private final long[] times;
+        private final int[][] buckets = new int[BUCKETS][];
+        private final int[] bucketSizes = new int[BUCKETS];
+        private final int[] seen;
+        private int stamp;
+        private int head; // oldest entry
+        private int size;
+
+        private long lockdownUntil;
+        private int lockdownSlowModeSeconds;
+        private final long[] filters = new long[MAX_FILTERS];
+        private int filterCount;
+
+        ChannelWindow(int capacity) {
+            this.hashes = new long[capacity];
+            this.senderMost = new long[capacity];
+            this.senderLeast = new long[capacity];
+            this.times = new long[capacity];
+            this.seen = new int[capacity];
+        }
+
+        int capacity() {
+            return hashes.length;
+        }
+
+        boolean isLockedDown(long now) {
+            return lockdownUntil != 0 && lockdownUntil - now > 0;
+        }
+
+        boolean matchesFilter(long simHash, long now, int maxDistance) {
+            if (!isLockedDown(now)) {
+                filterCount = 0;
+                return false;
+            }
+            for (int i = 0; i < filterCount; i++) {
+                if (Long.bitCount(filters[i] ^ simHash) <= maxDistance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void lockDown(long simHash, long until, int slowModeSeconds, boolean filter) {
+            lockdownUntil = until;
+            lockdownSlowModeSeconds = slowModeSeconds;
+            if (filter && filterCount < MAX_FILTERS) {
+                filters[filterCount++] = simHash;
+            }
+        }
+
+        /**
+         * Drops entries sent before the cutoff.
+         */
+        void expire(long cutoff) {
+            while (size > 0 && times[head] - cutoff < 0) {
+                removeOldest();
+            }
+        }
+
+        /**
+         * Adds the message and returns the distinct senders of it and its near-duplicates in the window.
+         */
+        Set<UUID> addAndCluster(long simHash, UUID senderId, long now, int maxDistance) {
+            if (size == hashes.length) {
+                removeOldest();
+            }
+            int slot = (head + size) % hashes.length;
+            hashes[slot] = simHash;
+            senderMost[slot] = senderId.getMostSignificantBits();
+            senderLeast[slot] = senderId.getLeastSignificantBits();
+            times[slot] = now;
+            size++;
+
+            Set<UUID> cluster = null;
+            if (++stamp == 0) {
+                Arrays.fill(seen, 0);
+                stamp = 1;
+            }
+            seen[slot] = stamp;
+            for (int band = 0; band < BANDS; band++) {
+                int b = bucket(simHash, band);
+                int[] entries = buckets[b];
+                for (int i = 0; i < bucketSizes[b]; i++) {
+                    int other = entries[i];
+                    if (seen[other] == stamp) {
+                        continue;
+                    }
+                    seen[other] = stamp;
+                    if (Long.bitCount(hashes[other] ^ simHash) > maxDistance) {
+                        continue;
+                    }
+                    if (senderMost[other] == senderMost[slot] && senderLeast[other] == senderLeast[slot]) {
+                        continue;
+                    }
+                    if (cluster == null) {
+                        cluster = new LinkedHashSet<>();
+                        cluster.add(senderId);
+                    }
+                    cluster.add(new UUID(senderMost[other], senderLeast[other]));
+                }
+                addToBucket(b, slot);
+            }
+            return cluster != null ? cluster : Set.of(senderId);
+        }
+
+        private void removeOldest() {
+            int slot = head;
+            for (int band = 0; band < BANDS; band++) {
+                removeFromBucket(bucket(hashes[slot], band), slot);
+            }
+            head = (head + 1) % hashes.length;
+            size--;
+        }
+
+        private void addToBucket(int b, int slot) {
+            int[] entries = buckets[b];
+            if (entries == null) {
+                entries = new int[4];
+                buckets[b] = entries;
+            } else if (bucketSizes[b] == entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+                buckets[b] = entries;
+            }
+            entries[bucketSizes[b]++] = slot;
+        }
+
+        private void removeFromBucket(int b, int slot) {
+            int[] entries = buckets[b];
+            int count = bucketSizes[b];
+            for (int i = 0; i < count; i++) {
+                if (entries[i] == slot) {
+                    entries[i] = entries[count - 1];
+                    bucketSizes[b] = count - 1;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.werchat.moderation;
+
+import com.hypixel.hytale.server.core.permissions.PermissionsModule;
+import com.werchat.WerchatPlugin;
+import com.werchat.config.WerchatConfig;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-player token bucket for chat and private messages, kept as one long per player.
+ * <p>
+ * The bucket is tracked GCRA-style as a theoretical arrival time (TAT) in nanoTime units: each
+ * message pushes it forward by the tier's emission interval, and a message is allowed while the
+ * TAT is no more than (burst - 1) intervals ahead of now. Updates are a CAS loop on the player's
+ * AtomicLong, so checks take no lock and allocate nothing once the player has a bucket.
+ */
+public class RateLimiter {
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final WerchatPlugin plugin;
+    private final Map<UUID, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongAdder limited = new LongAdder();
+
+    public RateLimiter(WerchatPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Takes one token for the player. Returns 0 when the message may be sent, otherwise the
+     * milliseconds until a token is available (nothing is taken in that case).
+     */
+    public long tryAcquire(UUID playerId) {
+        WerchatConfig.RateLimitTier tier = tierFor(playerId);
+        if (tier == null) {
+            return 0;
+        }
+        long interval = intervalNanos(tier);
+        long tolerance = interval * (tier.burst() - 1);
+        AtomicLong bucket = buckets.computeIfAbsent(playerId, ignored -> new AtomicLong(Long.MIN_VALUE));
+
+        while (true) {
+            long now = System.nanoTime();
+            long tat = bucket.get();
+            long base = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+            long waitNanos = base - tolerance - now;
+            if (waitNanos > 0) {
+                limited.increment();
+                return toMillisRoundedUp(waitNanos);
+            }
+            if (bucket.compareAndSet(tat, base + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire} for a message that was then not sent.
+     */
+    public void refund(UUID playerId) {
+        WerchatConfig.RateLimitTier tier = tierFor(playerId);
+        AtomicLong bucket = buckets.get(playerId);
+        if (tier == null || bucket == null) {
+            return;
+        }
+        long interval = intervalNanos(tier);
+        while (true) {
+            long tat = bucket.get();
+            if (tat == Long.MIN_VALUE) {
+                return;
+            }
+            long now = System.nanoTime();
+            // Never below now: a full bucket holds no more than burst tokens
+            long refunded = tat - interval - now < 0 ? now : tat - interval;
+            if (bucket.compareAndSet(tat, refunded)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Milliseconds until the player could send, without taking a token. 0 when they can send now.
+     */
+    public long retryAfterMillis(UUID playerId) {
+        WerchatConfig.RateLimitTier tier = tierFor(playerId);
+        if (tier == null) {
+            return 0;
+        }
+        AtomicLong bucket = buckets.get(playerId);
+        if (bucket == null) {
+            return 0;
+        }
+        long tat = bucket.get();
+        if (tat == Long.MIN_VALUE) {
+            return 0;
+        }
+        long waitNanos = tat - intervalNanos(tier) * (tier.burst() - 1) - System.nanoTime();
+        return waitNanos > 0 ? toMillisRoundedUp(waitNanos) : 0;
+    }
+
+    /**
+     * Called when a player disconnects. Their bucket is kept until it has fully refilled, so
+     * disconnecting can't be used to reset it; any offline player's bucket that has refilled since
+     * is dropped here.
+     */
+    public void release(UUID playerId) {
+        long now = System.nanoTime();
+        buckets.entrySet().removeIf(entry -> isRefilled(entry.getValue(), now)
+            && (entry.getKey().equals(playerId) || plugin.getPlayerDataManager().getOnlinePlayer(entry.getKey()) == null));
+    }
+
+    public int getTrackedPlayers() {
+        return buckets.size();
+    }
+
+    public long getLimitedCount() {
+        return limited.sum();
+    }
+
+    private WerchatConfig.RateLimitTier tierFor(UUID playerId) {
+        WerchatConfig config = plugin.getConfig();
+        if (!config.isRateLimitEnabled()) {
+            return null;
+        }
+        PermissionsModule perms = PermissionsModule.get();
+        if (perms.hasPermission(playerId, "*") || perms.hasPermission(playerId, "werchat.*")) {
+            return null;
+        }
+        String bypassPermission = config.getRateLimitBypassPermission();
+        if (bypassPermission != null && !bypassPermission.isBlank() && perms.hasPermission(playerId, bypassPermission)) {
+            return null;
+        }
+        List<WerchatConfig.RateLimitTier> tiers = config.getRateLimitTiers();
+        for (int i = 0; i < tiers.size(); i++) {
+            WerchatConfig.RateLimitTier tier = tiers.get(i);
+            if (tier.permission().isEmpty() || perms.hasPermission(playerId, tier.permission())) {
+                return tier;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRefilled(AtomicLong bucket, long now) {
+        long tat = bucket.get();
+        return tat == Long.MIN_VALUE || tat - now <= 0;
+    }
+
+    private static long intervalNanos(WerchatConfig.RateLimitTier tier) {
+        return (long) (NANOS_PER_MINUTE / tier.messagesPerMinute());
+    }
+
+    private static long toMillisRoundedUp(long nanos) {
+        return (nanos + 999_999) / 1_000_000;
+    }
+}
@@ -0,0 +1,157 @@
+package com.werchat.moderation;
+
+import com.hypixel.hytale.server.core.permissions.PermissionsModule;
+import com.werchat.WerchatPlugin;
+import com.werchat.channels.Channel;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Last send time per (player, channel) for channel slow mode. Each player has one array of send
+ * times indexed by {@link Channel#getRuntimeSlot()}, guarded by that player's own lock, so a check
+ * allocates nothing and only ever contends with the same player's other messages. A player's
+ * times are kept after they disconnect until every interval they started has passed, so
+ * relogging doesn't reset slow mode; each disconnect sweeps out offline players whose intervals
+ * have all passed.
+ * <p>
+ * Channel moderators and holders of {@code werchat.slowmode.bypass} are not limited.
+ */
+public class SlowModeTracker {
+
+    private static final long NEVER = Long.MIN_VALUE;
+    private static final int INITIAL_SLOTS = 16;
+
+    private final WerchatPlugin plugin;
+    private final Map<UUID, PlayerSends> lastSends = new ConcurrentHashMap<>();
+    private final LongAdder limited = new LongAdder();
+
+    public SlowModeTracker(WerchatPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    private static final class PlayerSends {
+        // Guarded by this
+        private long[] times = newTimes(INITIAL_SLOTS);
+        private long expiresAt = NEVER;
+
+        synchronized long waitNanos(int slot, long intervalNanos, long now) {
+            long last = slot < times.length ? times[slot] : NEVER;
+            return last == NEVER ? 0 : last + intervalNanos - now;
+        }
+
+        synchronized long tryRecord(int slot, long intervalNanos, long now) {
+            if (slot >= times.length) {
+                // A channel created since the array was sized
+                long[] grown = newTimes(Math.max(INITIAL_SLOTS, Integer.highestOneBit(slot) << 1));
+                System.arraycopy(times, 0, grown, 0, times.length);
+                times = grown;
+            }
+            long last = times[slot];
+            if (last != NEVER) {
+                long waitNanos = last + intervalNanos - now;
+                if (waitNanos > 0) {
+                    return waitNanos;
+                }
+            }
+            times[slot] = now;
+            if (expiresAt == NEVER || now + intervalNanos - expiresAt > 0) {
+                expiresAt = now + intervalNanos;
+            }
+            return 0;
+        }
+
+        synchronized boolean isExpired(long now) {
+            return expiresAt == NEVER || expiresAt - now <= 0;
+        }
+
+        private static long[] newTimes(int length) {
+            long[] times = new long[length];
+            Arrays.fill(times, NEVER);
+            return times;
+        }
+    }
+
+    /**
+     * Milliseconds the player must still wait before sending in the channel, without recording
+     * anything. 0 when they may send now.
+     */
+    public long check(UUID playerId, Channel channel, int intervalSeconds) {
+        int slot = channel.getRuntimeSlot();
+        if (intervalSeconds <= 0 || slot < 0 || isExempt(playerId, channel)) {
+            return 0;
+        }
+        PlayerSends sends = lastSends.get(playerId);
+        if (sends == null) {
+            return 0;
+        }
+        long waitNanos = sends.waitNanos(slot, intervalSeconds * 1_000_000_000L, System.nanoTime());
+        if (waitNanos <= 0) {
+            return 0;
+        }
+        limited.increment();
+        return toMillisRoundedUp(waitNanos);
+    }
+
+    /**
+     * Records a send in the channel if its slow-mode interval has passed. Returns 0 when the
+     * message may be sent, otherwise the milliseconds left to wait.
+     */
+    public long tryAcquire(UUID playerId, Channel channel) {
+        return tryAcquire(playerId, channel, channel.getSlowModeSeconds());
+    }
+
+    /**
+     * As {@link #tryAcquire(UUID, Channel)}, with an interval that may differ from the channel's
+     * own setting (a raid lockdown can impose a temporary one).
+     */
+    public long tryAcquire(UUID playerId, Channel channel, int intervalSeconds) {
+        int slot = channel.getRuntimeSlot();
+        if (intervalSeconds <= 0 || slot < 0 || isExempt(playerId, channel)) {
+            return 0;
+        }
+        PlayerSends sends = lastSends.computeIfAbsent(playerId, ignored -> new PlayerSends());
+        long waitNanos = sends.tryRecord(slot, intervalSeconds * 1_000_000_000L, System.nanoTime());
+        if (waitNanos <= 0) {
+            return 0;
+        }
+        limited.increment();
+        return toMillisRoundedUp(waitNanos);
+    }
+
+    /**
+     * Called when a player disconnects. Their send times are kept until every interval they
+     * started has passed, so disconnecting can't be used to reset slow mode; any offline player
+     * whose intervals have passed since is dropped here.
+     */
+    public void release(UUID playerId) {
+        long now = System.nanoTime();
+        lastSends.entrySet().removeIf(entry -> entry.getValue().isExpired(now)
+            && (entry.getKey().equals(playerId) || plugin.getPlayerDataManager().getOnlinePlayer(entry.getKey()) == null));
+    }
+
+    public int getTrackedPlayers() {
+        return lastSends.size();
+    }
+
+    public long getLimitedCount() {
+        return limited.sum();
+    }
+
+    private static boolean isExempt(UUID playerId, Channel channel) {
+        if (channel.isModerator(playerId)) {
+            return true;
+        }
+        PermissionsModule perms = PermissionsModule.get();
+        return perms.hasPermission(playerId, "werchat.slowmode.bypass")
+            || perms.hasPermission(playerId, "werchat.*")
+            || perms.hasPermission(playerId, "*");
+    }
+
+    private static long toMillisRoundedUp(long nanos) {
+        return (nanos + 999_999) / 1_000_000;
+    }
+}
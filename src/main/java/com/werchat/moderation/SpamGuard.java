@@ -0,0 +1,278 @@
+package com.werchat.moderation;
+
+import com.hypixel.hytale.server.core.permissions.PermissionsModule;
+import com.werchat.WerchatPlugin;
+import com.werchat.channels.Channel;
+import com.werchat.config.WerchatConfig;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Scores channel messages for spam: repeats and near-repeats of the sender's recent messages,
+ * shouting in caps, long runs of one character and flooding. Each message adds its score to the
+ * sender's running score, which halves every {@code scoreHalfLifeSeconds}; the running score
+ * decides whether the message passes, passes with a warning, is blocked or gets the sender muted.
+ * <p>
+ * Per player state is a fixed-size ring of the last few messages, each kept as a hash of its
+ * normalized text, a trigram signature and a send time, so a check costs one pass over the
+ * message plus one pass over the ring. A player's state is kept after they disconnect until their
+ * score has decayed and their flood window has passed, so relogging doesn't clear it.
+ */
+public class SpamGuard {
+
+    public enum Verdict { ALLOW, WARN, BLOCK, MUTE }
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // A decayed score below this is as good as none
+    private static final double NEGLIGIBLE_SCORE = 0.01;
+
+    private final WerchatPlugin plugin;
+    private final Map<UUID, SenderState> senders = new ConcurrentHashMap<>();
+    private final LongAdder warned = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder muted = new LongAdder();
+
+    public SpamGuard(WerchatPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Scores a message the sender is about to send in a channel. On {@link Verdict#MUTE} the
+     * sender has already been muted in the channel.
+     */
+    public Verdict check(UUID senderId, Channel channel, String message) {
+        WerchatConfig config = plugin.getConfig();
+        if (!config.isAntiSpamEnabled() || isExempt(senderId, channel, config)) {
+            return Verdict.ALLOW;
+        }
+
+        int historySize = config.getAntiSpamHistorySize();
+        SenderState state = senders.compute(senderId,
+            (id, existing) -> existing != null && existing.size() == historySize ? existing : new SenderState(historySize));
+
+        double messageScore = scoreContent(message, config);
+        long now = System.nanoTime();
+        double score;
+        synchronized (state) {
+            messageScore += state.scoreAgainstHistory(message, now, config);
+            score = state.addScore(messageScore, now, config.getAntiSpamScoreHalfLifeSeconds());
+            if (score >= config.getAntiSpamMuteScore()) {
+                state.resetScore();
+            }
+        }
+
+        if (score >= config.getAntiSpamMuteScore()) {
+            muted.increment();
+            if (channel.mute(senderId)) {
+                plugin.getLogger().at(Level.INFO).log("Muted %s in %s for spam (score %.1f)",
+                    senderId, channel.getName(), score);
+            }
+            return Verdict.MUTE;
+        }
+        if (score >= config.getAntiSpamBlockScore()) {
+            blocked.increment();
+            return Verdict.BLOCK;
+        }
+        if (score >= config.getAntiSpamWarnScore()) {
+            warned.increment();
+            return Verdict.WARN;
+        }
+        return Verdict.ALLOW;
+    }
+
+    /**
+     * Called when a player disconnects. Their state is kept until it has decayed, so disconnecting
+     * can't be used to clear a spam score; any offline player whose state has decayed since is
+     * dropped here.
+     */
+    public void release(UUID playerId) {
+        WerchatConfig config = plugin.getConfig();
+        long now = System.nanoTime();
+        long floodWindow = config.getAntiSpamFloodSeconds() * NANOS_PER_SECOND;
+        int halfLifeSeconds = config.getAntiSpamScoreHalfLifeSeconds();
+        senders.entrySet().removeIf(entry -> entry.getValue().isDecayed(now, floodWindow, halfLifeSeconds)
+            && (entry.getKey().equals(playerId) || plugin.getPlayerDataManager().getOnlinePlayer(entry.getKey()) == null));
+    }
+
+    public int getTrackedPlayers() { return senders.size(); }
+    public long getWarnedCount() { return warned.sum(); }
+    public long getBlockedCount() { return blocked.sum(); }
+    public long getMutedCount() { return muted.sum(); }
+
+    private static boolean isExempt(UUID playerId, Channel channel, WerchatConfig config) {
+        if (channel.isModerator(playerId)) {
+            return true;
+        }
+        PermissionsModule perms = PermissionsModule.get();
+        if (perms.hasPermission(playerId, "*") || perms.hasPermission(playerId, "werchat.*")) {
+            return true;
+        }
+        String bypassPermission = config.getAntiSpamBypassPermission();
+        return bypassPermission != null && !bypassPermission.isBlank() && perms.hasPermission(playerId, bypassPermission);
+    }
+
+    /**
+     * Caps and character-run score of the message on its own.
+     */
+    private static double scoreContent(String message, WerchatConfig config) {
+        int letters = 0;
+        int upper = 0;
+        int run = 0;
+        int longestRun = 0;
+        char previous = 0;
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (Character.isLetter(c)) {
+                letters++;
+                if (Character.isUpperCase(c)) {
+                    upper++;
+                }
+            }
+            if (Character.isWhitespace(c)) {
+                run = 0;
+            } else {
+                char folded = Character.toLowerCase(c);
+                run = folded == previous ? run + 1 : 1;
+                previous = folded;
+                longestRun = Math.max(longestRun, run);
+            }
+        }
+
+        double score = 0;
+        if (letters >= config.getAntiSpamCapsMinLength() && upper >= letters * config.getAntiSpamCapsRatio()) {
+            score += config.getAntiSpamCapsScore();
+        }
+        if (longestRun >= config.getAntiSpamCharRunLength()) {
+            score += config.getAntiSpamCharRunScore();
+        }
+        return score;
+    }
+
+    /**
+     * The last messages of one sender, oldest overwritten first. Signatures are 256-bit trigram
+     * bitmaps stored as {@link #SIGNATURE_WORDS} longs per message.
+     */
+    private static final class SenderState {
+        private static final int SIGNATURE_WORDS = 4;
+
+        private final long[] textHashes;
+        private final long[] signatures;
+        private final long[] sentAt;
+        private final long[] signature = new long[SIGNATURE_WORDS];
+        private int next;
+        private int count;
+        private double score;
+        private long scoredAt;
+
+        SenderState(int size) {
+            this.textHashes = new long[size];
+            this.signatures = new long[size * SIGNATURE_WORDS];
+            this.sentAt = new long[size];
+        }
+
+        int size() {
+            return textHashes.length;
+        }
+
+        /**
+         * Repeat and flood score of the message against the ring, then records it.
+         */
+        double scoreAgainstHistory(String message, long now, WerchatConfig config) {
+            // FNV hash plus trigram bitmap of the normalized text: lowercase letters and digits only
+            long textHash = 0xCBF29CE484222325L;
+            long window = 0;
+            int normalizedLength = 0;
+            Arrays.fill(signature, 0);
+            for (int i = 0; i < message.length(); i++) {
+                char c = message.charAt(i);
+                if (!Character.isLetterOrDigit(c)) {
+                    continue;
+                }
+                c = Character.toLowerCase(c);
+                textHash = (textHash ^ c) * 0x100000001B3L;
+                window = (window << 16) | c;
+                normalizedLength++;
+                if (normalizedLength >= 3) {
+                    int bit = (int) (((window & 0xFFFFFFFFFFFFL) * 0x9E3779B97F4A7C15L) >>> 56);
+                    signature[bit >>> 6] |= 1L << (bit & 63);
+                }
+            }
+
+            boolean exactRepeat = false;
+            boolean nearRepeat = false;
+            int recent = 0;
+            long floodWindow = config.getAntiSpamFloodSeconds() * NANOS_PER_SECOND;
+            double similarity = config.getAntiSpamNearRepeatSimilarity();
+            for (int i = 0; i < count; i++) {
+                if (now - sentAt[i] <= floodWindow) {
+                    recent++;
+                }
+                if (normalizedLength == 0 || textHashes[i] == 0) {
+                    continue;
+                }
+                if (textHashes[i] == textHash) {
+                    exactRepeat = true;
+                } else if (normalizedLength >= 3 && !nearRepeat) {
+                    int shared = 0;
+                    int union = 0;
+                    int base = i * SIGNATURE_WORDS;
+                    for (int w = 0; w < SIGNATURE_WORDS; w++) {
+                        shared += Long.bitCount(signature[w] & signatures[base + w]);
+                        union += Long.bitCount(signature[w] | signatures[base + w]);
+                    }
+                    nearRepeat = shared >= union * similarity;
+                }
+            }
+
+            textHashes[next] = normalizedLength == 0 ? 0 : textHash;
+            System.arraycopy(signature, 0, signatures, next * SIGNATURE_WORDS, SIGNATURE_WORDS);
+            sentAt[next] = now;
+            next = (next + 1) % textHashes.length;
+            count = Math.min(count + 1, textHashes.length);
+
+            double score = 0;
+            if (exactRepeat) {
+                score += config.getAntiSpamRepeatScore();
+            } else if (nearRepeat) {
+                score += config.getAntiSpamNearRepeatScore();
+            }
+            // This message plus the recent ones reaching the limit counts as a flood
+            if (recent + 1 >= config.getAntiSpamFloodMessages()) {
+                score += config.getAntiSpamFloodScore();
+            }
+            return score;
+        }
+
+        double addScore(double added, long now, int halfLifeSeconds) {
+            if (score > 0 && halfLifeSeconds > 0) {
+                double elapsedSeconds = (now - scoredAt) / (double) NANOS_PER_SECOND;
+                score *= Math.pow(0.5, elapsedSeconds / halfLifeSeconds);
+            } else if (halfLifeSeconds <= 0) {
+                score = 0;
+            }
+            score += added;
+            scoredAt = now;
+            return score;
+        }
+
+        void resetScore() {
+            score = 0;
+        }
+
+        synchronized boolean isDecayed(long now, long floodWindow, int halfLifeSeconds) {
+            if (count > 0 && now - sentAt[(next + sentAt.length - 1) % sentAt.length] <= floodWindow) {
+                return false;
+            }
+            if (score <= 0 || halfLifeSeconds <= 0) {
+                return true;
+            }
+            double elapsedSeconds = (now - scoredAt) / (double) NANOS_PER_SECOND;
+            return score * Math.pow(0.5, elapsedSeconds / halfLifeSeconds) < NEGLIGIBLE_SCORE;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.werchat.moderation;
+
+import java.text.Normalizer;
+
+/**
+ * Folds chat text into the form filter rules are matched against: lowercase, accents stripped,
+ * look-alike letters (Cyrillic, Greek, fullwidth) mapped to Latin, leetspeak digits and symbols
+ * mapped to letters, invisible characters dropped and any other run of symbols or spaces reduced
+ * to one space. Spaced-out letters ("b a d", "b.a.d") are joined back into one word.
+ * <p>
+ * Folding is a lookup in a table built once for the whole BMP, so normalizing is a single pass.
+ * Each normalized character remembers which original characters it came from, so a match can be
+ * censored in the text the player actually typed.
+ */
+public final class TextNormalizer {
+
+    static final char SEPARATOR = ' ';
+    static final char REMOVED = '\0';
+
+    private static final char[] FOLD = buildTable();
+    // Symbols that only read as letters inside a word ("sh!t" but not "hello!" or "@player")
+    private static final String INNER_LEET = "!|@$+";
+
+    /**
+     * Normalized text plus, per normalized character, the original range [start, end) it covers.
+     */
+    public record Normalized(String text, int[] starts, int[] ends) {}
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * The folded form of a single character: a lowercase letter or digit, {@link #SEPARATOR} or
+     * {@link #REMOVED}. Symbols that only count as letters inside words fold to SEPARATOR here.
+     */
+    static char fold(char c) {
+        char folded = FOLD[c];
+        return INNER_LEET.indexOf(c) >= 0 ? SEPARATOR : folded;
+    }
+
+    /**
+     * As {@link #fold}, for a character inside a word, where symbols like {@code @} read as letters.
+     */
+    static char foldInWord(char c) {
+        return FOLD[c];
+    }
+
+    public static Normalized normalize(String text) {
+        int length = text.length();
+        char[] out = new char[length];
+        int[] starts = new int[length];
+        int[] ends = new int[length];
+        int size = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            char folded = FOLD[c];
+            if (folded == REMOVED) {
+                if (size > 0) {
+                    ends[size - 1] = i + 1;
+                }
+                continue;
+            }
+            if (INNER_LEET.indexOf(c) >= 0 && !(isWordChar(text, i - 1) && isWordChar(text, i + 1))) {
+                folded = SEPARATOR;
+            }
+            if (folded == SEPARATOR) {
+                if (size == 0) {
+                    continue;
+                }
+                if (out[size - 1] == SEPARATOR) {
+                    ends[size - 1] = i + 1;
+                    continue;
+                }
+            }
+            out[size] = folded;
+            starts[size] = i;
+            ends[size] = i + 1;
+            size++;
+        }
+        if (size > 0 && out[size - 1] == SEPARATOR) {
+            size--;
+        }
+
+        // Join spaced-out letters: drop a separator when the words on both sides are one character long
+        int kept = 0;
+        int wordStart = 0;
+        for (int i = 0; i < size; i++) {
+            if (out[i] == SEPARATOR) {
+                int leftLength = i - wordStart;
+                int rightLength = 0;
+                while (i + 1 + rightLength < size && out[i + 1 + rightLength] != SEPARATOR) {
+                    rightLength++;
+                }
+                wordStart = i + 1;
+                if (leftLength == 1 && rightLength == 1) {
+                    continue;
+                }
+            }
+            out[kept] = out[i];
+            starts[kept] = starts[i];
+            ends[kept] = ends[i];
+            kept++;
+        }
+
+        return new Normalized(new String(out, 0, kept), trim(starts, kept), trim(ends, kept));
+    }
+
+    private static boolean isWordChar(String text, int index) {
+        if (index < 0 || index >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(index);
+        char folded = FOLD[c];
+        return folded != SEPARATOR && folded != REMOVED && INNER_LEET.indexOf(c) < 0;
+    }
+
+    private static int[] trim(int[] values, int size) {
+        if (values.length == size) {
+            return values;
+        }
+        int[] trimmed = new int[size];
+        System.arraycopy(values, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    private static char[] buildTable() {
+        char[] table = new char[Character.MAX_VALUE + 1];
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            table[c] = baseFold((char) c);
+        }
+
+        // Leetspeak
+        String leetFrom = "0134578@$!|+";
+        String leetTo = "oieastbasilt";
+        for (int i = 0; i < leetFrom.length(); i++) {
+            table[leetFrom.charAt(i)] = leetTo.charAt(i);
+        }
+        table['9'] = 'g';
+        table['\u20AC'] = 'e';
+
+        // Look-alike letters, lowercase forms (uppercase is lowered first by baseFold)
+        String confusableFrom = "\u0430\u0432\u0435\u0451\u043A\u043C\u043D\u043E\u0440\u0441\u0442\u0443\u0445\u0456\u0457\u0458\u0455\u0501\u04BB"
+            + "\u03B1\u03B2\u03B5\u03B9\u03BA\u03BD\u03BF\u03C1\u03C4\u03C5\u03C7";
+        String confusableTo = "abeekmhopctyxiijsdh"
+            + "abeikvoptux";
+        for (int i = 0; i < confusableFrom.length(); i++) {
+            char from = confusableFrom.charAt(i);
+            char to = confusableTo.charAt(i);
+            table[from] = to;
+            table[Character.toUpperCase(from)] = to;
+        }
+
+        // Fullwidth ASCII
+        for (int c = 0xFF01; c <= 0xFF5E; c++) {
+            table[c] = table[c - 0xFEE0];
+        }
+        return table;
+    }
+
+    private static char baseFold(char c) {
+        if (c == '\u00AD' || c == '\u034F' || (c >= '\u200B' && c <= '\u200F') || (c >= '\u2060' && c <= '\u2064') || c == '\uFEFF') {
+            return REMOVED;
+        }
+        int type = Character.getType(c);
+        if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK || type == Character.FORMAT) {
+            return REMOVED;
+        }
+        if (!Character.isLetterOrDigit(c)) {
+            return SEPARATOR;
+        }
+        char lower = Character.toLowerCase(c);
+        if (lower < 0x80) {
+            return lower;
+        }
+        if ((lower >= '\u00C0' && lower <= '\u024F') || (lower >= '\u1E00' && lower <= '\u1EFF')) {
+            String decomposed = Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD);
+            char base = decomposed.charAt(0);
+            if (base < 0x80 && Character.isLetter(base)) {
+                return base;
+            }
+        }
+        return lower;
+    }
+}
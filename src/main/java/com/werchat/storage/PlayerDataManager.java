@@ -6,6 +6,7 @@ import com.google.gson.reflect.TypeToken;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.werchat.WerchatPlugin;
 import com.werchat.channels.Channel;
+import com.werchat.format.SenderProfile;
 
 import java.io.*;
 import java.lang.reflect.Type;
@@ -17,6 +18,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.security.MessageDigest;
 import java.util.logging.Level;
 
@@ -28,6 +30,7 @@ public class PlayerDataManager {
     private final Map<UUID, PlayerChatData> playerData;
     private final Map<UUID, PlayerRef> onlinePlayers;
     private final Map<UUID, String> knownNames; // persists after disconnect
+    private final AtomicLong knownNamesVersion = new AtomicLong();
     private final ScheduledExecutorService nicknameSaveExecutor;
     private final Object nicknameSaveLock = new Object();
     private ScheduledFuture<?> pendingNicknameSave;
@@ -43,7 +46,11 @@ public class PlayerDataManager {
 
     public void trackPlayer(UUID playerId, PlayerRef player) {
         onlinePlayers.put(playerId, player);
-        knownNames.put(playerId, player.getUsername());
+        String previousName = knownNames.put(playerId, player.getUsername());
+        if (!Objects.equals(previousName, player.getUsername())) {
+            knownNamesVersion.incrementAndGet();
+        }
+        refreshSenderProfile(playerId);
     }
 
     public void untrackPlayer(UUID playerId) {
@@ -60,6 +67,13 @@ public class PlayerDataManager {
         return knownNames.getOrDefault(playerId, "");
     }
 
+    /**
+     * Bumped whenever a known name is added or changes, so cached name lists can be revalidated.
+     */
+    public long getKnownNamesVersion() {
+        return knownNamesVersion.get();
+    }
+
     public Collection<PlayerRef> getOnlinePlayers() {
         return Collections.unmodifiableCollection(onlinePlayers.values());
     }
@@ -96,24 +110,23 @@ public class PlayerDataManager {
     public UUID getLastMessageFrom(UUID playerId) { return getPlayerData(playerId).getLastMessageFrom(); }
     public void setLastMessageFrom(UUID playerId, UUID fromId) { getPlayerData(playerId).setLastMessageFrom(fromId); }
 
-    // Cooldown tracking
-    public long getLastMessageTime(UUID playerId) { return getPlayerData(playerId).getLastMessageTime(); }
-    public void setLastMessageTime(UUID playerId, long time) { getPlayerData(playerId).setLastMessageTime(time); }
-
     // Nickname methods
     public String getNickname(UUID playerId) { return getPlayerData(playerId).getNickname(); }
     public void setNickname(UUID playerId, String nickname) {
         getPlayerData(playerId).setNickname(nickname);
+        refreshSenderProfile(playerId);
         markNicknamesDirty();
     }
     public String getNickColor(UUID playerId) { return getPlayerData(playerId).getNickColor(); }
     public void setNickColor(UUID playerId, String color) {
         getPlayerData(playerId).setNickColor(color);
+        refreshSenderProfile(playerId);
         markNicknamesDirty();
     }
     public String getNickGradientEnd(UUID playerId) { return getPlayerData(playerId).getNickGradientEnd(); }
     public void setNickGradientEnd(UUID playerId, String color) {
         getPlayerData(playerId).setNickGradientEnd(color);
+        refreshSenderProfile(playerId);
         markNicknamesDirty();
     }
 
@@ -153,9 +166,27 @@ public class PlayerDataManager {
         data.setNickname(null);
         data.setNickColor(null);
         data.setNickGradientEnd(null);
+        refreshSenderProfile(playerId);
         markNicknamesDirty();
     }
 
+    /**
+     * Cached sender name for channel chat. Built lazily the first time and rebuilt by the nickname setters.
+     */
+    public SenderProfile getSenderProfile(UUID playerId) {
+        SenderProfile profile = getPlayerData(playerId).getSenderProfile();
+        return profile != null ? profile : refreshSenderProfile(playerId);
+    }
+
+    private SenderProfile refreshSenderProfile(UUID playerId) {
+        PlayerChatData data = getPlayerData(playerId);
+        synchronized (data) {
+            SenderProfile profile = SenderProfile.render(getDisplayName(playerId), data.getNickColor(), data.getNickGradientEnd());
+            data.setSenderProfile(profile);
+            return profile;
+        }
+    }
+
     // Persistence for nicknames
     private Path getNicknamesFile() {
         return plugin.getDataDirectory().resolve("nicknames.json");
@@ -257,6 +288,7 @@ public class PlayerDataManager {
                     data.setNickGradientEnd(nickData.gradientEnd);
                     data.setMsgColor(nickData.msgColor);
                     data.setMsgGradientEnd(nickData.msgGradientEnd);
+                    refreshSenderProfile(playerId);
                 }
                 plugin.getLogger().at(Level.INFO).log("Loaded %d nicknames", loaded.size());
             }
@@ -339,17 +371,16 @@ public class PlayerDataManager {
         private String focusedChannel;
         private final Set<UUID> ignoredPlayers;
         private UUID lastMessageFrom;
-        private long lastMessageTime; // For cooldown
         private String nickname; // Custom display name
         private String nickColor; // Hex color for nickname (e.g., "#FF5555")
         private String nickGradientEnd; // End color for gradient (e.g., "#5555FF")
         private String msgColor; // Custom message color
         private String msgGradientEnd; // End color for message gradient
+        private SenderProfile senderProfile; // Pre-rendered sender name, not persisted
 
         public PlayerChatData() {
             this.focusedChannel = "Global";
             this.ignoredPlayers = ConcurrentHashMap.newKeySet();
-            this.lastMessageTime = 0;
             this.nickname = null;
             this.nickColor = null;
             this.nickGradientEnd = null;
@@ -365,8 +396,6 @@ public class PlayerDataManager {
         public synchronized Set<UUID> getIgnoredPlayers() { return new HashSet<>(ignoredPlayers); }
         public synchronized UUID getLastMessageFrom() { return lastMessageFrom; }
         public synchronized void setLastMessageFrom(UUID from) { this.lastMessageFrom = from; }
-        public synchronized long getLastMessageTime() { return lastMessageTime; }
-        public synchronized void setLastMessageTime(long time) { this.lastMessageTime = time; }
         public synchronized String getNickname() { return nickname; }
         public synchronized void setNickname(String nickname) { this.nickname = nickname; }
         public synchronized String getNickColor() { return nickColor; }
@@ -378,6 +407,8 @@ public class PlayerDataManager {
         public synchronized void setMsgColor(String msgColor) { this.msgColor = msgColor; }
         public synchronized String getMsgGradientEnd() { return msgGradientEnd; }
         public synchronized void setMsgGradientEnd(String msgGradientEnd) { this.msgGradientEnd = msgGradientEnd; }
+        public synchronized SenderProfile getSenderProfile() { return senderProfile; }
+        public synchronized void setSenderProfile(SenderProfile senderProfile) { this.senderProfile = senderProfile; }
         public synchronized boolean hasMsgColor() { return msgColor != null && !msgColor.isEmpty(); }
         public synchronized NicknameData snapshotNicknameData() {
             return new NicknameData(nickname, nickColor, nickGradientEnd, msgColor, msgGradientEnd);
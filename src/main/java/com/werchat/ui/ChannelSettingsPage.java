@@ -321,6 +321,9 @@ public class ChannelSettingsPage extends InteractiveCustomUIPage<ChannelSettings
         events.addEventBinding(CustomUIEventBindingType.Activating, "#ModSetCustomDistanceButton",
             EventData.of("Button", "ModAction").append("Action", "set_distance")
                 .append("@Value", "#ModDistanceInput.Value"), false);
+        events.addEventBinding(CustomUIEventBindingType.Activating, "#ModSetSlowModeButton",
+            EventData.of("Button", "ModAction").append("Action", "set_slowmode")
+                .append("@Value", "#ModSlowModeInput.Value"), false);
         events.addEventBinding(CustomUIEventBindingType.Activating, "#ModSetPasswordButton",
             EventData.of("Button", "ModAction").append("Action", "set_password")
                 .append("@Password", "#ModPasswordInput.Value"), false);
@@ -488,9 +491,21 @@ public class ChannelSettingsPage extends InteractiveCustomUIPage<ChannelSettings
         cmd.set("#MainApplyMsgColorButton.Disabled", !canMsgColor);
         cmd.set("#MainApplyMsgGradientButton.Disabled", !canMsgColor);
         cmd.set("#MainClearMsgColorButton.Disabled", !canMsgColor);
+        renderMainScrollback(cmd, viewerId, focused);
         renderHelpCommands(cmd, viewerId, "#MainHelpCommands");
     }
 
+    private void renderMainScrollback(UICommandBuilder cmd, UUID viewerId, String focused) {
+        Channel focusedChannel = focused == null ? null : channelManager.getChannel(focused);
+        List<String> lines = focusedChannel == null ? List.of() : plugin.getScrollback().recentText(viewerId, focusedChannel);
+        cmd.clear("#MainScrollback");
+        cmd.set("#MainScrollbackEmpty.Visible", lines.isEmpty());
+        for (int i = 0; i < lines.size(); i++) {
+            cmd.append("#MainScrollback", "Werchat/ScrollbackRow.ui");
+            cmd.set("#MainScrollback[" + i + "] #ScrollbackText.Text", shortenText(lines.get(i), 110));
+        }
+    }
+
     private void renderHelpPanel(UICommandBuilder cmd, UUID viewerId) {
         renderHelpCommands(cmd, viewerId, "#HelpCommands");
     }
@@ -578,6 +593,13 @@ public class ChannelSettingsPage extends InteractiveCustomUIPage<ChannelSettings
         if (hasPermission(viewerId, "werchat.distance") || canModerateAnyChannel) {
             managementCommands.add("/ch distance <channel> <blocks> - Set range (0 global)");
         }
+        if (hasPermission(viewerId, "werchat.slowmode") || canModerateAnyChannel) {
+            managementCommands.add("/ch slowmode <channel> <seconds|off> - Set slow mode");
+        }
+        if (hasPermission(viewerId, "werchat.raid") || canModerateAnyChannel) {
+            managementCommands.add("/ch raid <mute|ban|kick> <channel> <minutes> - Act on recent joins");
+            managementCommands.add("/ch raid end <channel> - Lift a raid lockdown");
+        }
         if (hasPermission(viewerId, "werchat.world") || canModerateAnyChannel) {
             managementCommands.add("/ch world <channel> add|remove <world> - World restriction");
             managementCommands.add("/ch world <channel> none - Clear world restrictions");
@@ -594,6 +616,12 @@ public class ChannelSettingsPage extends InteractiveCustomUIPage<ChannelSettings
             managementCommands.add("/ch mute <channel> <player> - Mute player");
             managementCommands.add("/ch unmute <channel> <player> - Unmute player");
         }
+        if (hasPermission(viewerId, "werchat.history") || canModerateAnyChannel) {
+            managementCommands.add("/ch history <channel> [time] - Show stored chat history");
+        }
+        if (hasPermission(viewerId, "werchat.search") || canModerateAnyChannel) {
+            managementCommands.add("/ch search <terms> [player] [since] - Search stored chat");
+        }
         if (hasPermission(viewerId, "werchat.playernick.others")) {
             managementCommands.add("/ch playernick <player> <name> [#color] [#gradient] - Set player nickname");
         }
@@ -603,6 +631,9 @@ public class ChannelSettingsPage extends InteractiveCustomUIPage<ChannelSettings
         if (hasPermission(viewerId, "werchat.reload")) {
             managementCommands.add("/ch reload - Reload config and channels");
         }
+        if (hasPermission(viewerId, "werchat.stats")) {
+            managementCommands.add("/ch stats - Show chat diagnostics");
+        }
 
         List<HelpCommandLine> lines = new ArrayList<>();
         lines.add(new HelpCommandLine("Player Commands", "#8ea5c0"));
@@ -1197,6 +1228,7 @@ public class ChannelSettingsPage extends InteractiveCustomUIPage<ChannelSettings
         cmd.set("#ModeratorBannedCountValue.Text", "Banned: " + channel.getBanned().size());
         cmd.set("#ModeratorModeratorsCountValue.Text", "Moderators: " + channel.getModerators().size());
         cmd.set("#ModeratorDistanceValue.Text", channel.isGlobal() ? "Distance: Global" : "Distance: " + channel.getDistance() + " blocks");
+        cmd.set("#ModeratorSlowModeValue.Text", channel.hasSlowMode() ? "Slow Mode: " + channel.getSlowModeSeconds() + "s" : "Slow Mode: Off");
         cmd.set("#ModeratorPasswordValue.Text", "Password: " + (channel.hasPassword() ? "Enabled" : "None"));
         cmd.set("#ModeratorTagColorValue.Text", "Tag Color: " + channel.getColorHex());
         cmd.set("#ModeratorTextColorValue.Text", "Text Color: " + (channel.hasMessageColor() ? channel.getMessageColorHex() : "Default"));
@@ -1210,6 +1242,7 @@ public class ChannelSettingsPage extends InteractiveCustomUIPage<ChannelSettings
         cmd.set("#ModMotdEnabledCheck.Value", channel.isMotdEnabled());
         cmd.set("#ModDistanceDropdown.Value", toDistancePresetValue(channel.getDistance()));
         cmd.set("#ModDistanceInput.Value", String.valueOf(Math.max(0, channel.getDistance())));
+        cmd.set("#ModSlowModeInput.Value", String.valueOf(channel.getSlowModeSeconds()));
         cmd.set("#ModTagColorPicker.Color", channel.getColorHex());
         cmd.set("#ModTextColorPicker.Color", defaultColor(channel.getMessageColorHex()));
         renderModeratorActionFeedback(cmd);
@@ -1269,6 +1302,7 @@ public class ChannelSettingsPage extends InteractiveCustomUIPage<ChannelSettings
         }
 
         playerDataManager.setFocusedChannel(viewerId, channel.getName());
+        plugin.getScrollback().replay(viewerId, channel);
         channelManager.sendChannelMotd(viewerId, channel);
         statusMessage = "Now chatting in " + channel.getName() + ".";
     }
@@ -1294,6 +1328,7 @@ public class ChannelSettingsPage extends InteractiveCustomUIPage<ChannelSettings
 
         if (attemptJoin(viewerId, channel, password)) {
             playerDataManager.setFocusedChannel(viewerId, channel.getName());
+            plugin.getScrollback().replay(viewerId, channel);
             channelManager.sendChannelMotd(viewerId, channel);
             closeJoinPasswordModal();
             statusMessage = "Joined and focused " + channel.getName() + ".";
@@ -1765,6 +1800,23 @@ public class ChannelSettingsPage extends InteractiveCustomUIPage<ChannelSettings
                     statusMessage = "Invalid distance.";
                 }
             }
+            case "set_slowmode" -> {
+                if (value == null || value.isBlank()) {
+                    statusMessage = "Slow mode seconds are required.";
+                    return;
+                }
+                try {
+                    int parsed = "off".equalsIgnoreCase(value.trim()) ? 0 : Integer.parseInt(value.trim());
+                    if (parsed < 0 || parsed > 3600) {
+                        statusMessage = "Slow mode must be between 0 and 3600 seconds.";
+                        return;
+                    }
+                    channel.setSlowModeSeconds(parsed);
+                    statusMessage = parsed == 0 ? "Slow mode disabled." : "Slow mode set to " + parsed + "s.";
+                } catch (NumberFormatException e) {
+                    statusMessage = "Invalid slow mode.";
+                }
+            }
             case "set_password" -> {
                 if (password == null || password.isBlank()) {
                     statusMessage = "Password is empty.";
@@ -1941,16 +1993,14 @@ public class ChannelSettingsPage extends InteractiveCustomUIPage<ChannelSettings
         if (text == null || text.isEmpty() || papi == null) {
             return text == null ? "" : text;
         }
-        PlayerRef viewer = playerDataManager.getOnlinePlayer(viewerId);
-        if (viewer == null) {
+        if (PAPIIntegration.classify(text) == PAPIIntegration.TemplateKind.STATIC) {
             return text;
         }
-        try {
-            String resolved = papi.setPlaceholders(viewer, text);
-            return resolved == null ? text : resolved;
-        } catch (Throwable ignored) {
+        PlayerRef viewer = playerDataManager.getOnlinePlayer(viewerId);
+        if (viewer == null) {
             return text;
         }
+        return PAPIIntegration.resolveForSender(viewer, text).text();
     }
 
     private String toDistancePresetValue(int distance) {